@@ -0,0 +1,235 @@
+package com.expirysync.api;
+
+import com.expirysync.dsa.DSAOperations;
+import com.expirysync.dsa.Product;
+import com.expirysync.dsa.WriteAheadLog;
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Streams a catalog feed into DSAOperations in fixed-size batches. Rows are
+// read one at a time, so memory holds a single batch however large the feed
+// is. Each batch is applied under one write section with one log sync. A
+// row that fails validation is reported by line number and skipped; the
+// other rows are still applied.
+//
+// Formats: CSV with a header row (RFC 4180 quoting, columns in any order,
+// unknown columns ignored), or NDJSON with one product object per line.
+// Both use the /api/addProduct field names, plus an optional id that
+// replaces the product stored under it.
+class BulkImporter {
+    static final int MAX_REPORTED_ERRORS = 100;
+    
+    enum Format { CSV, NDJSON }
+    
+    private static final Gson gson = new Gson();
+    static final String[] FIELDS = {"id", "name", "category", "quantity", "price", "expiryDate", "supplier", "status"};
+    
+    private final DSAOperations operations;
+    private final int batchSize;
+    private final List<Product> batch;
+    
+    // Totals for the response
+    int rows;
+    int added;
+    int updated;
+    int failed;
+    int batches;
+    final List<Map<String, Object>> errors = new ArrayList<>();
+    
+    BulkImporter(DSAOperations operations, int batchSize) {
+        this.operations = operations;
+        this.batchSize = batchSize;
+        this.batch = new ArrayList<>(batchSize);
+    }
+    
+    void run(Reader in, Format format) throws IOException {
+        BufferedReader reader = new BufferedReader(in, 1 << 16);
+        if (format == Format.CSV) {
+            readCsv(reader);
+        } else {
+            readNdjson(reader);
+        }
+        flush();
+    }
+    
+    private void readNdjson(BufferedReader reader) throws IOException {
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.trim().isEmpty()) continue;
+            rows++;
+            try {
+                @SuppressWarnings("unchecked")
+                Map<String, Object> data = gson.fromJson(line, Map.class);
+                if (data == null) throw new IllegalArgumentException("Not a JSON object");
+                accept(data);
+            } catch (JsonSyntaxException e) {
+                reject(lineNumber, "Malformed JSON");
+            } catch (RuntimeException e) {
+                reject(lineNumber, e.getMessage());
+            }
+        }
+    }
+    
+    private void readCsv(BufferedReader reader) throws IOException {
+        CsvReader csv = new CsvReader(reader);
+        List<String> header = csv.next();
+        if (header == null) return;
+        
+        // Column position of each known field, -1 if absent
+        int[] columns = new int[FIELDS.length];
+        for (int f = 0; f < FIELDS.length; f++) {
+            columns[f] = -1;
+            for (int c = 0; c < header.size(); c++) {
+                if (header.get(c).trim().replace("_", "").equalsIgnoreCase(FIELDS[f])) columns[f] = c;
+            }
+        }
+        if (columns[1] < 0) {
+            throw new IllegalArgumentException("CSV header must include a name column");
+        }
+        
+        while (true) {
+            int lineNumber = csv.line + 1;
+            List<String> record;
+            try {
+                record = csv.next();
+            } catch (IllegalArgumentException e) {
+                // An unterminated quote swallows the rest of the feed
+                reject(lineNumber, e.getMessage());
+                break;
+            }
+            if (record == null) break;
+            if (record.size() == 1 && record.get(0).trim().isEmpty()) continue;
+            rows++;
+            Map<String, Object> data = new HashMap<>();
+            for (int f = 0; f < FIELDS.length; f++) {
+                if (columns[f] >= 0 && columns[f] < record.size() && !record.get(columns[f]).trim().isEmpty()) {
+                    data.put(FIELDS[f], record.get(columns[f]).trim());
+                }
+            }
+            try {
+                accept(data);
+            } catch (RuntimeException e) {
+                reject(lineNumber, e.getMessage());
+            }
+        }
+    }
+    
+    // Validates one row and queues it; applies the batch once it is full
+    private void accept(Map<String, Object> data) {
+        Object name = data.get("name");
+        if (!(name instanceof String) || ((String) name).trim().isEmpty()) {
+            throw new IllegalArgumentException("Missing name");
+        }
+        Product product = DSASimulator.productFrom(data);
+        if (product.getQuantity() < 0) throw new IllegalArgumentException("Negative quantity");
+        if (product.getPrice() < 0) throw new IllegalArgumentException("Negative price");
+        Object id = data.get("id");
+        if (id != null) {
+            product.setId(id.toString().trim());
+        }
+        Object status = data.get("status");
+        if (status instanceof String) {
+            product.setStatus((String) status);
+        }
+        WriteAheadLog.checkRecordable(product);
+        batch.add(product);
+        if (batch.size() >= batchSize) {
+            flush();
+        }
+    }
+    
+    private void flush() {
+        if (batch.isEmpty()) return;
+        int fresh = operations.addProducts(batch);
+        added += fresh;
+        updated += batch.size() - fresh;
+        batches++;
+        batch.clear();
+    }
+    
+    private void reject(int lineNumber, String message) {
+        failed++;
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("line", lineNumber);
+            error.put("error", message);
+            errors.add(error);
+        }
+    }
+    
+    static Format formatFor(String requested, String contentType) {
+        String value = requested != null ? requested
+            : contentType != null && contentType.toLowerCase(Locale.ROOT).contains("csv") ? "csv" : "ndjson";
+        switch (value.toLowerCase(Locale.ROOT)) {
+            case "csv": return Format.CSV;
+            case "ndjson":
+            case "jsonl": return Format.NDJSON;
+            default: throw new IllegalArgumentException("Unknown import format: " + value + " (use csv or ndjson)");
+        }
+    }
+    
+    // Reads RFC 4180 records: comma-separated, fields optionally quoted,
+    // "" for a quote inside quotes, and line breaks allowed inside quotes.
+    // `line` counts the physical lines consumed so far.
+    private static class CsvReader {
+        private final Reader in;
+        private final StringBuilder field = new StringBuilder();
+        int line;
+        
+        CsvReader(Reader in) {
+            this.in = in;
+        }
+        
+        List<String> next() throws IOException {
+            int c = in.read();
+            if (c < 0) return null;
+            List<String> record = new ArrayList<>();
+            boolean quoted = false;
+            field.setLength(0);
+            while (true) {
+                if (quoted) {
+                    if (c < 0) {
+                        throw new IllegalArgumentException("Unterminated quoted field");
+                    }
+                    if (c == '"') {
+                        int peek = in.read();
+                        if (peek == '"') {
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                            c = peek;
+                            continue;
+                        }
+                    } else {
+                        if (c == '\n') line++;
+                        field.append((char) c);
+                    }
+                } else if (c < 0 || c == '\n') {
+                    line++;
+                    record.add(field.toString());
+                    return record;
+                } else if (c == '\r') {
+                    // dropped; \n ends the record
+                } else if (c == ',') {
+                    record.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '"' && field.length() == 0) {
+                    quoted = true;
+                } else {
+                    field.append((char) c);
+                }
+                c = in.read();
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,128 @@
+package com.expirysync.api;
+
+import com.expirysync.dsa.DSAOperations;
+import com.expirysync.dsa.Product;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Locale;
+
+// Writes the whole catalog, or its first `limit` products, to a stream in
+// expiry order. Products are fetched from DSAOperations one page at a time,
+// so memory stays constant whatever the catalog size. Writes are not held
+// off meanwhile, so an export taken under load is not a point-in-time copy
+// (see DSAOperations.exportPage). Formats:
+// - JSON: a single array
+// - NDJSON: one object per line
+// - CSV: a header row with BulkImporter's columns, so an export can be
+//   imported back as it is
+class CatalogExporter {
+    static final int PAGE_SIZE = 1000;
+    
+    enum Format {
+        JSON("application/json"),
+        NDJSON("application/x-ndjson"),
+        CSV("text/csv; charset=utf-8");
+        
+        final String contentType;
+        
+        Format(String contentType) {
+            this.contentType = contentType;
+        }
+        
+        static Format parse(String value) {
+            if (value == null || value.isEmpty()) return JSON;
+            switch (value.toLowerCase(Locale.ROOT)) {
+                case "json": return JSON;
+                case "ndjson":
+                case "jsonl": return NDJSON;
+                case "csv": return CSV;
+                default: throw new IllegalArgumentException("Unknown export format: " + value + " (use json, ndjson or csv)");
+            }
+        }
+    }
+    
+    private final DSAOperations operations;
+    
+    CatalogExporter(DSAOperations operations) {
+        this.operations = operations;
+    }
+    
+    // Streams up to limit products to out and returns how many were written;
+    // out is flushed but left open
+    int export(Writer out, Format format, int limit) throws IOException {
+        JsonWriter json = format == Format.JSON ? new JsonWriter(out) : null;
+        if (json != null) {
+            json.beginArray();
+        } else if (format == Format.CSV) {
+            out.write(String.join(",", BulkImporter.FIELDS));
+            out.write('\n');
+        }
+        
+        int written = 0;
+        Product last = null;
+        while (written < limit) {
+            List<Product> page = operations.exportPage(last, Math.min(PAGE_SIZE, limit - written));
+            if (page.isEmpty()) break;
+            for (Product product : page) {
+                if (format == Format.JSON) {
+                    ProductListing.writeProduct(json, product);
+                } else if (format == Format.NDJSON) {
+                    // JsonWriter writes straight through to out; no flush
+                    // per line, so lines are batched into full chunks
+                    ProductListing.writeProduct(new JsonWriter(out), product);
+                    out.write('\n');
+                } else {
+                    writeCsv(out, product);
+                }
+            }
+            written += page.size();
+            last = page.get(page.size() - 1);
+        }
+        
+        if (json != null) {
+            json.endArray();
+            json.flush();
+        }
+        out.flush();
+        return written;
+    }
+    
+    // Columns in BulkImporter.FIELDS order
+    private static void writeCsv(Writer out, Product p) throws IOException {
+        writeCsvField(out, p.getId());
+        out.write(',');
+        writeCsvField(out, p.getName());
+        out.write(',');
+        writeCsvField(out, p.getCategory());
+        out.write(',');
+        out.write(Integer.toString(p.getQuantity()));
+        out.write(',');
+        out.write(Double.toString(p.getPrice()));
+        out.write(',');
+        writeCsvField(out, p.getExpiryDate() != null ? p.getExpiryDate().toString() : null);
+        out.write(',');
+        writeCsvField(out, p.getSupplier());
+        out.write(',');
+        writeCsvField(out, p.getStatus());
+        out.write('\n');
+    }
+    
+    // Quotes a field only when it holds a comma, quote or line break
+    private static void writeCsvField(Writer out, String value) throws IOException {
+        if (value == null) return;
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        out.write(value.replace("\"", "\"\""));
+        out.write('"');
+    }
+}
\ No newline at end of file
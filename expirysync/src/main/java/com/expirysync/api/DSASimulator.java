@@ -1,237 +1,555 @@
-package com.expirysync.api;
-
-import com.expirysync.dsa.DSAOperations;
-import java.time.LocalDate;
-import java.util.HashMap;
-import java.util.Map;
-
-public class DSASimulator {
-    private DSAOperations dsaOperations;
-    private Map<String, String> operationLog;
-    
-    public DSASimulator() {
-        this.dsaOperations = new DSAOperations();
-        this.operationLog = new HashMap<>();
-        System.out.println("DSA Simulator initialized");
-    }
-    
-    public Map<String, Object> simulateAddProduct(Map<String, Object> productData) {
-        System.out.println("\n[API] Adding product: " + productData);
-        
-        // Create product
-        DSAOperations.Product product = new DSAOperations.Product();
-        product.setId("PROD_" + System.currentTimeMillis());
-        product.setName((String) productData.getOrDefault("name", "Unknown"));
-        product.setCategory((String) productData.getOrDefault("category", "General"));
-        
-        // Handle quantity
-        Object qty = productData.get("quantity");
-        if (qty instanceof String) {
-            product.setQuantity(Integer.parseInt((String) qty));
-        } else if (qty instanceof Number) {
-            product.setQuantity(((Number) qty).intValue());
-        } else {
-            product.setQuantity(1);
-        }
-        
-        // Handle price
-        Object price = productData.get("price");
-        if (price instanceof String) {
-            product.setPrice(Double.parseDouble((String) price));
-        } else if (price instanceof Number) {
-            product.setPrice(((Number) price).doubleValue());
-        } else {
-            product.setPrice(0.0);
-        }
-        
-        product.setExpiryDate(LocalDate.now().plusDays(30));
-        product.setSupplier((String) productData.getOrDefault("supplier", "Unknown"));
-        
-        // Add to DSA operations
-        dsaOperations.addProduct(product);
-        
-        // Log operation
-        operationLog.put("add_" + product.getId(), "Added: " + product.getName());
-        
-        // Prepare response
-        Map<String, Object> response = new HashMap<>();
-        response.put("status", "success");
-        response.put("message", "Product added using DSA structures");
-        response.put("productId", product.getId());
-        response.put("dsaOperations", new String[]{
-            "Stack.push() - O(1)",
-            "Queue.enqueue() - O(1)",
-            "PriorityQueue.insert() - O(log n)"
-        });
-        
-        return response;
-    }
-    
-    public Map<String, Object> simulateRemoveProduct(String productId) {
-        System.out.println("\n[API] Removing product: " + productId);
-        
-        dsaOperations.removeProduct(productId);
-        operationLog.put("remove_" + productId, "Removed product");
-        
-        Map<String, Object> response = new HashMap<>();
-        response.put("status", "success");
-        response.put("message", "Product removal simulated");
-        response.put("operations", new String[]{
-            "ArrayList.remove() - O(n)",
-            "Stack traversal - O(n)",
-            "Queue traversal - O(n)"
-        });
-        
-        return response;
-    }
-    
-    public Map<String, Object> simulateProcessExpired() {
-        System.out.println("\n[API] Processing expired products");
-        
-        DSAOperations.Product processed = dsaOperations.processNextExpired();
-        
-        Map<String, Object> response = new HashMap<>();
-        if (processed != null) {
-            operationLog.put("process_expired", "Processed: " + processed.getName());
-            
-            response.put("status", "success");
-            response.put("processed", processed.getName());
-            response.put("operation", "Queue.dequeue() - O(1)");
-            response.put("dsaStructure", "ExpiryQueue (FIFO)");
-        } else {
-            response.put("status", "empty");
-            response.put("message", "No expired products");
-        }
-        
-        return response;
-    }
-    
-    public Map<String, Object> simulateGetUrgentProducts() {
-        System.out.println("\n[API] Getting urgent products");
-        
-        DSAOperations.Product urgent = dsaOperations.getMostUrgentProduct();
-        
-        Map<String, Object> response = new HashMap<>();
-        if (urgent != null) {
-            response.put("status", "success");
-            response.put("urgentProduct", urgent.getName());
-            response.put("priority", urgent.getPriority());
-            response.put("operation", "PriorityQueue.peek() - O(1)");
-            response.put("dsaStructure", "PriorityExpiryQueue (Min-Heap)");
-        } else {
-            response.put("status", "empty");
-            response.put("message", "No urgent products");
-        }
-        
-        return response;
-    }
-    
-    public Map<String, Object> simulateSortProducts(String sortBy) {
-        System.out.println("\n[API] Sorting products by: " + sortBy);
-        
-        dsaOperations.demonstrateSorting();
-        operationLog.put("sort", "Sorted by " + sortBy);
-        
-        Map<String, Object> response = new HashMap<>();
-        response.put("status", "success");
-        response.put("sortBy", sortBy);
-        
-        switch (sortBy.toLowerCase()) {
-            case "expiry":
-                response.put("algorithm", "Quick Sort");
-                response.put("time", "O(n log n) average");
-                break;
-            case "priority":
-                response.put("algorithm", "Merge Sort");
-                response.put("time", "O(n log n) guaranteed");
-                break;
-            case "quantity":
-                response.put("algorithm", "Bubble Sort");
-                response.put("time", "O(n²)");
-                break;
-            default:
-                response.put("algorithm", "Java TimSort");
-                response.put("time", "O(n log n)");
-        }
-        
-        return response;
-    }
-    
-    public Map<String, Object> simulateSearchProducts(String searchType, String query) {
-        System.out.println("\n[API] Searching products: " + searchType + " = " + query);
-        
-        dsaOperations.demonstrateSearching();
-        operationLog.put("search", searchType + ": " + query);
-        
-        Map<String, Object> response = new HashMap<>();
-        response.put("status", "success");
-        response.put("searchType", searchType);
-        response.put("query", query);
-        
-        switch (searchType.toLowerCase()) {
-            case "id":
-                response.put("algorithm", "Linear Search");
-                response.put("time", "O(n)");
-                break;
-            case "name":
-                response.put("algorithm", "Binary Search");
-                response.put("time", "O(log n)");
-                break;
-            default:
-                response.put("algorithm", "Linear Filter");
-                response.put("time", "O(n)");
-        }
-        
-        return response;
-    }
-    
-    public Map<String, Object> simulateGetDashboardStats() {
-        System.out.println("\n[API] Getting dashboard stats");
-        
-        Map<String, Object> stats = dsaOperations.getDashboardStats();
-        operationLog.put("stats", "Dashboard generated");
-        
-        stats.put("dsaStructures", new String[]{
-            "ArrayList", "Stack", "Queue", "PriorityQueue"
-        });
-        
-        return stats;
-    }
-    
-    public Map<String, Object> getOperationLog() {
-        Map<String, Object> response = new HashMap<>();
-        response.put("status", "success");
-        response.put("totalOperations", operationLog.size());
-        response.put("operations", operationLog);
-        response.put("timestamp", System.currentTimeMillis());
-        
-        return response;
-    }
-    
-    public void runCompleteSimulation() {
-        System.out.println("\n=== Running Complete DSA Simulation ===");
-        
-        // Add sample products
-        Map<String, Object> milk = new HashMap<>();
-        milk.put("name", "Fresh Milk");
-        milk.put("category", "Dairy");
-        milk.put("quantity", "20");
-        milk.put("price", "2.99");
-        simulateAddProduct(milk);
-        
-        Map<String, Object> eggs = new HashMap<>();
-        eggs.put("name", "Organic Eggs");
-        eggs.put("category", "Dairy");
-        eggs.put("quantity", "12");
-        eggs.put("price", "4.50");
-        simulateAddProduct(eggs);
-        
-        // Demonstrate operations
-        simulateGetUrgentProducts();
-        simulateSortProducts("expiry");
-        simulateSearchProducts("name", "Milk");
-        simulateProcessExpired();
-        
-        System.out.println("\n=== Simulation Complete ===");
-    }
+package com.expirysync.api;
+
+import com.expirysync.dsa.AttributeBitmaps;
+import com.expirysync.dsa.DSAOperations;
+import com.expirysync.dsa.ExpiryQueue;
+import com.expirysync.dsa.InventoryStore;
+import com.expirysync.dsa.InvertedIndex;
+import com.expirysync.dsa.Product;
+import com.expirysync.dsa.ProductPage;
+import com.expirysync.dsa.ProductSorter;
+import com.expirysync.dsa.WriteAheadLog;
+import com.expirysync.log.Log;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+public class DSASimulator {
+    private static final Log logger = Log.get(DSASimulator.class);
+    private DSAOperations dsaOperations;
+    private final OperationJournal journal;
+    
+    public DSASimulator() {
+        this(new DSAOperations(), 1024);
+    }
+    
+    // Intake ring settings come from --intake-capacity/--intake-overflow and
+    // the recent-additions depth from --recent-depth, then the matching
+    // EXPIRYSYNC_INTAKE_CAPACITY/_INTAKE_OVERFLOW/_RECENT_DEPTH variables; the
+    // operation journal keeps the last --journal-capacity /
+    // EXPIRYSYNC_JOURNAL_CAPACITY operations
+    public DSASimulator(ServerConfig config) {
+        this(persistent(new DSAOperations(
+            config.getInt("intake-capacity", "EXPIRYSYNC_INTAKE_CAPACITY", 1024),
+            overflowPolicy(config.get("intake-overflow", "EXPIRYSYNC_INTAKE_OVERFLOW", "block")),
+            config.getInt("recent-depth", "EXPIRYSYNC_RECENT_DEPTH", 50)), config),
+            config.getInt("journal-capacity", "EXPIRYSYNC_JOURNAL_CAPACITY", 1024));
+    }
+    
+    // Recovers the catalog from --data-dir / EXPIRYSYNC_DATA_DIR (default
+    // "data"; "off" keeps it in memory only) and logs every write there,
+    // snapshotting after --snapshot-every / EXPIRYSYNC_SNAPSHOT_EVERY records
+    private static DSAOperations persistent(DSAOperations operations, ServerConfig config) {
+        String dataDir = config.get("data-dir", "EXPIRYSYNC_DATA_DIR", "data");
+        if ("off".equalsIgnoreCase(dataDir)) {
+            logger.info("Persistence off: the catalog lives in memory only");
+            return operations;
+        }
+        try {
+            InventoryStore store = InventoryStore.open(operations, Paths.get(dataDir),
+                config.getInt("snapshot-every", "EXPIRYSYNC_SNAPSHOT_EVERY", 100_000));
+            Runtime.getRuntime().addShutdownHook(new Thread(store::close, "inventory-store-close"));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open data directory " + dataDir, e);
+        }
+        return operations;
+    }
+    
+    private DSASimulator(DSAOperations dsaOperations, int journalCapacity) {
+        this.dsaOperations = dsaOperations;
+        this.journal = new OperationJournal(journalCapacity);
+        logger.info("DSA Simulator initialized");
+    }
+    
+    public Map<String, Object> simulateAddProduct(Map<String, Object> productData) {
+        logger.debug("[API] Adding product: {}", productData);
+        
+        long start = System.nanoTime();
+        Product product = productFrom(productData);
+        
+        // Add to DSA operations
+        dsaOperations.addProduct(product);
+        
+        // Log operation
+        journal.record(OperationJournal.Type.ADD, start, product.getId(), 1);
+        
+        // Prepare response
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "success");
+        response.put("message", "Product added using DSA structures");
+        response.put("productId", product.getId());
+        response.put("dsaOperations", new String[]{
+            "Stack.push() - O(1)",
+            "Queue.enqueue() - O(1)",
+            "PriorityQueue.insert() - O(log n)"
+        });
+        
+        return response;
+    }
+    
+    // Streams a CSV or NDJSON catalog feed into the store in batches of
+    // batchSize rows, each applied under one write section
+    public Map<String, Object> simulateImportProducts(Reader body, BulkImporter.Format format, int batchSize) throws IOException {
+        logger.debug("[API] Importing {} feed in batches of {}", format, batchSize);
+        
+        BulkImporter importer = new BulkImporter(dsaOperations, batchSize);
+        long start = System.nanoTime();
+        importer.run(body, format);
+        long elapsedNanos = System.nanoTime() - start;
+        double rowsPerSecond = importer.rows / Math.max(elapsedNanos / 1e9, 1e-9);
+        
+        journal.record(OperationJournal.Type.IMPORT, start, format.name().toLowerCase(Locale.ROOT), importer.added + importer.updated);
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", importer.failed == 0 ? "success" : "partial");
+        response.put("format", format.name().toLowerCase(Locale.ROOT));
+        response.put("rows", importer.rows);
+        response.put("added", importer.added);
+        response.put("updated", importer.updated);
+        response.put("failed", importer.failed);
+        response.put("errors", importer.errors);
+        response.put("errorsTruncated", importer.failed > importer.errors.size());
+        response.put("batches", importer.batches);
+        response.put("elapsedMs", elapsedNanos / 1_000_000);
+        response.put("rowsPerSecond", Math.round(rowsPerSecond));
+        response.put("algorithm", "Streaming parse, batched inserts under one write lock per batch");
+        response.put("time", "O(rows x log n)");
+        return response;
+    }
+    
+    // Streams up to limit products (the whole catalog by default) to out in
+    // expiry order, one page under the read lock at a time
+    public int simulateExportProducts(Writer out, CatalogExporter.Format format, int limit) throws IOException {
+        logger.debug("[API] Exporting catalog as {}", format);
+        
+        long start = System.nanoTime();
+        int written = new CatalogExporter(dsaOperations).export(out, format, limit);
+        journal.record(OperationJournal.Type.EXPORT, start, format.name().toLowerCase(Locale.ROOT), written);
+        return written;
+    }
+    
+    // Builds a product from /api/addProduct fields: name, category,
+    // quantity and price (numbers or numeric strings), expiryDate (ISO
+    // yyyy-MM-dd, default 30 days out) and supplier. Text fields longer than
+    // the write-ahead log can hold are rejected.
+    static Product productFrom(Map<String, Object> productData) {
+        Product product = new Product();
+        product.setName((String) productData.getOrDefault("name", "Unknown"));
+        product.setCategory((String) productData.getOrDefault("category", "General"));
+        
+        // Handle quantity
+        Object qty = productData.get("quantity");
+        if (qty instanceof String) {
+            product.setQuantity(parseInt("quantity", (String) qty));
+        } else if (qty instanceof Number) {
+            product.setQuantity(((Number) qty).intValue());
+        } else {
+            product.setQuantity(1);
+        }
+        
+        // Handle price
+        Object price = productData.get("price");
+        if (price instanceof String) {
+            product.setPrice(parseDouble("price", (String) price));
+        } else if (price instanceof Number) {
+            product.setPrice(((Number) price).doubleValue());
+        } else {
+            product.setPrice(0.0);
+        }
+        
+        // Handle expiry date (ISO yyyy-MM-dd), defaulting to 30 days out
+        Object expiry = productData.get("expiryDate");
+        if (expiry instanceof String && !((String) expiry).isEmpty()) {
+            try {
+                product.setExpiryDate(LocalDate.parse((String) expiry));
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid expiryDate: " + expiry);
+            }
+        } else {
+            product.setExpiryDate(LocalDate.now().plusDays(30));
+        }
+        product.setSupplier((String) productData.getOrDefault("supplier", "Unknown"));
+        WriteAheadLog.checkRecordable(product);
+        return product;
+    }
+    
+    public Map<String, Object> simulateRemoveProduct(String productId) {
+        logger.debug("[API] Removing product: {}", productId);
+        
+        long start = System.nanoTime();
+        Product removed = dsaOperations.removeProduct(productId);
+        
+        Map<String, Object> response = new HashMap<>();
+        if (removed == null) {
+            response.put("status", "not_found");
+            response.put("message", "No product with ID " + productId);
+            return response;
+        }
+        journal.record(OperationJournal.Type.REMOVE, start, productId, 1);
+        
+        response.put("status", "success");
+        response.put("message", "Product removed from storage, indexes and queues");
+        response.put("productId", productId);
+        response.put("operations", new String[]{
+            "HashMap.remove() + swap-remove - O(1)",
+            "Stack slot cleared by push sequence, leaving a hole - O(1)",
+            "Intake ring entry left in place, skipped when drained - O(1)",
+            "Heap remove by handle - O(log n)",
+            "Calendar bucket unlink - O(1)"
+        });
+        
+        return response;
+    }
+    
+    public Map<String, Object> simulateUpdateQuantity(String productId, int quantity) {
+        logger.debug("[API] Updating quantity: {} -> {}", productId, quantity);
+        
+        long start = System.nanoTime();
+        Map<String, Object> response = new HashMap<>();
+        if (!dsaOperations.updateQuantity(productId, quantity)) {
+            response.put("status", "not_found");
+            response.put("message", "No product with ID " + productId);
+            return response;
+        }
+        journal.record(OperationJournal.Type.UPDATE_QUANTITY, start, productId + " -> " + quantity, 1);
+        
+        response.put("status", "success");
+        response.put("productId", productId);
+        response.put("quantity", quantity);
+        response.put("operation", "HashMap.get() + counter update - O(1)");
+        return response;
+    }
+    
+    public Map<String, Object> simulateProcessExpired() {
+        return simulateProcessExpired(null, 1);
+    }
+    
+    // upTo is the last expiry date to process (inclusive); null means yesterday
+    public Map<String, Object> simulateProcessExpired(LocalDate upTo, int limit) {
+        logger.debug("[API] Processing expired products");
+        
+        long start = System.nanoTime();
+        LocalDate lastDay = upTo != null ? upTo : LocalDate.ofEpochDay(dsaOperations.lastExpiredDay());
+        List<Product> processed = dsaOperations.processExpired(lastDay.toEpochDay(), limit);
+        
+        Map<String, Object> response = new HashMap<>();
+        if (!processed.isEmpty()) {
+            List<String> names = new ArrayList<>();
+            for (Product p : processed) {
+                names.add(p.getName());
+            }
+            journal.record(OperationJournal.Type.PROCESS_EXPIRED, start, lastDay.toString(), names.size());
+            
+            response.put("status", "success");
+            response.put("processed", names.get(0));
+            response.put("processedProducts", names);
+            response.put("count", names.size());
+            response.put("upTo", lastDay.toString());
+            response.put("operation", "ExpiryCalendar.pollDue() - O(k + days advanced)");
+            response.put("dsaStructure", "ExpiryCalendar (day-bucketed timer wheel)");
+        } else {
+            response.put("status", "empty");
+            response.put("message", "No expired products");
+        }
+        
+        return response;
+    }
+    
+    public ProductListing simulateGetUrgentProducts() {
+        return simulateGetUrgentProducts(0, 1, null);
+    }
+    
+    public ProductListing simulateGetUrgentProducts(int offset, int limit, String category) {
+        logger.debug("[API] Getting urgent products");
+        
+        long start = System.nanoTime();
+        List<Product> urgent = dsaOperations.getUrgentProducts(offset, limit, category);
+        journal.record(OperationJournal.Type.URGENT, start, category, urgent.size());
+        
+        ProductListing response = new ProductListing();
+        if (!urgent.isEmpty()) {
+            response.urgentProduct = urgent.get(0).getName();
+            response.priority = urgent.get(0).getPriority();
+            response.products = urgent;
+            response.offset = offset;
+            if (urgent.size() == limit) {
+                response.nextOffset = offset + limit;
+            }
+            response.category = category;
+            // Without a filter every heap entry visited is emitted or
+            // skipped; with one, non-matching entries are visited too
+            if (category != null) {
+                response.operation = "Filtered heap top-K selection - O(m log m), m entries visited";
+            } else if (limit == 1 && offset == 0) {
+                response.operation = "PriorityQueue.peek() - O(1)";
+            } else {
+                response.operation = "Heap top-K selection - O(K log K), K = offset + limit";
+            }
+            response.dsaStructure = "PriorityExpiryQueue (Min-Heap)";
+        } else {
+            response.status = "empty";
+            response.message = "No urgent products";
+        }
+        
+        return response;
+    }
+    
+    public ProductListing simulateGetRecentAdditions(int limit) {
+        logger.debug("[API] Getting recent additions");
+        
+        long start = System.nanoTime();
+        List<Product> products = dsaOperations.getRecentAdditions(limit);
+        
+        ProductListing response = new ProductListing();
+        response.status = products.isEmpty() ? "empty" : "success";
+        response.products = products;
+        response.operation = "Stack snapshot (newest first) - O(k), lock-free";
+        response.dsaStructure = "InventoryStack (Circular Buffer)";
+        
+        journal.record(OperationJournal.Type.RECENT, start, null, products.size());
+        return response;
+    }
+    
+    public ProductListing simulateSortProducts(String sortBy) {
+        return simulateSortProducts(sortBy, 0, 50);
+    }
+    
+    // sortBy is a comma-separated key list, e.g. "expiry,-quantity"
+    public ProductListing simulateSortProducts(String sortBy, int offset, int limit) {
+        logger.debug("[API] Sorting products by: {}", sortBy);
+        
+        long start = System.nanoTime();
+        List<ProductSorter.Order> orders = ProductSorter.parse(sortBy);
+        if (orders.isEmpty()) {
+            throw new IllegalArgumentException("No sort keys given");
+        }
+        int total = dsaOperations.getProductCount();
+        List<Product> page = dsaOperations.sortProducts(orders, offset, limit);
+        journal.record(OperationJournal.Type.SORT, start, sortBy, page.size());
+        
+        ProductListing response = new ProductListing();
+        response.sortBy = orders.toString();
+        response.products = page;
+        response.total = total;
+        response.offset = offset;
+        if (offset + page.size() < total) {
+            response.nextOffset = offset + page.size();
+        }
+        if (dsaOperations.hasSortedIndex(orders)) {
+            response.algorithm = "Skip-list index range scan";
+            response.time = "O(log n + offset + limit)";
+        } else {
+            int prefix = (int) Math.min((long) offset + limit, total);
+            response.algorithm = ProductSorter.describe(orders, total, prefix);
+            response.time = ProductSorter.complexity(orders, total, prefix);
+        }
+        
+        return response;
+    }
+    
+    public ProductListing simulateSearchProducts(String searchType, String query) {
+        return simulateSearchProducts(searchType, query, 20);
+    }
+    
+    // searchType is id, name (exact), prefix, typeahead or text (ranked
+    // full-text over name/category/supplier); matching ignores case,
+    // accents and extra spaces
+    public ProductListing simulateSearchProducts(String searchType, String query, int limit) {
+        logger.debug("[API] Searching products: {} = {}", searchType, query);
+        
+        long start = System.nanoTime();
+        ProductListing response = new ProductListing();
+        switch (searchType.toLowerCase(Locale.ROOT)) {
+            case "id":
+                Product byId = dsaOperations.getProduct(query);
+                response.products = new ArrayList<>();
+                if (byId != null) response.products.add(byId);
+                response.algorithm = "Hash Index Lookup";
+                response.time = "O(1)";
+                break;
+            case "name":
+                response.products = dsaOperations.findByName(query, limit);
+                response.algorithm = "Sorted Name Index (exact)";
+                response.time = "O(log n + results)";
+                break;
+            case "prefix":
+                response.products = dsaOperations.findByNamePrefix(query, limit);
+                response.algorithm = "Sorted Name Index (prefix range)";
+                response.time = "O(log n + results)";
+                break;
+            case "typeahead":
+                response.suggestions = dsaOperations.suggestNames(query, limit);
+                response.algorithm = "Sorted Name Index (distinct prefix keys)";
+                response.time = "O(log n + results)";
+                break;
+            case "text":
+                List<InvertedIndex.Hit> hits = dsaOperations.searchText(query, limit);
+                response.products = new ArrayList<>(hits.size());
+                response.scores = new double[hits.size()];
+                for (int i = 0; i < hits.size(); i++) {
+                    response.products.add(hits.get(i).product);
+                    response.scores[i] = Math.round(hits.get(i).score * 100) / 100.0;
+                }
+                response.algorithm = "Inverted Index (prefix + trigram fuzzy expansion)";
+                response.time = "O(expansions + matching postings)";
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown search type '" + searchType +
+                    "' (use id, name, prefix, typeahead or text)");
+        }
+        journal.record(OperationJournal.Type.SEARCH, start, searchType + ":" + query,
+            response.products != null ? response.products.size() : response.suggestions.size());
+        
+        response.searchType = searchType;
+        response.query = query;
+        
+        return response;
+    }
+    
+    // Products expiring in [from, to] with quantity below belowQuantity, for
+    // replenishment and markdown jobs; category may be null
+    public ProductListing simulateExpiringStock(LocalDate from, LocalDate to, int belowQuantity,
+                                                     String category, int offset, int limit) {
+        logger.debug("[API] Expiring stock {} to {} below {}", from, to, belowQuantity);
+        
+        long start = System.nanoTime();
+        ProductPage page = dsaOperations.findExpiringStock(from.toEpochDay(), to.toEpochDay(),
+            belowQuantity, category, offset, limit);
+        journal.record(OperationJournal.Type.EXPIRING_STOCK, start, from + ".." + to + " below " + belowQuantity, page.total);
+        
+        ProductListing response = pageListing(page, offset);
+        response.from = from.toString();
+        response.to = to.toString();
+        response.belowQuantity = belowQuantity;
+        response.category = category;
+        response.algorithm = "Expiry-day blocks ordered by quantity (min/max block pruning)";
+        response.time = "O(log n + days in window + matches in straddling days)";
+        response.dsaStructure = "ExpiryStockIndex (TreeMap of expiry days, each a quantity-ordered TreeSet)";
+        
+        return response;
+    }
+    
+    // criteria maps category, supplier, status and priority to comma-separated
+    // values: values of one attribute are ORed, attributes are ANDed, and a
+    // value starting with '!' is excluded, e.g. status=!expired
+    public ProductListing simulateFilterProducts(Map<String, String> criteria, int offset, int limit) {
+        logger.debug("[API] Filtering products: {}", criteria);
+        
+        long start = System.nanoTime();
+        AttributeBitmaps.Filter filter = new AttributeBitmaps.Filter();
+        for (AttributeBitmaps.Attribute attribute : AttributeBitmaps.Attribute.values()) {
+            String values = criteria.get(attribute.name().toLowerCase(Locale.ROOT));
+            if (values == null || values.isEmpty()) continue;
+            for (String value : values.split(",")) {
+                if (value.startsWith("!")) {
+                    filter.exclude(attribute, value.substring(1));
+                } else {
+                    filter.require(attribute, value);
+                }
+            }
+        }
+        ProductPage page = dsaOperations.filterProducts(filter, offset, limit);
+        journal.record(OperationJournal.Type.FILTER, start, criteria.toString(), page.total);
+        
+        ProductListing response = pageListing(page, offset);
+        response.algorithm = "Compressed attribute bitmaps (AND / OR / AND-NOT)";
+        response.time = "O(matching bitmap chunks + offset + limit)";
+        response.dsaStructure = "AttributeBitmaps (array/bitset chunks over product ordinals)";
+        
+        return response;
+    }
+    
+    public Map<String, Object> simulateGetDashboardStats() {
+        logger.debug("[API] Getting dashboard stats");
+        
+        long start = System.nanoTime();
+        Map<String, Object> stats = dsaOperations.getDashboardStats();
+        journal.record(OperationJournal.Type.STATS, start, null, -1);
+        
+        stats.put("dsaStructures", new String[]{
+            "ArrayList", "Stack", "Queue", "PriorityQueue", "ExpiryCalendar"
+        });
+        
+        return stats;
+    }
+    
+    // Journal entries after the cursor, oldest first; pass the returned
+    // nextCursor back to fetch only newer ones
+    OperationJournal.Page getOperationLog(long after, int limit) {
+        return journal.read(after, limit);
+    }
+    
+    public void runCompleteSimulation() {
+        logger.info("=== Running Complete DSA Simulation ===");
+        
+        // Add sample products
+        Map<String, Object> milk = new HashMap<>();
+        milk.put("name", "Fresh Milk");
+        milk.put("category", "Dairy");
+        milk.put("quantity", "20");
+        milk.put("price", "2.99");
+        simulateAddProduct(milk);
+        
+        Map<String, Object> eggs = new HashMap<>();
+        eggs.put("name", "Organic Eggs");
+        eggs.put("category", "Dairy");
+        eggs.put("quantity", "12");
+        eggs.put("price", "4.50");
+        simulateAddProduct(eggs);
+        
+        // Demonstrate operations
+        simulateGetUrgentProducts();
+        simulateSortProducts("expiry");
+        simulateSearchProducts("name", "Milk");
+        simulateProcessExpired();
+        
+        logger.info("=== Simulation Complete ===");
+    }
+    
+    private static int parseInt(String field, String value) {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + field + ": " + value);
+        }
+    }
+    
+    private static double parseDouble(String field, String value) {
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + field + ": " + value);
+        }
+    }
+    
+    private static ExpiryQueue.OverflowPolicy overflowPolicy(String value) {
+        try {
+            return ExpiryQueue.OverflowPolicy.valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Unknown intake overflow policy '{}', using block", value);
+            return ExpiryQueue.OverflowPolicy.BLOCK;
+        }
+    }
+    
+    // A page of a larger result, with the paging fields filled in
+    private static ProductListing pageListing(ProductPage page, int offset) {
+        ProductListing listing = new ProductListing();
+        listing.status = page.products.isEmpty() ? "empty" : "success";
+        listing.products = page.products;
+        listing.total = page.total;
+        listing.offset = offset;
+        if (offset + page.products.size() < page.total) {
+            listing.nextOffset = offset + page.products.size();
+        }
+        return listing;
+    }
 }
\ No newline at end of file
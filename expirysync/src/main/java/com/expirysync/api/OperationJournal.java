@@ -0,0 +1,156 @@
+package com.expirysync.api;
+
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// The last `capacity` operations the simulator performed, for
+// /api/operationLog. Every operation gets the next sequence number and
+// overwrites the slot of the one `capacity` places before it, so memory
+// stays fixed however long the server runs. Recording takes one increment
+// and one slot write; entries are immutable, so readers need no lock.
+//
+// Clients page with a cursor: read(after, limit) returns entries with a
+// sequence above `after`, oldest first, and the sequence to pass next
+// time. A reader that fell more than `capacity` entries behind is told how
+// many it missed.
+class OperationJournal {
+    enum Type {
+        ADD, IMPORT, EXPORT, REMOVE, UPDATE_QUANTITY, PROCESS_EXPIRED, URGENT, RECENT,
+        SORT, SEARCH, EXPIRING_STOCK, FILTER, STATS;
+        
+        final String key = name().toLowerCase(Locale.ROOT);
+    }
+    
+    static class Entry {
+        final long seq;
+        final long timestamp;
+        final long durationNanos;
+        final Type type;
+        // What the operation acted on: a product ID, query, sort keys,
+        // filter or file format; may be null
+        final String subject;
+        // Products or rows involved, or -1 when not meaningful
+        final int count;
+        
+        Entry(long seq, long timestamp, long durationNanos, Type type, String subject, int count) {
+            this.seq = seq;
+            this.timestamp = timestamp;
+            this.durationNanos = durationNanos;
+            this.type = type;
+            this.subject = subject;
+            this.count = count;
+        }
+        
+        void writeTo(JsonWriter json) throws IOException {
+            json.beginObject();
+            json.name("seq").value(seq);
+            json.name("timestamp").value(timestamp);
+            json.name("type").value(type.key);
+            json.name("durationMicros").value(durationNanos / 1000);
+            json.name("subject").value(subject);
+            if (count >= 0) {
+                json.name("count").value(count);
+            }
+            json.endObject();
+        }
+    }
+    
+    // One response from read()
+    static class Page {
+        final List<Entry> entries;
+        final long nextCursor;
+        final long oldestSeq;
+        final long latestSeq;
+        final long missed;
+        final boolean hasMore;
+        final int capacity;
+        
+        Page(List<Entry> entries, long nextCursor, long oldestSeq, long latestSeq,
+             long missed, boolean hasMore, int capacity) {
+            this.entries = entries;
+            this.nextCursor = nextCursor;
+            this.oldestSeq = oldestSeq;
+            this.latestSeq = latestSeq;
+            this.missed = missed;
+            this.hasMore = hasMore;
+            this.capacity = capacity;
+        }
+        
+        void writeTo(JsonWriter json) throws IOException {
+            json.beginObject();
+            json.name("status").value("success");
+            json.name("operations").beginArray();
+            for (Entry entry : entries) {
+                entry.writeTo(json);
+            }
+            json.endArray();
+            json.name("count").value(entries.size());
+            json.name("nextCursor").value(nextCursor);
+            json.name("hasMore").value(hasMore);
+            json.name("missed").value(missed);
+            json.name("oldestSeq").value(oldestSeq);
+            json.name("latestSeq").value(latestSeq);
+            json.name("totalOperations").value(latestSeq);
+            json.name("capacity").value(capacity);
+            json.name("timestamp").value(System.currentTimeMillis());
+            json.endObject();
+        }
+    }
+    
+    private final AtomicReferenceArray<Entry> slots;
+    private final int mask;
+    // Sequence numbers start at 1, so cursor 0 means "from the beginning"
+    private final AtomicLong lastSeq = new AtomicLong();
+    
+    OperationJournal(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+    
+    int capacity() {
+        return slots.length();
+    }
+    
+    // startNanos is the System.nanoTime() the operation began at
+    void record(Type type, long startNanos, String subject, int count) {
+        long duration = System.nanoTime() - startNanos;
+        long seq = lastSeq.incrementAndGet();
+        slots.set((int) (seq & mask), new Entry(seq, System.currentTimeMillis(), duration, type, subject, count));
+    }
+    
+    // Up to limit entries with a sequence above after, oldest first. Stops
+    // at an entry whose writer has claimed its sequence but not stored it
+    // yet, so the returned cursor never skips past it.
+    Page read(long after, int limit) {
+        long latest = lastSeq.get();
+        if (after > latest) {
+            // A cursor from before a restart; start again from the oldest
+            after = 0;
+        }
+        long oldest = Math.max(1, latest - slots.length() + 1);
+        long from = Math.max(after + 1, oldest);
+        long missed = Math.max(0, oldest - (after + 1));
+        List<Entry> entries = new ArrayList<>((int) Math.min(limit, Math.max(0, latest - from + 1)));
+        long seq = from;
+        for (; seq <= latest && entries.size() < limit; seq++) {
+            Entry entry = slots.get((int) (seq & mask));
+            if (entry == null || entry.seq < seq) {
+                break;
+            }
+            if (entry.seq > seq) {
+                // Overwritten while we read: this reader lapped
+                missed++;
+                continue;
+            }
+            entries.add(entry);
+        }
+        long nextCursor = seq - 1 > after ? seq - 1 : after;
+        return new Page(entries, nextCursor, oldest, latest, missed, seq <= latest, slots.length());
+    }
+}
\ No newline at end of file
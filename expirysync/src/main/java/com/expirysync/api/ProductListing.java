@@ -0,0 +1,100 @@
+package com.expirysync.api;
+
+import com.expirysync.dsa.Product;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.util.List;
+
+// Response body for the endpoints that return a page of products (urgent,
+// recent, sort, search, filter, expiring stock). The products are written
+// straight from the live Product objects, so a page costs no per-product
+// map, boxed numbers or intermediate JSON string. Fields left null are
+// omitted, as they were when these responses were maps.
+class ProductListing {
+    String status = "success";
+    String message;
+    List<Product> products;
+    // Relevance per product for text search, in the same order
+    double[] scores;
+    List<String> suggestions;
+    Integer total;
+    Integer offset;
+    Integer nextOffset;
+    
+    // Request details echoed back
+    String urgentProduct;
+    Integer priority;
+    String category;
+    String sortBy;
+    String searchType;
+    String query;
+    String from;
+    String to;
+    Integer belowQuantity;
+    
+    // What the DSA layer did
+    String operation;
+    String algorithm;
+    String time;
+    String dsaStructure;
+    
+    void writeTo(JsonWriter json) throws IOException {
+        json.beginObject();
+        json.name("status").value(status);
+        json.name("message").value(message);
+        if (products != null) {
+            json.name("products").beginArray();
+            for (Product product : products) {
+                writeProduct(json, product);
+            }
+            json.endArray();
+            json.name("count").value(products.size());
+        }
+        if (scores != null) {
+            json.name("scores").beginArray();
+            for (double score : scores) {
+                json.value(score);
+            }
+            json.endArray();
+        }
+        if (suggestions != null) {
+            json.name("suggestions").beginArray();
+            for (String suggestion : suggestions) {
+                json.value(suggestion);
+            }
+            json.endArray();
+        }
+        json.name("total").value(total);
+        json.name("offset").value(offset);
+        json.name("nextOffset").value(nextOffset);
+        json.name("urgentProduct").value(urgentProduct);
+        json.name("priority").value(priority);
+        json.name("category").value(category);
+        json.name("sortBy").value(sortBy);
+        json.name("searchType").value(searchType);
+        json.name("query").value(query);
+        json.name("from").value(from);
+        json.name("to").value(to);
+        json.name("belowQuantity").value(belowQuantity);
+        json.name("operation").value(operation);
+        json.name("algorithm").value(algorithm);
+        json.name("time").value(time);
+        json.name("dsaStructure").value(dsaStructure);
+        json.endObject();
+    }
+    
+    // The product fields every listing and export shares
+    static void writeProduct(JsonWriter json, Product p) throws IOException {
+        json.beginObject();
+        json.name("id").value(p.getId());
+        json.name("name").value(p.getName());
+        json.name("category").value(p.getCategory());
+        json.name("quantity").value(p.getQuantity());
+        json.name("price").value(p.getPrice());
+        json.name("supplier").value(p.getSupplier());
+        json.name("status").value(p.getStatus());
+        json.name("expiryDate").value(p.getExpiryDate() != null ? p.getExpiryDate().toString() : null);
+        json.name("priority").value(p.getPriority());
+        json.endObject();
+    }
+}
\ No newline at end of file
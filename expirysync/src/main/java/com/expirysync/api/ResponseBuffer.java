@@ -0,0 +1,140 @@
+package com.expirysync.api;
+
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+
+// A Writer that encodes straight into a growable UTF-8 byte array, so a JSON
+// response is built once, measured exactly and written without an
+// intermediate String or charset encoder. Buffers are shared through a
+// small bounded pool rather than kept per thread, so they are reused the
+// same way under pooled workers and under virtual threads (which never run
+// a second request, and would allocate a fresh buffer for every response).
+// The pool holds at most as many as the default worker count; an acquire
+// with the pool empty makes a new buffer and a release with it full lets
+// the buffer go. A buffer that grew past MAX_RETAINED for a large response
+// is shrunk on release so idle buffers do not pin that memory.
+class ResponseBuffer extends Writer {
+    static final int INITIAL_CAPACITY = 8 * 1024;
+    static final int MAX_RETAINED = 256 * 1024;
+    
+    private static final ArrayBlockingQueue<ResponseBuffer> IDLE =
+        new ArrayBlockingQueue<>(2 * Math.max(1, Runtime.getRuntime().availableProcessors()));
+    
+    private byte[] bytes = new byte[INITIAL_CAPACITY];
+    private int count;
+    
+    // An empty buffer owned by the caller until release()
+    static ResponseBuffer acquire() {
+        ResponseBuffer buffer = IDLE.poll();
+        return buffer != null ? buffer : new ResponseBuffer();
+    }
+    
+    // The buffer must not be used after this
+    void release() {
+        count = 0;
+        if (bytes.length > MAX_RETAINED) {
+            bytes = new byte[INITIAL_CAPACITY];
+        }
+        IDLE.offer(this);
+    }
+    
+    // Escapes like Gson's defaults (HTML-safe, nulls skipped), so output
+    // matches what gson.toJson produced before
+    JsonWriter jsonWriter() {
+        JsonWriter json = new JsonWriter(this);
+        json.setHtmlSafe(true);
+        json.setSerializeNulls(false);
+        return json;
+    }
+    
+    int size() {
+        return count;
+    }
+    
+    void writeTo(OutputStream out) throws IOException {
+        out.write(bytes, 0, count);
+    }
+    
+    @Override
+    public void write(int c) {
+        ensure(3);
+        if (c < 0x80) {
+            bytes[count++] = (byte) c;
+        } else {
+            encode((char) c, (char) 0);
+        }
+    }
+    
+    @Override
+    public void write(char[] chars, int off, int len) {
+        ensure(len * 3);
+        for (int i = off, end = off + len; i < end; i++) {
+            char c = chars[i];
+            if (c < 0x80) {
+                bytes[count++] = (byte) c;
+            } else {
+                i += encode(c, i + 1 < end ? chars[i + 1] : 0);
+            }
+        }
+    }
+    
+    @Override
+    public void write(String s, int off, int len) {
+        ensure(len * 3);
+        for (int i = off, end = off + len; i < end; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                bytes[count++] = (byte) c;
+            } else {
+                i += encode(c, i + 1 < end ? s.charAt(i + 1) : 0);
+            }
+        }
+    }
+    
+    @Override
+    public void flush() {
+    }
+    
+    @Override
+    public void close() {
+    }
+    
+    // Writes one non-ASCII char (with its low surrogate when c is a high
+    // one) and returns how many extra chars it consumed. Capacity for three
+    // bytes per char is already reserved; a surrogate pair needs four bytes
+    // but spans two chars, so it fits too.
+    private int encode(char c, char next) {
+        if (c < 0x800) {
+            bytes[count++] = (byte) (0xC0 | (c >> 6));
+            bytes[count++] = (byte) (0x80 | (c & 0x3F));
+            return 0;
+        }
+        if (Character.isHighSurrogate(c) && Character.isLowSurrogate(next)) {
+            int cp = Character.toCodePoint(c, next);
+            bytes[count++] = (byte) (0xF0 | (cp >> 18));
+            bytes[count++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+            bytes[count++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+            bytes[count++] = (byte) (0x80 | (cp & 0x3F));
+            return 1;
+        }
+        if (Character.isSurrogate(c)) {
+            // Unpaired surrogate: '?' as String.getBytes(UTF_8) does
+            bytes[count++] = (byte) '?';
+            return 0;
+        }
+        bytes[count++] = (byte) (0xE0 | (c >> 12));
+        bytes[count++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+        bytes[count++] = (byte) (0x80 | (c & 0x3F));
+        return 0;
+    }
+    
+    private void ensure(int extra) {
+        if (count + extra > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, count + extra));
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,51 @@
+package com.expirysync.api;
+
+import com.expirysync.log.Log;
+import java.util.HashMap;
+import java.util.Map;
+
+// Startup settings: a --name=value command-line flag wins over the matching
+// EXPIRYSYNC_* environment variable, which wins over the built-in default
+public class ServerConfig {
+    private static final Log logger = Log.get(ServerConfig.class);
+    private final Map<String, String> flags;
+    
+    public ServerConfig(String[] args) {
+        this.flags = parseFlags(args);
+    }
+    
+    public String get(String flag, String env, String defaultValue) {
+        String value = flags.get(flag);
+        if (value == null || value.isEmpty()) {
+            value = System.getenv(env);
+        }
+        return value == null || value.isEmpty() ? defaultValue : value.trim();
+    }
+    
+    // Positive integers only; anything else falls back to the default
+    public int getInt(String flag, String env, int defaultValue) {
+        String value = get(flag, env, null);
+        if (value == null) return defaultValue;
+        try {
+            int parsed = Integer.parseInt(value);
+            if (parsed > 0) return parsed;
+        } catch (NumberFormatException e) {
+            // fall through to the default
+        }
+        logger.warn("Invalid {} / --{} value '{}', using {}", env, flag, value, defaultValue);
+        return defaultValue;
+    }
+    
+    private static Map<String, String> parseFlags(String[] args) {
+        Map<String, String> flags = new HashMap<>();
+        if (args == null) return flags;
+        for (String arg : args) {
+            if (!arg.startsWith("--")) continue;
+            int eq = arg.indexOf('=');
+            if (eq > 2) {
+                flags.put(arg.substring(2, eq), arg.substring(eq + 1));
+            }
+        }
+        return flags;
+    }
+}
\ No newline at end of file
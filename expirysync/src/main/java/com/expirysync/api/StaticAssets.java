@@ -0,0 +1,313 @@
+package com.expirysync.api;
+
+import com.expirysync.log.Log;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystemAlreadyExistsException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+// The webapp/ files, read once at startup and served from memory. Each
+// asset has:
+// - its exact bytes
+// - a gzip variant (text types only, kept when it saves space)
+// - a brotli variant when a prebuilt <file>.br sits next to the file,
+//   since the JDK has no brotli encoder
+// - a strong ETag from a content hash
+// The asset map is immutable and swapped whole on reload, so a request
+// never sees a half-loaded set. In watch mode (development) the source
+// directory is watched and reloaded whenever a file in it changes.
+class StaticAssets {
+    private static final Log logger = Log.get(StaticAssets.class);
+    private static final int MIN_GZIP_SAVING = 64;
+    
+    static class Asset {
+        final String contentType;
+        final String etag;
+        final byte[] identity;
+        final byte[] gzip;
+        final byte[] brotli;
+        
+        Asset(String contentType, String etag, byte[] identity, byte[] gzip, byte[] brotli) {
+            this.contentType = contentType;
+            this.etag = etag;
+            this.identity = identity;
+            this.gzip = gzip;
+            this.brotli = brotli;
+        }
+        
+        // Each encoding is its own representation, so it gets its own tag
+        String etagFor(String encoding) {
+            return encoding == null ? "\"" + etag + "\"" : "\"" + etag + "-" + encoding + "\"";
+        }
+        
+        byte[] bodyFor(String encoding) {
+            if ("br".equals(encoding)) return brotli;
+            if ("gzip".equals(encoding)) return gzip;
+            return identity;
+        }
+        
+        // Whether an If-None-Match header names any representation of this
+        // content (weak comparison, as RFC 9110 specifies for this header)
+        boolean matches(String ifNoneMatch) {
+            if (ifNoneMatch == null) return false;
+            for (String tag : ifNoneMatch.split(",")) {
+                tag = tag.trim();
+                if (tag.equals("*")) return true;
+                if (tag.startsWith("W/")) tag = tag.substring(2);
+                if (tag.equals(etagFor(null)) || tag.equals(etagFor("gzip")) || tag.equals(etagFor("br"))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        
+        // Best encoding the client accepts that this asset has: br, then
+        // gzip, else null for the identity bytes
+        String negotiate(String acceptEncoding) {
+            if (acceptEncoding == null) return null;
+            if (brotli != null && accepts(acceptEncoding, "br")) return "br";
+            if (gzip != null && accepts(acceptEncoding, "gzip")) return "gzip";
+            return null;
+        }
+    }
+    
+    private final Path sourceDir;
+    private final String source;
+    private volatile Map<String, Asset> assets = Collections.emptyMap();
+    
+    private StaticAssets(Path sourceDir, String source) {
+        this.sourceDir = sourceDir;
+        this.source = source;
+    }
+    
+    // Loads from the webapp/ classpath resource (directory or jar), falling
+    // back to the source and build directories. With watch set the source
+    // directory is preferred, so edits show up without a rebuild.
+    static StaticAssets load(boolean watch) {
+        Path sources = Paths.get("src/main/resources/webapp");
+        Path built = Paths.get("target/classes/webapp");
+        if (watch && Files.isDirectory(sources)) {
+            return fromDirectory(sources, true);
+        }
+        
+        URL resource = StaticAssets.class.getClassLoader().getResource("webapp");
+        try {
+            if (resource != null && "file".equals(resource.getProtocol())) {
+                return fromDirectory(Paths.get(resource.toURI()), watch);
+            }
+            if (resource != null && "jar".equals(resource.getProtocol())) {
+                if (watch) {
+                    logger.warn("Static assets are inside a jar; file watching is off");
+                }
+                return fromJar(resource.toURI());
+            }
+        } catch (IOException | URISyntaxException e) {
+            logger.warn("Cannot read static assets from {}: {}", resource, e.getMessage());
+        }
+        if (Files.isDirectory(sources)) return fromDirectory(sources, watch);
+        if (Files.isDirectory(built)) return fromDirectory(built, watch);
+        logger.warn("No webapp/ directory found; static files will 404");
+        return new StaticAssets(null, "nowhere");
+    }
+    
+    Asset get(String path) {
+        return assets.get(path);
+    }
+    
+    String describe() {
+        long identity = 0;
+        long gzip = 0;
+        for (Asset asset : assets.values()) {
+            identity += asset.identity.length;
+            gzip += asset.gzip != null ? asset.gzip.length : asset.identity.length;
+        }
+        return assets.size() + " files, " + identity / 1024 + " KB (" + gzip / 1024 + " KB gzipped) from " + source;
+    }
+    
+    private static StaticAssets fromDirectory(Path dir, boolean watch) {
+        StaticAssets cache = new StaticAssets(dir, dir.toAbsolutePath().normalize().toString());
+        try {
+            cache.assets = readAll(dir);
+        } catch (IOException e) {
+            logger.warn("Cannot read static assets from {}: {}", dir, e.getMessage());
+        }
+        if (watch) {
+            cache.startWatcher();
+        }
+        return cache;
+    }
+    
+    private static StaticAssets fromJar(URI uri) throws IOException {
+        StaticAssets cache = new StaticAssets(null, uri.toString());
+        FileSystem jar;
+        boolean opened = false;
+        try {
+            jar = FileSystems.newFileSystem(uri, Collections.emptyMap());
+            opened = true;
+        } catch (FileSystemAlreadyExistsException e) {
+            jar = FileSystems.getFileSystem(uri);
+        }
+        try {
+            cache.assets = readAll(jar.provider().getPath(uri));
+        } finally {
+            if (opened) jar.close();
+        }
+        return cache;
+    }
+    
+    private static Map<String, Asset> readAll(Path root) throws IOException {
+        Map<String, Asset> loaded = new HashMap<>();
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(root)) {
+            files = walk.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            if (name.endsWith(".br")) continue;
+            String key = "/" + root.relativize(file).toString().replace('\\', '/');
+            byte[] identity = Files.readAllBytes(file);
+            String contentType = contentTypeFor(name);
+            Path brotliFile = file.resolveSibling(name + ".br");
+            byte[] brotli = Files.isRegularFile(brotliFile) ? Files.readAllBytes(brotliFile) : null;
+            loaded.put(key, new Asset(contentType, hash(identity), identity, gzipIfSmaller(contentType, identity), brotli));
+        }
+        return Collections.unmodifiableMap(loaded);
+    }
+    
+    // Watches every directory under the source and reloads the whole set
+    // after a change, waiting briefly so an editor's burst of writes
+    // triggers one reload
+    private void startWatcher() {
+        WatchService watcher;
+        try {
+            watcher = sourceDir.getFileSystem().newWatchService();
+            registerAll(watcher);
+        } catch (IOException e) {
+            logger.warn("Cannot watch {}: {}", sourceDir, e.getMessage());
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                while (true) {
+                    watcher.take().reset();
+                    Thread.sleep(100);
+                    while (true) {
+                        WatchKey more = watcher.poll(100, TimeUnit.MILLISECONDS);
+                        if (more == null) break;
+                        more.pollEvents();
+                        more.reset();
+                    }
+                    try {
+                        registerAll(watcher);
+                        assets = readAll(sourceDir);
+                        logger.info("Reloaded static assets: {}", describe());
+                    } catch (IOException e) {
+                        logger.warn("Static asset reload failed: {}", e.getMessage());
+                    }
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                // shutting down
+            }
+        }, "static-asset-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+    
+    // Registering a directory twice is harmless, so this also picks up
+    // directories created since the last call
+    private void registerAll(WatchService watcher) throws IOException {
+        List<Path> dirs;
+        try (Stream<Path> walk = Files.walk(sourceDir)) {
+            dirs = walk.filter(Files::isDirectory).collect(Collectors.toList());
+        }
+        for (Path dir : dirs) {
+            dir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        }
+    }
+    
+    static String contentTypeFor(String path) {
+        if (path.endsWith(".css")) return "text/css";
+        if (path.endsWith(".js")) return "application/javascript";
+        if (path.endsWith(".json")) return "application/json";
+        if (path.endsWith(".png")) return "image/png";
+        if (path.endsWith(".jpg") || path.endsWith(".jpeg")) return "image/jpeg";
+        if (path.endsWith(".gif")) return "image/gif";
+        if (path.endsWith(".ico")) return "image/x-icon";
+        return "text/html";
+    }
+    
+    // Whether an Accept-Encoding header allows the coding: listed (or
+    // covered by *) without q=0
+    static boolean accepts(String acceptEncoding, String coding) {
+        boolean wildcard = false;
+        for (String part : acceptEncoding.split(",")) {
+            String[] pieces = part.trim().split(";");
+            String name = pieces[0].trim();
+            boolean refused = false;
+            for (int i = 1; i < pieces.length; i++) {
+                String param = pieces[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        refused = Double.parseDouble(param.substring(2)) <= 0;
+                    } catch (NumberFormatException e) {
+                        refused = true;
+                    }
+                }
+            }
+            if (name.equalsIgnoreCase(coding)) return !refused;
+            if (name.equals("*")) wildcard = !refused;
+        }
+        return wildcard;
+    }
+    
+    // Images are already compressed; text is gzipped at the highest level
+    // once, here, so requests never pay for it
+    private static byte[] gzipIfSmaller(String contentType, byte[] identity) throws IOException {
+        if (contentType.startsWith("image/") && !contentType.equals("image/x-icon")) return null;
+        ByteArrayOutputStream out = new ByteArrayOutputStream(identity.length / 3 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            gzip.write(identity);
+        }
+        return out.size() + MIN_GZIP_SAVING < identity.length ? out.toByteArray() : null;
+    }
+    
+    private static String hash(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            StringBuilder hex = new StringBuilder();
+            for (int i = 0; i < 16; i++) {
+                hex.append(String.format("%02x", digest[i]));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is always available", e);
+        }
+    }
+}
\ No newline at end of file
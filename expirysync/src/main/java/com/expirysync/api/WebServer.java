@@ -1,363 +1,664 @@
-package com.expirysync.api;
-
-import com.google.gson.Gson;
-import com.google.gson.JsonObject;
-import com.sun.net.httpserver.HttpExchange;
-import com.sun.net.httpserver.HttpHandler;
-
-import java.io.*;
-import java.net.InetSocketAddress;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.util.HashMap;
-import java.util.Map;
-public class WebServer {
-    private static final Gson gson = new Gson();
-    private static DSASimulator dsaSimulator;
-    
-    private static int getPort() {
-        String envPort = System.getenv("PORT");
-        if (envPort != null && !envPort.isEmpty()) {
-            try {
-                return Integer.parseInt(envPort);
-            } catch (NumberFormatException e) {
-                System.err.println("Invalid PORT environment variable, using default 8080");
-            }
-        }
-        return 8080;
-    }
-    
-    public static void startServer() throws IOException {
-        int port = getPort();
-        dsaSimulator = new DSASimulator();
-        
-        com.sun.net.httpserver.HttpServer server = com.sun.net.httpserver.HttpServer.create(
-            new InetSocketAddress(port), 0);
-        
-        // Serve static files
-        server.createContext("/", new StaticFileHandler());
-        
-        // API endpoints
-        server.createContext("/api/addProduct", new AddProductHandler());
-        server.createContext("/api/removeProduct", new RemoveProductHandler());
-        server.createContext("/api/processExpired", new ProcessExpiredHandler());
-        server.createContext("/api/getUrgent", new GetUrgentHandler());
-        server.createContext("/api/sortProducts", new SortProductsHandler());
-        server.createContext("/api/searchProducts", new SearchProductsHandler());
-        server.createContext("/api/dashboardStats", new DashboardStatsHandler());
-        server.createContext("/api/operationLog", new OperationLogHandler());
-        server.createContext("/api/simulate", new SimulationHandler());
-        
-        // Health check endpoint
-        server.createContext("/api/health", new HealthHandler());
-        
-        server.setExecutor(null);
-        server.start();
-        
-        System.out.println("\n" + "=".repeat(50));
-        System.out.println("=== ExpirySync Server Started Successfully! ===");
-        System.out.println("=".repeat(50));
-        System.out.println("Frontend URL: http://localhost:" + PORT);
-        System.out.println("API Base URL: http://localhost:" + PORT + "/api");
-        System.out.println("\nAvailable Pages:");
-        System.out.println("  • http://localhost:" + PORT + "/index.html");
-        System.out.println("  • http://localhost:" + PORT + "/dsa-demo.html");
-        System.out.println("  • http://localhost:" + PORT + "/dashboard.html");
-        System.out.println("\nServer is running...");
-        System.out.println("=".repeat(50) + "\n");
-    }
-    
-    // ==================== Static File Handler ====================
-    static class StaticFileHandler implements HttpHandler {
-        @Override
-        public void handle(HttpExchange exchange) throws IOException {
-            String path = exchange.getRequestURI().getPath();
-            
-            if (path.equals("/")) {
-                path = "/index.html";
-            }
-            
-            try {
-                // Try to load from classpath
-                String resourcePath = "webapp" + path;
-                InputStream is = getClass().getClassLoader().getResourceAsStream(resourcePath);
-                
-                if (is == null) {
-                    // Try from file system (development)
-                    Path filePath = Paths.get("src/main/resources/" + resourcePath);
-                    if (Files.exists(filePath)) {
-                        is = Files.newInputStream(filePath);
-                    } else {
-                        // Try from compiled resources
-                        filePath = Paths.get("target/classes/" + resourcePath);
-                        if (Files.exists(filePath)) {
-                            is = Files.newInputStream(filePath);
-                        } else {
-                            send404(exchange, "File not found: " + path);
-                            return;
-                        }
-                    }
-                }
-                
-                // Set content type
-                String contentType = getContentType(path);
-                exchange.getResponseHeaders().set("Content-Type", contentType);
-                exchange.getResponseHeaders().set("Cache-Control", "no-cache");
-                exchange.sendResponseHeaders(200, 0);
-                
-                // Send file
-                OutputStream os = exchange.getResponseBody();
-                byte[] buffer = new byte[4096];
-                int bytesRead;
-                while ((bytesRead = is.read(buffer)) != -1) {
-                    os.write(buffer, 0, bytesRead);
-                }
-                
-                os.close();
-                is.close();
-                
-            } catch (Exception e) {
-                System.err.println("Error serving " + path + ": " + e.getMessage());
-                send404(exchange, "Error: " + e.getMessage());
-            }
-        }
-        
-        private String getContentType(String path) {
-            if (path.endsWith(".css")) return "text/css";
-            if (path.endsWith(".js")) return "application/javascript";
-            if (path.endsWith(".json")) return "application/json";
-            if (path.endsWith(".png")) return "image/png";
-            if (path.endsWith(".jpg") || path.endsWith(".jpeg")) return "image/jpeg";
-            if (path.endsWith(".gif")) return "image/gif";
-            if (path.endsWith(".ico")) return "image/x-icon";
-            return "text/html";
-        }
-        
-        private void send404(HttpExchange exchange, String message) throws IOException {
-            String response = "<html><body><h1>404 Not Found</h1><p>" + message + "</p></body></html>";
-            exchange.getResponseHeaders().set("Content-Type", "text/html");
-            exchange.sendResponseHeaders(404, response.length());
-            OutputStream os = exchange.getResponseBody();
-            os.write(response.getBytes());
-            os.close();
-        }
-    }
-    
-    // ==================== API Handlers ====================
-    
-    static class HealthHandler implements HttpHandler {
-        @Override
-        public void handle(HttpExchange exchange) throws IOException {
-            Map<String, Object> response = new HashMap<>();
-            response.put("status", "healthy");
-            response.put("service", "ExpirySync DSA Backend");
-            response.put("timestamp", System.currentTimeMillis());
-            sendJsonResponse(exchange, response);
-        }
-    }
-    
-    static class AddProductHandler implements HttpHandler {
-        @Override
-        public void handle(HttpExchange exchange) throws IOException {
-            if (!"POST".equals(exchange.getRequestMethod())) {
-                sendError(exchange, "Method not allowed", 405);
-                return;
-            }
-            
-            try {
-                String body = readRequestBody(exchange);
-                System.out.println("Add Product Request: " + body);
-                
-                @SuppressWarnings("unchecked")
-                Map<String, Object> productData = gson.fromJson(body, Map.class);
-                Map<String, Object> response = dsaSimulator.simulateAddProduct(productData);
-                sendJsonResponse(exchange, response);
-                
-            } catch (Exception e) {
-                sendError(exchange, "Error: " + e.getMessage(), 500);
-            }
-        }
-    }
-    
-    static class RemoveProductHandler implements HttpHandler {
-        @Override
-        public void handle(HttpExchange exchange) throws IOException {
-            if (!"DELETE".equals(exchange.getRequestMethod())) {
-                sendError(exchange, "Method not allowed", 405);
-                return;
-            }
-            
-            String query = exchange.getRequestURI().getQuery();
-            if (query == null || !query.startsWith("id=")) {
-                sendError(exchange, "Missing product ID", 400);
-                return;
-            }
-            
-            String productId = query.substring(3);
-            System.out.println("Remove Product Request for ID: " + productId);
-            
-            Map<String, Object> response = dsaSimulator.simulateRemoveProduct(productId);
-            sendJsonResponse(exchange, response);
-        }
-    }
-    
-    static class ProcessExpiredHandler implements HttpHandler {
-        @Override
-        public void handle(HttpExchange exchange) throws IOException {
-            if (!"POST".equals(exchange.getRequestMethod())) {
-                sendError(exchange, "Method not allowed", 405);
-                return;
-            }
-            
-            System.out.println("Process Expired Request");
-            Map<String, Object> response = dsaSimulator.simulateProcessExpired();
-            sendJsonResponse(exchange, response);
-        }
-    }
-    
-    static class GetUrgentHandler implements HttpHandler {
-        @Override
-        public void handle(HttpExchange exchange) throws IOException {
-            if (!"GET".equals(exchange.getRequestMethod())) {
-                sendError(exchange, "Method not allowed", 405);
-                return;
-            }
-            
-            System.out.println("Get Urgent Products Request");
-            Map<String, Object> response = dsaSimulator.simulateGetUrgentProducts();
-            sendJsonResponse(exchange, response);
-        }
-    }
-    
-    static class SortProductsHandler implements HttpHandler {
-        @Override
-        public void handle(HttpExchange exchange) throws IOException {
-            if (!"POST".equals(exchange.getRequestMethod())) {
-                sendError(exchange, "Method not allowed", 405);
-                return;
-            }
-            
-            String query = exchange.getRequestURI().getQuery();
-            if (query == null || !query.startsWith("by=")) {
-                sendError(exchange, "Missing sort criteria", 400);
-                return;
-            }
-            
-            String sortBy = query.substring(3);
-            System.out.println("Sort Products Request by: " + sortBy);
-            
-            Map<String, Object> response = dsaSimulator.simulateSortProducts(sortBy);
-            sendJsonResponse(exchange, response);
-        }
-    }
-    
-    static class SearchProductsHandler implements HttpHandler {
-        @Override
-        public void handle(HttpExchange exchange) throws IOException {
-            if (!"POST".equals(exchange.getRequestMethod())) {
-                sendError(exchange, "Method not allowed", 405);
-                return;
-            }
-            
-            try {
-                String body = readRequestBody(exchange);
-                System.out.println("Search Products Request: " + body);
-                
-                JsonObject json = gson.fromJson(body, JsonObject.class);
-                String searchType = json.get("searchType").getAsString();
-                String query = json.get("query").getAsString();
-                
-                Map<String, Object> response = dsaSimulator.simulateSearchProducts(searchType, query);
-                sendJsonResponse(exchange, response);
-                
-            } catch (Exception e) {
-                sendError(exchange, "Invalid request: " + e.getMessage(), 400);
-            }
-        }
-    }
-    
-    static class DashboardStatsHandler implements HttpHandler {
-        @Override
-        public void handle(HttpExchange exchange) throws IOException {
-            if (!"GET".equals(exchange.getRequestMethod())) {
-                sendError(exchange, "Method not allowed", 405);
-                return;
-            }
-            
-            System.out.println("Dashboard Stats Request");
-            Map<String, Object> response = dsaSimulator.simulateGetDashboardStats();
-            sendJsonResponse(exchange, response);
-        }
-    }
-    
-    static class OperationLogHandler implements HttpHandler {
-        @Override
-        public void handle(HttpExchange exchange) throws IOException {
-            if (!"GET".equals(exchange.getRequestMethod())) {
-                sendError(exchange, "Method not allowed", 405);
-                return;
-            }
-            
-            System.out.println("Operation Log Request");
-            Map<String, Object> response = dsaSimulator.getOperationLog();
-            sendJsonResponse(exchange, response);
-        }
-    }
-    
-    static class SimulationHandler implements HttpHandler {
-        @Override
-        public void handle(HttpExchange exchange) throws IOException {
-            if (!"GET".equals(exchange.getRequestMethod())) {
-                sendError(exchange, "Method not allowed", 405);
-                return;
-            }
-            
-            System.out.println("Run Simulation Request");
-            dsaSimulator.runCompleteSimulation();
-            
-            Map<String, Object> response = new HashMap<>();
-            response.put("status", "success");
-            response.put("message", "Simulation completed");
-            sendJsonResponse(exchange, response);
-        }
-    }
-    
-    // ==================== Utility Methods ====================
-    
-    private static String readRequestBody(HttpExchange exchange) throws IOException {
-        InputStreamReader isr = new InputStreamReader(exchange.getRequestBody(), "utf-8");
-        BufferedReader br = new BufferedReader(isr);
-        StringBuilder body = new StringBuilder();
-        String line;
-        while ((line = br.readLine()) != null) {
-            body.append(line);
-        }
-        return body.toString();
-    }
-    
-    private static void sendJsonResponse(HttpExchange exchange, Map<String, Object> response) throws IOException {
-        String json = gson.toJson(response);
-        exchange.getResponseHeaders().set("Content-Type", "application/json");
-        exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
-        exchange.sendResponseHeaders(200, json.getBytes().length);
-        
-        OutputStream os = exchange.getResponseBody();
-        os.write(json.getBytes());
-        os.close();
-    }
-    
-    private static void sendError(HttpExchange exchange, String message, int code) throws IOException {
-        Map<String, Object> error = new HashMap<>();
-        error.put("error", message);
-        error.put("code", code);
-        
-        String json = gson.toJson(error);
-        exchange.getResponseHeaders().set("Content-Type", "application/json");
-        exchange.sendResponseHeaders(code, json.getBytes().length);
-        
-        OutputStream os = exchange.getResponseBody();
-        os.write(json.getBytes());
-        os.close();
-    }
+package com.expirysync.api;
+
+import com.expirysync.dsa.ExpiryQueue;
+import com.expirysync.log.Log;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+public class WebServer {
+    private static final Log logger = Log.get(WebServer.class);
+    private static final Gson gson = new Gson();
+    private static DSASimulator dsaSimulator;
+    private static WorkerPool workerPool;
+    private static StaticAssets staticAssets;
+    private static ResponseCompression compression;
+    
+    private static int getPort() {
+        String envPort = System.getenv("PORT");
+        if (envPort != null && !envPort.isEmpty()) {
+            try {
+                return Integer.parseInt(envPort);
+            } catch (NumberFormatException e) {
+                logger.warn("Invalid PORT environment variable, using default 8080");
+            }
+        }
+        return 8080;
+    }
+    
+    public static void startServer() throws IOException {
+        startServer(new String[0]);
+    }
+    
+    public static void startServer(String[] args) throws IOException {
+        int port = getPort();
+        ServerConfig config = new ServerConfig(args);
+        Log.configure(config.get("log-level", "EXPIRYSYNC_LOG_LEVEL", "info"),
+                      config.get("log-levels", "EXPIRYSYNC_LOG_LEVELS", null),
+                      config.getInt("log-rate", "EXPIRYSYNC_LOG_RATE", 1000));
+        dsaSimulator = new DSASimulator(config);
+        workerPool = WorkerPool.fromConfig(config);
+        compression = ResponseCompression.fromConfig(config);
+        staticAssets = StaticAssets.load(Boolean.parseBoolean(
+            config.get("static-watch", "EXPIRYSYNC_STATIC_WATCH", "false")));
+        
+        com.sun.net.httpserver.HttpServer server = com.sun.net.httpserver.HttpServer.create(
+            new InetSocketAddress(port), 0);
+            
+        // Serve static files
+        server.createContext("/", new StaticFileHandler());
+        
+        // API endpoints
+        server.createContext("/api/addProduct", new AddProductHandler());
+        server.createContext("/api/importProducts", new ImportProductsHandler());
+        server.createContext("/api/exportProducts", new ExportProductsHandler());
+        server.createContext("/api/removeProduct", new RemoveProductHandler());
+        server.createContext("/api/updateQuantity", new UpdateQuantityHandler());
+        server.createContext("/api/processExpired", new ProcessExpiredHandler());
+        server.createContext("/api/getUrgent", new GetUrgentHandler());
+        server.createContext("/api/recentAdditions", new RecentAdditionsHandler());
+        server.createContext("/api/sortProducts", new SortProductsHandler());
+        server.createContext("/api/searchProducts", new SearchProductsHandler());
+        server.createContext("/api/filterProducts", new FilterProductsHandler());
+        server.createContext("/api/expiringStock", new ExpiringStockHandler());
+        server.createContext("/api/dashboardStats", new DashboardStatsHandler());
+        server.createContext("/api/operationLog", new OperationLogHandler());
+        server.createContext("/api/simulate", new SimulationHandler());
+        
+        // Health check endpoint
+        server.createContext("/api/health", new HealthHandler());
+        
+        server.setExecutor(workerPool.executor());
+        server.start();
+        
+        // One message, so the banner is not interleaved with other lines
+        String rule = "=".repeat(50);
+        logger.info("\n" + rule + "\n"
+            + "=== ExpirySync Server Started Successfully! ===\n"
+            + rule + "\n"
+            + "Frontend URL: http://localhost:" + port + "\n"
+            + "API Base URL: http://localhost:" + port + "/api\n"
+            + "Executor: " + workerPool.getStats() + "\n"
+            + "Static assets: " + staticAssets.describe() + "\n"
+            + "API compression: " + compression.describe() + "\n"
+            + "\nAvailable Pages:\n"
+            + "  • http://localhost:" + port + "/index.html\n"
+            + "  • http://localhost:" + port + "/dsa-demo.html\n"
+            + "  • http://localhost:" + port + "/dashboard.html\n"
+            + "\nServer is running...\n"
+            + rule + "\n");
+    }
+    
+    // ==================== Static File Handler ====================
+    // Serves webapp/ from the in-memory StaticAssets cache. Responses carry
+    // an exact Content-Length and a strong ETag; Cache-Control: no-cache
+    // still makes browsers revalidate, but a matching If-None-Match gets a
+    // bodiless 304. Compressed variants go to clients that accept them.
+    static class StaticFileHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            String method = exchange.getRequestMethod();
+            boolean head = "HEAD".equals(method);
+            if (!head && !"GET".equals(method)) {
+                exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+                exchange.sendResponseHeaders(405, -1);
+                exchange.close();
+                return;
+            }
+            
+            String path = exchange.getRequestURI().getPath();
+            if (path.equals("/")) {
+                path = "/index.html";
+            }
+            StaticAssets.Asset asset = staticAssets.get(path);
+            if (asset == null) {
+                send404(exchange, "File not found: " + path);
+                return;
+            }
+            
+            String encoding = asset.negotiate(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+            exchange.getResponseHeaders().set("Content-Type", asset.contentType);
+            exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+            exchange.getResponseHeaders().set("ETag", asset.etagFor(encoding));
+            if (asset.gzip != null || asset.brotli != null) {
+                exchange.getResponseHeaders().set("Vary", "Accept-Encoding");
+            }
+            if (asset.matches(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+            
+            byte[] body = asset.bodyFor(encoding);
+            if (encoding != null) {
+                exchange.getResponseHeaders().set("Content-Encoding", encoding);
+            }
+            if (head) {
+                exchange.getResponseHeaders().set("Content-Length", Integer.toString(body.length));
+                exchange.sendResponseHeaders(200, -1);
+                exchange.close();
+                return;
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        }
+        
+        private void send404(HttpExchange exchange, String message) throws IOException {
+            String response = "<html><body><h1>404 Not Found</h1><p>" + message + "</p></body></html>";
+            exchange.getResponseHeaders().set("Content-Type", "text/html");
+            exchange.sendResponseHeaders(404, response.length());
+            OutputStream os = exchange.getResponseBody();
+            os.write(response.getBytes());
+            os.close();
+        }
+    }
+    
+    // ==================== API Handlers ====================
+    
+    static class HealthHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            Map<String, Object> response = new HashMap<>();
+            response.put("status", "healthy");
+            response.put("service", "ExpirySync DSA Backend");
+            response.put("timestamp", System.currentTimeMillis());
+            response.put("executor", workerPool.getStats());
+            response.put("compression", compression.getStats());
+            response.put("droppedLogLines", Log.getDroppedCount());
+            sendJsonResponse(exchange, response);
+        }
+    }
+    
+    static class AddProductHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                sendError(exchange, "Method not allowed", 405);
+                return;
+            }
+            
+            try {
+                String body = readRequestBody(exchange);
+                logger.debug("Add Product Request: {}", body);
+                
+                @SuppressWarnings("unchecked")
+                Map<String, Object> productData = gson.fromJson(body, Map.class);
+                Map<String, Object> response = dsaSimulator.simulateAddProduct(productData);
+                sendJsonResponse(exchange, response);
+                
+            } catch (ExpiryQueue.QueueFullException e) {
+                // Intake is bounded with the REJECT policy; the client should retry
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                sendError(exchange, e.getMessage(), 503);
+            } catch (IllegalArgumentException e) {
+                sendError(exchange, "Invalid product: " + e.getMessage(), 400);
+            } catch (Exception e) {
+                sendError(exchange, "Error: " + e.getMessage(), 500);
+            }
+        }
+    }
+    
+    // Bulk ingest: the body is parsed as it streams in and applied in
+    // batches, so a feed of any size never sits in memory whole
+    static class ImportProductsHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                sendError(exchange, "Method not allowed", 405);
+                return;
+            }
+            
+            Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+            int batchSize = parseIntParam(params, "batch", 1000, 1, 50_000);
+            
+            try {
+                BulkImporter.Format format = BulkImporter.formatFor(params.get("format"),
+                    exchange.getRequestHeaders().getFirst("Content-Type"));
+                logger.debug("Import Products Request: {}", format);
+                Map<String, Object> response = dsaSimulator.simulateImportProducts(
+                    new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8), format, batchSize);
+                sendJsonResponse(exchange, response);
+            } catch (IllegalArgumentException e) {
+                sendError(exchange, e.getMessage(), 400);
+            } catch (UncheckedIOException e) {
+                sendError(exchange, "Error: " + e.getMessage(), 500);
+            }
+        }
+    }
+    
+    // Streams the catalog with chunked encoding (gzipped on the fly when the
+    // client accepts it): rows go straight from the store, a page at a
+    // time, to the response body
+    static class ExportProductsHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                sendError(exchange, "Method not allowed", 405);
+                return;
+            }
+            
+            Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+            int limit = parseIntParam(params, "limit", Integer.MAX_VALUE, 0, Integer.MAX_VALUE);
+            CatalogExporter.Format format;
+            try {
+                format = CatalogExporter.Format.parse(params.get("format"));
+            } catch (IllegalArgumentException e) {
+                sendError(exchange, e.getMessage(), 400);
+                return;
+            }
+            
+            logger.debug("Export Products Request: {}", format);
+            exchange.getResponseHeaders().set("Content-Type", format.contentType);
+            exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
+            if (format != CatalogExporter.Format.JSON) {
+                exchange.getResponseHeaders().set("Content-Disposition",
+                    "attachment; filename=\"inventory." + format.name().toLowerCase(Locale.ROOT) + "\"");
+            }
+            try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                    compression.begin(exchange, 200, -1), StandardCharsets.UTF_8), 1 << 16)) {
+                dsaSimulator.simulateExportProducts(out, format, limit);
+            }
+        }
+    }
+    
+    static class RemoveProductHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (!"DELETE".equals(exchange.getRequestMethod())) {
+                sendError(exchange, "Method not allowed", 405);
+                return;
+            }
+            
+            String query = exchange.getRequestURI().getQuery();
+            if (query == null || !query.startsWith("id=")) {
+                sendError(exchange, "Missing product ID", 400);
+                return;
+            }
+            
+            String productId = query.substring(3);
+            logger.debug("Remove Product Request for ID: {}", productId);
+            
+            Map<String, Object> response = dsaSimulator.simulateRemoveProduct(productId);
+            sendJsonResponse(exchange, response);
+        }
+    }
+    
+    static class UpdateQuantityHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                sendError(exchange, "Method not allowed", 405);
+                return;
+            }
+            
+            Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+            String productId = params.get("id");
+            String quantity = params.get("quantity");
+            if (productId == null || quantity == null) {
+                sendError(exchange, "Missing product ID or quantity", 400);
+                return;
+            }
+            
+            try {
+                logger.debug("Update Quantity Request for ID: {}", productId);
+                Map<String, Object> response = dsaSimulator.simulateUpdateQuantity(productId, Integer.parseInt(quantity));
+                sendJsonResponse(exchange, response);
+            } catch (NumberFormatException e) {
+                sendError(exchange, "Invalid quantity: " + quantity, 400);
+            }
+        }
+    }
+    
+    static class ProcessExpiredHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                sendError(exchange, "Method not allowed", 405);
+                return;
+            }
+            
+            Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+            int limit = parseIntParam(params, "limit", 1, 1, 10_000);
+            LocalDate upTo = null;
+            if (params.containsKey("upTo")) {
+                try {
+                    upTo = LocalDate.parse(params.get("upTo"));
+                } catch (DateTimeParseException e) {
+                    sendError(exchange, "Invalid upTo date: " + params.get("upTo"), 400);
+                    return;
+                }
+            }
+            
+            logger.debug("Process Expired Request");
+            Map<String, Object> response = dsaSimulator.simulateProcessExpired(upTo, limit);
+            sendJsonResponse(exchange, response);
+        }
+    }
+    
+    static class GetUrgentHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                sendError(exchange, "Method not allowed", 405);
+                return;
+            }
+            
+            Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+            int k = parseIntParam(params, "k", 1, 1, 1000);
+            int offset = parseIntParam(params, "offset", 0, 0, 1_000_000);
+            String category = params.get("category");
+            if (category != null && category.isEmpty()) {
+                category = null;
+            }
+            
+            logger.debug("Get Urgent Products Request");
+            ProductListing response = dsaSimulator.simulateGetUrgentProducts(offset, k, category);
+            sendJsonResponse(exchange, response);
+        }
+    }
+    
+    static class RecentAdditionsHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                sendError(exchange, "Method not allowed", 405);
+                return;
+            }
+            
+            Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+            int limit = parseIntParam(params, "limit", 5, 1, 10_000);
+            
+            logger.debug("Recent Additions Request");
+            ProductListing response = dsaSimulator.simulateGetRecentAdditions(limit);
+            sendJsonResponse(exchange, response);
+        }
+    }
+    
+    static class SortProductsHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            String method = exchange.getRequestMethod();
+            if (!"POST".equals(method) && !"GET".equals(method)) {
+                sendError(exchange, "Method not allowed", 405);
+                return;
+            }
+            
+            Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+            String sortBy = params.get("by");
+            if (sortBy == null || sortBy.isEmpty()) {
+                sendError(exchange, "Missing sort criteria", 400);
+                return;
+            }
+            int offset = parseIntParam(params, "offset", 0, 0, 1_000_000);
+            int limit = parseIntParam(params, "limit", 50, 1, 10_000);
+            
+            logger.debug("Sort Products Request by: {}", sortBy);
+            
+            try {
+                ProductListing response = dsaSimulator.simulateSortProducts(sortBy, offset, limit);
+                sendJsonResponse(exchange, response);
+            } catch (IllegalArgumentException e) {
+                sendError(exchange, e.getMessage(), 400);
+            }
+        }
+    }
+    
+    static class SearchProductsHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            String method = exchange.getRequestMethod();
+            if (!"POST".equals(method) && !"GET".equals(method)) {
+                sendError(exchange, "Method not allowed", 405);
+                return;
+            }
+            
+            try {
+                // POST takes a JSON body; GET (handy for typeahead) takes ?type=&q=&limit=
+                String searchType;
+                String query;
+                int limit;
+                if ("GET".equals(method)) {
+                    Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+                    searchType = params.getOrDefault("type", "name");
+                    query = params.getOrDefault("q", "");
+                    limit = parseIntParam(params, "limit", 20, 1, 1000);
+                } else {
+                    String body = readRequestBody(exchange);
+                    logger.debug("Search Products Request: {}", body);
+                    
+                    JsonObject json = gson.fromJson(body, JsonObject.class);
+                    searchType = json.get("searchType").getAsString();
+                    query = json.get("query").getAsString();
+                    limit = json.has("limit") ? Math.max(1, Math.min(1000, json.get("limit").getAsInt())) : 20;
+                }
+                
+                ProductListing response = dsaSimulator.simulateSearchProducts(searchType, query, limit);
+                sendJsonResponse(exchange, response);
+                
+            } catch (Exception e) {
+                sendError(exchange, "Invalid request: " + e.getMessage(), 400);
+            }
+        }
+    }
+    
+    static class FilterProductsHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                sendError(exchange, "Method not allowed", 405);
+                return;
+            }
+            
+            Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+            int offset = parseIntParam(params, "offset", 0, 0, 1_000_000);
+            int limit = parseIntParam(params, "limit", 50, 1, 10_000);
+            
+            logger.debug("Filter Products Request: {}", params);
+            
+            try {
+                ProductListing response = dsaSimulator.simulateFilterProducts(params, offset, limit);
+                sendJsonResponse(exchange, response);
+            } catch (IllegalArgumentException e) {
+                sendError(exchange, e.getMessage(), 400);
+            }
+        }
+    }
+    
+    static class ExpiringStockHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                sendError(exchange, "Method not allowed", 405);
+                return;
+            }
+            
+            Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+            LocalDate from;
+            LocalDate to;
+            try {
+                from = params.containsKey("from") ? LocalDate.parse(params.get("from")) : LocalDate.now();
+                to = params.containsKey("to") ? LocalDate.parse(params.get("to")) : from.plusDays(7);
+            } catch (DateTimeParseException e) {
+                sendError(exchange, "Invalid date: " + e.getParsedString(), 400);
+                return;
+            }
+            int below = parseIntParam(params, "below", Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE);
+            String category = params.get("category");
+            if (category != null && category.isEmpty()) {
+                category = null;
+            }
+            int offset = parseIntParam(params, "offset", 0, 0, 1_000_000);
+            int limit = parseIntParam(params, "limit", 50, 1, 10_000);
+            
+            logger.debug("Expiring Stock Request");
+            ProductListing response = dsaSimulator.simulateExpiringStock(from, to, below, category, offset, limit);
+            sendJsonResponse(exchange, response);
+        }
+    }
+    
+    static class DashboardStatsHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                sendError(exchange, "Method not allowed", 405);
+                return;
+            }
+            
+            logger.debug("Dashboard Stats Request");
+            Map<String, Object> response = dsaSimulator.simulateGetDashboardStats();
+            sendJsonResponse(exchange, response);
+        }
+    }
+    
+    static class OperationLogHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                sendError(exchange, "Method not allowed", 405);
+                return;
+            }
+            
+            Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+            long after;
+            try {
+                after = Math.max(0, Long.parseLong(params.getOrDefault("after", "0")));
+            } catch (NumberFormatException e) {
+                sendError(exchange, "Invalid cursor: " + params.get("after"), 400);
+                return;
+            }
+            int limit = parseIntParam(params, "limit", 100, 1, 1000);
+            
+            logger.debug("Operation Log Request");
+            OperationJournal.Page response = dsaSimulator.getOperationLog(after, limit);
+            sendJsonResponse(exchange, response);
+        }
+    }
+    
+    static class SimulationHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                sendError(exchange, "Method not allowed", 405);
+                return;
+            }
+            
+            logger.debug("Run Simulation Request");
+            dsaSimulator.runCompleteSimulation();
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("status", "success");
+            response.put("message", "Simulation completed");
+            sendJsonResponse(exchange, response);
+        }
+    }
+    
+    // ==================== Utility Methods ====================
+    
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return params;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq >= 0 ? pair.substring(0, eq) : pair;
+            String value = eq >= 0 ? pair.substring(eq + 1) : "";
+            params.put(URLDecoder.decode(key, StandardCharsets.UTF_8),
+                       URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+    
+    private static int parseIntParam(Map<String, String> params, String name, int defaultValue, int min, int max) {
+        String value = params.get(name);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Math.max(min, Math.min(max, Integer.parseInt(value)));
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+    
+    private static String readRequestBody(HttpExchange exchange) throws IOException {
+        InputStreamReader isr = new InputStreamReader(exchange.getRequestBody(), "utf-8");
+        BufferedReader br = new BufferedReader(isr);
+        StringBuilder body = new StringBuilder();
+        String line;
+        while ((line = br.readLine()) != null) {
+            body.append(line);
+        }
+        return body.toString();
+    }
+    
+    private static void sendJsonResponse(HttpExchange exchange, Map<String, Object> response) throws IOException {
+        ResponseBuffer buffer = ResponseBuffer.acquire();
+        try {
+            gson.toJson(response, Map.class, buffer.jsonWriter());
+            exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
+            sendJson(exchange, 200, buffer);
+        } finally {
+            buffer.release();
+        }
+    }
+    
+    private static void sendJsonResponse(HttpExchange exchange, ProductListing response) throws IOException {
+        ResponseBuffer buffer = ResponseBuffer.acquire();
+        try {
+            response.writeTo(buffer.jsonWriter());
+            exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
+            sendJson(exchange, 200, buffer);
+        } finally {
+            buffer.release();
+        }
+    }
+    
+    private static void sendJsonResponse(HttpExchange exchange, OperationJournal.Page response) throws IOException {
+        ResponseBuffer buffer = ResponseBuffer.acquire();
+        try {
+            response.writeTo(buffer.jsonWriter());
+            exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
+            sendJson(exchange, 200, buffer);
+        } finally {
+            buffer.release();
+        }
+    }
+    
+    private static void sendError(HttpExchange exchange, String message, int code) throws IOException {
+        ResponseBuffer buffer = ResponseBuffer.acquire();
+        try {
+            JsonWriter json = buffer.jsonWriter();
+            json.beginObject();
+            json.name("error").value(message);
+            json.name("code").value(code);
+            json.endObject();
+            sendJson(exchange, code, buffer);
+        } finally {
+            buffer.release();
+        }
+    }
+    
+    // The body is already encoded as UTF-8 in a pooled buffer,
+    // so the exact length is known before the headers go out and decides
+    // whether the response is worth gzipping
+    private static void sendJson(HttpExchange exchange, int code, ResponseBuffer buffer) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        try (OutputStream os = compression.begin(exchange, code, buffer.size())) {
+            buffer.writeTo(os);
+        }
+    }
 }
\ No newline at end of file
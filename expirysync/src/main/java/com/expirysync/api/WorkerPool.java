@@ -0,0 +1,166 @@
+package com.expirysync.api;
+
+import com.expirysync.log.Log;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Executor handed to HttpServer. Three modes:
+//   pool       - bounded platform-thread pool with a bounded work queue
+//   virtual    - one virtual thread per request (JDK 21+), in-flight capped
+//   dispatcher - legacy behaviour, requests run on the HttpServer thread
+// When the pool and its queue are full (or too many virtual threads are in
+// flight) the request runs on the dispatcher thread instead of being dropped,
+// which stops the server accepting more work until capacity frees up.
+public class WorkerPool implements Executor {
+    private static final Log logger = Log.get(WorkerPool.class);
+    public static final String MODE_POOL = "pool";
+    public static final String MODE_VIRTUAL = "virtual";
+    public static final String MODE_DISPATCHER = "dispatcher";
+    
+    private final String mode;
+    private final int workers;
+    private final int queueDepth;
+    private final ThreadPoolExecutor pool;
+    private final ExecutorService virtualExecutor;
+    private final Semaphore virtualPermits;
+    private final AtomicInteger virtualInFlight = new AtomicInteger();
+    private final AtomicLong virtualCompleted = new AtomicLong();
+    private final AtomicLong overflowed = new AtomicLong();
+    
+    private WorkerPool(String mode, int workers, int queueDepth) {
+        this.workers = workers;
+        this.queueDepth = queueDepth;
+        
+        ExecutorService virtual = null;
+        if (MODE_VIRTUAL.equals(mode)) {
+            virtual = newVirtualThreadExecutor();
+            if (virtual == null) {
+                logger.warn("Virtual threads need JDK 21+ (running {}), using a platform pool",
+                            System.getProperty("java.version"));
+                mode = MODE_POOL;
+            }
+        }
+        this.mode = mode;
+        this.virtualExecutor = virtual;
+        this.virtualPermits = virtual != null ? new Semaphore(workers + queueDepth) : null;
+        
+        if (MODE_POOL.equals(mode)) {
+            AtomicInteger threadIds = new AtomicInteger();
+            RejectedExecutionHandler runOnCaller = (task, executor) -> {
+                overflowed.incrementAndGet();
+                if (!executor.isShutdown()) {
+                    task.run();
+                }
+            };
+            this.pool = new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueDepth),
+                task -> {
+                    Thread t = new Thread(task, "expirysync-worker-" + threadIds.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                runOnCaller);
+        } else {
+            this.pool = null;
+        }
+    }
+    
+    // Settings come from --executor/--workers/--queue-depth flags, then the
+    // EXPIRYSYNC_EXECUTOR/EXPIRYSYNC_WORKERS/EXPIRYSYNC_QUEUE_DEPTH environment
+    public static WorkerPool fromConfig(ServerConfig config) {
+        int cores = Runtime.getRuntime().availableProcessors();
+        
+        String mode = config.get("executor", "EXPIRYSYNC_EXECUTOR", MODE_POOL).toLowerCase(Locale.ROOT);
+        if (!MODE_POOL.equals(mode) && !MODE_VIRTUAL.equals(mode) && !MODE_DISPATCHER.equals(mode)) {
+            logger.warn("Unknown executor mode '{}', using {}", mode, MODE_POOL);
+            mode = MODE_POOL;
+        }
+        int workers = config.getInt("workers", "EXPIRYSYNC_WORKERS", cores * 2);
+        int queueDepth = config.getInt("queue-depth", "EXPIRYSYNC_QUEUE_DEPTH", 256);
+        return new WorkerPool(mode, workers, queueDepth);
+    }
+    
+    // HttpServer takes a null executor to mean "run on the dispatcher thread"
+    public Executor executor() {
+        return MODE_DISPATCHER.equals(mode) ? null : this;
+    }
+    
+    @Override
+    public void execute(Runnable task) {
+        if (pool != null) {
+            pool.execute(task);
+        } else if (virtualExecutor != null) {
+            if (!virtualPermits.tryAcquire()) {
+                overflowed.incrementAndGet();
+                task.run();
+                return;
+            }
+            virtualInFlight.incrementAndGet();
+            virtualExecutor.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    virtualInFlight.decrementAndGet();
+                    virtualCompleted.incrementAndGet();
+                    virtualPermits.release();
+                }
+            });
+        } else {
+            task.run();
+        }
+    }
+    
+    public String getMode() {
+        return mode;
+    }
+    
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("mode", mode);
+        if (pool != null) {
+            int active = pool.getActiveCount();
+            int queued = pool.getQueue().size();
+            stats.put("workers", workers);
+            stats.put("active", active);
+            stats.put("queued", queued);
+            stats.put("queueCapacity", queueDepth);
+            stats.put("completed", pool.getCompletedTaskCount());
+            stats.put("saturation", (double) (active + queued) / (workers + queueDepth));
+        } else if (virtualExecutor != null) {
+            int inFlight = virtualInFlight.get();
+            stats.put("maxInFlight", workers + queueDepth);
+            stats.put("active", inFlight);
+            stats.put("completed", virtualCompleted.get());
+            stats.put("saturation", (double) inFlight / (workers + queueDepth));
+        }
+        stats.put("overflowedToDispatcher", overflowed.get());
+        return stats;
+    }
+    
+    public void shutdown() {
+        if (pool != null) pool.shutdown();
+        if (virtualExecutor != null) virtualExecutor.shutdown();
+    }
+    
+    // Looked up reflectively so the server still builds and runs on JDK 11
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class
+                .getMethod("newVirtualThreadPerTaskExecutor")
+                .invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return null;
+        }
+    }
+}
\ No newline at end of file
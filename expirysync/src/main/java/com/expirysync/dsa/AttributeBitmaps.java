@@ -0,0 +1,177 @@
+package com.expirysync.dsa;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// One OrdinalBitmap per value of the low-cardinality attributes (category,
+// supplier, status and expiry priority) over product ordinals, so a
+// multi-filter query is a few bitmap ANDs/ORs/AND-NOTs whose cost follows
+// the bitmaps rather than the catalog. Values are the normalized keys
+// captured on the product; priority bands are relative to the day this
+// index was last rolled to. Not thread-safe: DSAOperations calls it under
+// its lock and relabels ordinals when it swap-removes a product.
+public class AttributeBitmaps {
+    public enum Attribute { CATEGORY, SUPPLIER, STATUS, PRIORITY }
+    
+    private static final String[] PRIORITY_NAMES = {"expired", "critical", "urgent", "normal"};
+    
+    private final Map<Attribute, Map<String, OrdinalBitmap>> bitmaps = new EnumMap<>(Attribute.class);
+    private long today;
+    
+    public AttributeBitmaps(long today) {
+        this.today = today;
+        for (Attribute attribute : Attribute.values()) {
+            bitmaps.put(attribute, new HashMap<>());
+        }
+    }
+    
+    // Files product.slot under each attribute value, banding its priority
+    // against the index's current day
+    public void add(Product product) {
+        product.indexedPriority = Product.priorityFor(product.indexedExpiryDay, today);
+        for (Attribute attribute : Attribute.values()) {
+            bitmaps.get(attribute).computeIfAbsent(valueOf(product, attribute), k -> new OrdinalBitmap()).add(product.slot);
+        }
+    }
+    
+    public void remove(Product product) {
+        for (Attribute attribute : Attribute.values()) {
+            clear(attribute, valueOf(product, attribute), product.slot);
+        }
+    }
+    
+    // The product now lives at product.slot instead of from
+    public void move(Product product, int from) {
+        for (Attribute attribute : Attribute.values()) {
+            OrdinalBitmap bitmap = bitmaps.get(attribute).get(valueOf(product, attribute));
+            bitmap.remove(from);
+            bitmap.add(product.slot);
+        }
+    }
+    
+    public boolean isCurrent(long day) {
+        return day == today;
+    }
+    
+    public long getDay() {
+        return today;
+    }
+    
+    // Moves to a later day, re-banding the products whose priority changes.
+    // Bands only shift for expiry days in [today, newToday + 8), which is
+    // the range the caller passes in.
+    public void rollTo(long newToday, Iterable<Product> boundary) {
+        if (newToday <= today) return;
+        today = newToday;
+        Map<String, OrdinalBitmap> bands = bitmaps.get(Attribute.PRIORITY);
+        for (Product product : boundary) {
+            int band = Product.priorityFor(product.indexedExpiryDay, newToday);
+            if (band == product.indexedPriority) continue;
+            clear(Attribute.PRIORITY, PRIORITY_NAMES[product.indexedPriority], product.slot);
+            product.indexedPriority = band;
+            bands.computeIfAbsent(PRIORITY_NAMES[band], k -> new OrdinalBitmap()).add(product.slot);
+        }
+    }
+    
+    // Takes a later day without re-banding; for an index that holds no
+    // products yet, whose build will band them against this day
+    public void advanceTo(long newToday) {
+        if (newToday > today) today = newToday;
+    }
+    
+    // Ordinals matching the filter out of [0, productCount). Required
+    // attributes are intersected smallest first, so every intermediate is
+    // no larger than the most selective one; exclusions are subtracted last.
+    public OrdinalBitmap match(Filter filter, int productCount) {
+        List<OrdinalBitmap> required = new ArrayList<>();
+        for (Map.Entry<Attribute, List<String>> entry : filter.required.entrySet()) {
+            required.add(union(entry.getKey(), entry.getValue()));
+        }
+        required.sort((a, b) -> Integer.compare(a.cardinality(), b.cardinality()));
+        
+        OrdinalBitmap result = required.isEmpty() ? OrdinalBitmap.range(productCount) : required.get(0);
+        for (int i = 1; i < required.size() && !result.isEmpty(); i++) {
+            result = result.and(required.get(i));
+        }
+        for (Map.Entry<Attribute, List<String>> entry : filter.excluded.entrySet()) {
+            if (result.isEmpty()) break;
+            result = result.andNot(union(entry.getKey(), entry.getValue()));
+        }
+        return result;
+    }
+    
+    public long sizeInBytes() {
+        long bytes = 0;
+        for (Map<String, OrdinalBitmap> values : bitmaps.values()) {
+            for (OrdinalBitmap bitmap : values.values()) {
+                bytes += bitmap.sizeInBytes();
+            }
+        }
+        return bytes;
+    }
+    
+    private OrdinalBitmap union(Attribute attribute, List<String> values) {
+        OrdinalBitmap result = new OrdinalBitmap();
+        for (String value : values) {
+            OrdinalBitmap bitmap = bitmaps.get(attribute).get(normalizeValue(attribute, value));
+            if (bitmap != null) result = result.or(bitmap);
+        }
+        return result;
+    }
+    
+    private void clear(Attribute attribute, String value, int slot) {
+        Map<String, OrdinalBitmap> values = bitmaps.get(attribute);
+        OrdinalBitmap bitmap = values.get(value);
+        if (bitmap == null) return;
+        bitmap.remove(slot);
+        if (bitmap.isEmpty()) values.remove(value);
+    }
+    
+    private static String valueOf(Product product, Attribute attribute) {
+        switch (attribute) {
+            case CATEGORY: return product.indexedCategory;
+            case SUPPLIER: return product.indexedSupplier;
+            case STATUS: return product.indexedStatus;
+            default: return PRIORITY_NAMES[product.indexedPriority];
+        }
+    }
+    
+    // Priorities may be given by name or by band number (0 = expired)
+    private static String normalizeValue(Attribute attribute, String value) {
+        String normalized = ProductSearch.normalize(value);
+        if (attribute != Attribute.PRIORITY) return normalized;
+        for (int band = 0; band < PRIORITY_NAMES.length; band++) {
+            if (normalized.equals(PRIORITY_NAMES[band]) || normalized.equals(String.valueOf(band))) {
+                return PRIORITY_NAMES[band];
+            }
+        }
+        throw new IllegalArgumentException("Unknown priority: " + value);
+    }
+    
+    // Values within one attribute are ORed, attributes are ANDed, and
+    // excluded values are removed from the result
+    public static class Filter {
+        private final Map<Attribute, List<String>> required = new EnumMap<>(Attribute.class);
+        private final Map<Attribute, List<String>> excluded = new EnumMap<>(Attribute.class);
+        
+        public Filter require(Attribute attribute, String value) {
+            normalizeValue(attribute, value);
+            required.computeIfAbsent(attribute, k -> new ArrayList<>()).add(value);
+            return this;
+        }
+        
+        public Filter exclude(Attribute attribute, String value) {
+            normalizeValue(attribute, value);
+            excluded.computeIfAbsent(attribute, k -> new ArrayList<>()).add(value);
+            return this;
+        }
+        
+        @Override
+        public String toString() {
+            return "require " + required + ", exclude " + excluded;
+        }
+    }
+}
\ No newline at end of file
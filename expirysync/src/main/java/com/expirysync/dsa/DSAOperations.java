@@ -1,307 +1,885 @@
-package com.expirysync.dsa;
-
-import java.time.LocalDate;
-import java.util.*;
-
-public class DSAOperations {
-    // DSA Structures
-    private InventoryStack recentProductsStack;
-    private ExpiryQueue expiryProcessingQueue;
-    private PriorityExpiryQueue urgentProductsQueue;
-    private ProductSorter productSorter;
-    private ProductSearch productSearch;
-    
-    // Main storage
-    private List<Product> allProducts;
-    
-    public DSAOperations() {
-        this.recentProductsStack = new InventoryStack(50);
-        this.expiryProcessingQueue = new ExpiryQueue(100);
-        this.urgentProductsQueue = new PriorityExpiryQueue(100);
-        this.productSorter = new ProductSorter();
-        this.productSearch = new ProductSearch();
-        this.allProducts = new ArrayList<>();
-        
-        System.out.println("DSA Operations initialized with all structures");
-    }
-    
-    public void addProduct(Product product) {
-        System.out.println("\n[+] Adding product: " + product.getName());
-        
-        // Add to main storage
-        allProducts.add(product);
-        
-        // Add to DSA structures
-        InventoryStack.Product stackProduct = convertToStackProduct(product);
-        recentProductsStack.push(stackProduct);
-        
-        ExpiryQueue.Product queueProduct = convertToQueueProduct(product);
-        expiryProcessingQueue.enqueue(queueProduct);
-        
-        PriorityExpiryQueue.Product priorityProduct = convertToPriorityProduct(product);
-        urgentProductsQueue.insert(priorityProduct);
-        
-        System.out.println("  ✓ Added to: ArrayList, Stack, Queue, PriorityQueue");
-    }
-    
-    public void removeProduct(String productId) {
-        System.out.println("\n[-] Removing product ID: " + productId);
-        
-        // Find and remove from main storage
-        Product toRemove = null;
-        for (Product p : allProducts) {
-            if (p.getId().equals(productId)) {
-                toRemove = p;
-                break;
-            }
-        }
-        
-        if (toRemove != null) {
-            allProducts.remove(toRemove);
-            System.out.println("  ✓ Removed from ArrayList");
-            
-            // Note: In real implementation, would remove from all structures
-            System.out.println("  ⓘ Stack/Queue/PriorityQueue would need updates");
-        } else {
-            System.out.println("  ✗ Product not found");
-        }
-    }
-    
-    public Product processNextExpired() {
-        System.out.println("\n[→] Processing next expired product");
-        
-        ExpiryQueue.Product expired = expiryProcessingQueue.dequeue();
-        if (expired != null) {
-            Product result = new Product();
-            result.setId(expired.getId());
-            result.setName(expired.getName());
-            result.setExpiryDate(expired.getExpiryDate());
-            System.out.println("  ✓ Processed: " + expired.getName());
-            return result;
-        }
-        
-        System.out.println("  ⓘ No expired products in queue");
-        return null;
-    }
-    
-    public Product getMostUrgentProduct() {
-        System.out.println("\n[!] Getting most urgent product");
-        
-        PriorityExpiryQueue.Product urgent = urgentProductsQueue.peekMostUrgent();
-        if (urgent != null) {
-            Product result = new Product();
-            result.setId(urgent.getId());
-            result.setName(urgent.getName());
-            result.setPriority(urgent.getPriority());
-            System.out.println("  ✓ Most urgent: " + urgent.getName());
-            return result;
-        }
-        
-        System.out.println("  ⓘ No urgent products");
-        return null;
-    }
-    
-    public void demonstrateSorting() {
-        System.out.println("\n[↕] Demonstrating sorting algorithms");
-        
-        if (allProducts.isEmpty()) {
-            System.out.println("  ⓘ No products to sort");
-            return;
-        }
-        
-        List<ProductSorter.Product> sortable = convertToSortableProducts();
-        
-        System.out.println("  1. Quick Sort by Expiry:");
-        productSorter.quickSortByExpiry(sortable);
-        
-        System.out.println("  2. Merge Sort by Priority:");
-        productSorter.mergeSortByPriority(sortable);
-        
-        System.out.println("  3. Bubble Sort by Quantity:");
-        productSorter.bubbleSortByQuantity(sortable);
-    }
-    
-    public void demonstrateSearching() {
-        System.out.println("\n[?] Demonstrating searching algorithms");
-        
-        if (allProducts.isEmpty()) {
-            System.out.println("  ⓘ No products to search");
-            return;
-        }
-        
-        List<ProductSearch.Product> searchable = convertToSearchableProducts();
-        
-        if (!searchable.isEmpty()) {
-            System.out.println("  1. Linear Search by ID:");
-            productSearch.linearSearchById(searchable, searchable.get(0).getId());
-            
-            System.out.println("  2. Binary Search by Name:");
-            productSearch.binarySearchByName(searchable, searchable.get(0).getName());
-        }
-    }
-    
-    public Map<String, Object> getDashboardStats() {
-        System.out.println("\n[📊] Generating dashboard statistics");
-        
-        Map<String, Object> stats = new HashMap<>();
-        stats.put("totalProducts", allProducts.size());
-        stats.put("recentAdditions", recentProductsStack.size());
-        stats.put("inQueue", expiryProcessingQueue.size());
-        stats.put("urgentCount", urgentProductsQueue.size());
-        stats.put("lowStock", countLowStock());
-        stats.put("expiringSoon", countExpiringSoon());
-        
-        System.out.println("  ✓ Generated stats for dashboard");
-        return stats;
-    }
-    
-    // Helper methods
-    private int countLowStock() {
-        int count = 0;
-        for (Product p : allProducts) {
-            if (p.getQuantity() < 10) count++;
-        }
-        return count;
-    }
-    
-    private int countExpiringSoon() {
-        int count = 0;
-        LocalDate weekLater = LocalDate.now().plusDays(7);
-        for (Product p : allProducts) {
-            if (p.getExpiryDate().isBefore(weekLater)) count++;
-        }
-        return count;
-    }
-    
-    // Conversion methods
-    private InventoryStack.Product convertToStackProduct(Product p) {
-        InventoryStack.Product sp = new InventoryStack.Product();
-        sp.setId(p.getId());
-        sp.setName(p.getName());
-        sp.setCategory(p.getCategory());
-        sp.setQuantity(p.getQuantity());
-        sp.setExpiryDate(p.getExpiryDate());
-        sp.setPrice(p.getPrice());
-        return sp;
-    }
-    
-    private ExpiryQueue.Product convertToQueueProduct(Product p) {
-        ExpiryQueue.Product qp = new ExpiryQueue.Product();
-        qp.setId(p.getId());
-        qp.setName(p.getName());
-        qp.setCategory(p.getCategory());
-        qp.setQuantity(p.getQuantity());
-        qp.setExpiryDate(p.getExpiryDate());
-        qp.setPrice(p.getPrice());
-        return qp;
-    }
-    
-    private PriorityExpiryQueue.Product convertToPriorityProduct(Product p) {
-        PriorityExpiryQueue.Product pp = new PriorityExpiryQueue.Product();
-        pp.setId(p.getId());
-        pp.setName(p.getName());
-        pp.setCategory(p.getCategory());
-        pp.setQuantity(p.getQuantity());
-        pp.setExpiryDate(p.getExpiryDate());
-        pp.setPrice(p.getPrice());
-        return pp;
-    }
-    
-    private List<ProductSorter.Product> convertToSortableProducts() {
-        List<ProductSorter.Product> result = new ArrayList<>();
-        for (Product p : allProducts) {
-            ProductSorter.Product sp = new ProductSorter.Product();
-            sp.setId(p.getId());
-            sp.setName(p.getName());
-            sp.setCategory(p.getCategory());
-            sp.setQuantity(p.getQuantity());
-            sp.setExpiryDate(p.getExpiryDate());
-            sp.setPrice(p.getPrice());
-            result.add(sp);
-        }
-        return result;
-    }
-    
-    private List<ProductSearch.Product> convertToSearchableProducts() {
-        List<ProductSearch.Product> result = new ArrayList<>();
-        for (Product p : allProducts) {
-            ProductSearch.Product sp = new ProductSearch.Product();
-            sp.setId(p.getId());
-            sp.setName(p.getName());
-            sp.setCategory(p.getCategory());
-            sp.setQuantity(p.getQuantity());
-            sp.setPrice(p.getPrice());
-            result.add(sp);
-        }
-        return result;
-    }
-    
-    // Product class
-    public static class Product {
-        private String id;
-        private String name;
-        private String category;
-        private int quantity;
-        private LocalDate expiryDate;
-        private String status;
-        private int priority;
-        private double price;
-        private String supplier;
-        
-        public Product() {
-            this.id = "PROD_" + System.currentTimeMillis();
-            this.expiryDate = LocalDate.now().plusDays(30);
-            this.status = "Active";
-            this.priority = 3;
-        }
-        
-        // Getters and Setters
-        public String getId() { return id; }
-        public void setId(String id) { this.id = id; }
-        
-        public String getName() { return name; }
-        public void setName(String name) { this.name = name; }
-        
-        public String getCategory() { return category; }
-        public void setCategory(String category) { this.category = category; }
-        
-        public int getQuantity() { return quantity; }
-        public void setQuantity(int quantity) { this.quantity = quantity; }
-        
-        public LocalDate getExpiryDate() { return expiryDate; }
-        public void setExpiryDate(LocalDate expiryDate) { 
-            this.expiryDate = expiryDate; 
-            updatePriority();
-        }
-        
-        public String getStatus() { return status; }
-        public void setStatus(String status) { this.status = status; }
-        
-        public int getPriority() { return priority; }
-        public void setPriority(int priority) { this.priority = priority; }
-        
-        public double getPrice() { return price; }
-        public void setPrice(double price) { this.price = price; }
-        
-        public String getSupplier() { return supplier; }
-        public void setSupplier(String supplier) { this.supplier = supplier; }
-        
-        private void updatePriority() {
-            if (expiryDate == null) return;
-            
-            long days = java.time.temporal.ChronoUnit.DAYS.between(
-                LocalDate.now(), expiryDate);
-            
-            if (days < 0) priority = 0;      // Expired
-            else if (days <= 3) priority = 1; // Critical
-            else if (days <= 7) priority = 2; // Urgent
-            else priority = 3;                // Normal
-        }
-        
-        @Override
-        public String toString() {
-            return name + " (" + category + ") - Qty: " + quantity + 
-                   ", Expires: " + expiryDate;
-        }
-    }
+package com.expirysync.dsa;
+
+import com.expirysync.log.Log;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+public class DSAOperations {
+    private static final Log logger = Log.get(DSAOperations.class);
+    
+    // DSA Structures
+    private InventoryStack recentProductsStack;
+    private ExpiryQueue expiryProcessingQueue;
+    private PriorityExpiryQueue urgentProductsQueue;
+    private ProductSorter productSorter;
+    private ProductSearch productSearch;
+    private InvertedIndex textIndex;
+    
+    // Main storage, plus an id index into it for O(1) lookup/removal
+    // (each product records its own slot in Product.slot)
+    private List<Product> allProducts;
+    private Map<String, Product> productsById;
+    
+    // Reused by sorting so it never reallocates a catalog-sized list; several
+    // readers may sort at once, so each takes its own from the pool
+    private ScratchPool<List<Product>> workspace;
+    
+    // Catalog pre-sorted by expiry, quantity and price for sorted pages
+    private Map<ProductSorter.SortKey, SortedProductIndex> sortedIndexes;
+    
+    // Category/supplier/status/priority bitmaps over Product.slot for filters
+    private AttributeBitmaps attributeBitmaps;
+    
+    // Expiry-day blocks ordered by quantity for window x stock-level queries
+    private ExpiryStockIndex expiryStockIndex;
+    
+    // Dashboard counters maintained on every write
+    private DayClock clock;
+    private InventoryStats stats;
+    
+    // Products by expiry day; the ExpiryQueue is the FIFO intake in front of
+    // it and is drained into the calendar before every expiry pass. Adds hand
+    // products to the intake after releasing the write lock; removed or
+    // replaced products are left in the ring and skipped when it drains.
+    private ExpiryCalendar expiryCalendar;
+    
+    // Durable record of every write, appended under the write lock and
+    // synced after releasing it; null while the catalog is memory-only
+    private WriteAheadLog writeAheadLog;
+    
+    // Writers (add/remove/update/process) are exclusive and therefore
+    // linearizable; reads (lookup/urgent/stats/sort/search) share the lock
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    // Secondary indexes a snapshot load leaves unbuilt so the catalog can
+    // answer as soon as storage, stats and queues are filled. Writes skip an
+    // unbuilt index; the first query that needs one, or warmUp(), builds it
+    // from allProducts. Changed under the write lock, or under the read lock
+    // (which keeps writers out) plus buildLock; queries check it lock-free.
+    private enum SecondaryIndex { ATTRIBUTES, SORTED, EXPIRY_STOCK, NAME, TEXT }
+    private final Set<SecondaryIndex> unbuilt = ConcurrentHashMap.newKeySet();
+    private final Object buildLock = new Object();
+    
+    public DSAOperations() {
+        this(1024, ExpiryQueue.OverflowPolicy.BLOCK, 50);
+    }
+    
+    public DSAOperations(int intakeCapacity, ExpiryQueue.OverflowPolicy intakePolicy, int recentDepth) {
+        this.recentProductsStack = new InventoryStack(recentDepth);
+        this.expiryProcessingQueue = new ExpiryQueue(intakeCapacity, intakePolicy);
+        this.urgentProductsQueue = new PriorityExpiryQueue(100);
+        this.productSorter = new ProductSorter();
+        this.productSearch = new ProductSearch();
+        this.textIndex = new InvertedIndex();
+        this.allProducts = new ArrayList<>();
+        this.productsById = new HashMap<>();
+        this.workspace = new ScratchPool<>(ArrayList::new, List::clear);
+        this.sortedIndexes = new EnumMap<>(ProductSorter.SortKey.class);
+        for (ProductSorter.SortKey key : ProductSorter.SortKey.values()) {
+            if (SortedProductIndex.supports(key)) {
+                sortedIndexes.put(key, new SortedProductIndex(key));
+            }
+        }
+        this.clock = DayClock.system();
+        this.stats = new InventoryStats(clock.today());
+        this.attributeBitmaps = new AttributeBitmaps(clock.today());
+        this.expiryStockIndex = new ExpiryStockIndex();
+        this.expiryCalendar = new ExpiryCalendar(clock.today());
+        
+        logger.info("DSA Operations initialized with all structures");
+    }
+    
+    public void addProduct(Product product) {
+        boolean replaced;
+        lock.writeLock().lock();
+        try {
+            logger.debug("[+] Adding product: {}", product.getName());
+            
+            // Re-adding an existing id replaces it everywhere
+            replaced = productsById.containsKey(product.getId());
+            if (replaced) {
+                replaceProduct(product);
+            } else {
+                if (expiryProcessingQueue.getOverflowPolicy() == ExpiryQueue.OverflowPolicy.REJECT
+                        && expiryProcessingQueue.size() >= expiryProcessingQueue.capacity()) {
+                    throw new ExpiryQueue.QueueFullException("Expiry intake queue is full, retry after the next expiry pass");
+                }
+                logPut(product);
+                insert(product);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        
+        if (!replaced) {
+            enqueueForExpiry(product);
+        }
+        syncLog();
+        logger.debug(replaced
+            ? "  ✓ Updated in: ArrayList, Stack, Queue, PriorityQueue"
+            : "  ✓ Added to: ArrayList, Stack, Queue, PriorityQueue");
+    }
+    
+    // Adds or replaces a batch of products under one write section and one
+    // log sync, logging a single summary line. New products go straight onto
+    // the expiry calendar (as in recovery) rather than through the bounded
+    // intake ring, so a large import cannot overflow it. Every row is
+    // checked before anything changes, and products stored before a failed
+    // log append still reach the heap and stack. An id repeated within the
+    // batch is stored once, from its last row. Returns how many of the
+    // products were new.
+    public int addProducts(List<Product> batch) {
+        for (Product product : batch) {
+            WriteAheadLog.checkRecordable(product);
+        }
+        List<Product> rows = lastRowPerId(batch);
+        List<Product> added = new ArrayList<>();
+        lock.writeLock().lock();
+        try {
+            try {
+                for (Product product : rows) {
+                    if (!replaceProduct(product)) {
+                        logPut(product);
+                        store(product);
+                        expiryCalendar.schedule(product);
+                        added.add(product);
+                    }
+                }
+            } finally {
+                urgentProductsQueue.insertAll(added.toArray(new Product[0]));
+                for (int i = Math.max(0, added.size() - recentProductsStack.capacity()); i < added.size(); i++) {
+                    recentProductsStack.push(added.get(i));
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        
+        syncLog();
+        logger.info("[+] Batch of {} products: {} added, {} updated",
+            batch.size(), added.size(), batch.size() - added.size());
+        return added.size();
+    }
+    
+    // The batch with each repeated id reduced to its last row, placed where
+    // that row was. A later row would otherwise replace a product that is
+    // not yet in the heap or stack, and the earlier instance would be put
+    // there instead of the live one.
+    private static List<Product> lastRowPerId(List<Product> batch) {
+        Map<String, Product> rows = new LinkedHashMap<>();
+        for (Product product : batch) {
+            rows.remove(product.getId());
+            rows.put(product.getId(), product);
+        }
+        return rows.size() == batch.size() ? batch : new ArrayList<>(rows.values());
+    }
+    
+    public Product removeProduct(String productId) {
+        Product removed;
+        lock.writeLock().lock();
+        try {
+            logger.debug("[-] Removing product ID: {}", productId);
+            
+            removed = productsById.get(productId);
+            if (removed == null) {
+                logger.debug("  ✗ Product not found");
+                return null;
+            }
+            logRemove(productId);
+            productsById.remove(productId);
+            detach(removed);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        
+        syncLog();
+        logger.debug("  ✓ Removed from: ArrayList, Stack, Queue, PriorityQueue, Calendar");
+        return removed;
+    }
+    
+    public Product getProduct(String productId) {
+        lock.readLock().lock();
+        try {
+            return productsById.get(productId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public boolean updateProduct(Product product) {
+        boolean updated;
+        lock.writeLock().lock();
+        try {
+            updated = replaceProduct(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        
+        if (updated) {
+            syncLog();
+            logger.debug("  ✓ Updated in: ArrayList, Stack, Queue, PriorityQueue");
+        }
+        return updated;
+    }
+    
+    // Recovery: applies writes read back from disk without logging them
+    // again. New products go straight onto the expiry calendar rather than
+    // through the intake ring.
+    void restorePut(Product product) {
+        lock.writeLock().lock();
+        try {
+            if (!replaceProduct(product)) {
+                insert(product);
+                expiryCalendar.schedule(product);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    void restoreRemove(String productId) {
+        lock.writeLock().lock();
+        try {
+            Product removed = productsById.remove(productId);
+            if (removed != null) {
+                detach(removed);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    void restoreQuantity(String productId, int quantity) {
+        lock.writeLock().lock();
+        try {
+            Product product = productsById.get(productId);
+            if (product != null) {
+                setQuantity(product, quantity);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    // Recovery fast path: fills an empty catalog from a snapshot in one pass
+    // under the write lock. Products arrive with their index keys captured.
+    // Storage, stats, calendar and heap (heapified in O(n), no per-item
+    // logging) are built here; the secondary indexes are left unbuilt.
+    void restoreAll(Product[] products) {
+        lock.writeLock().lock();
+        try {
+            if (!allProducts.isEmpty()) {
+                throw new IllegalStateException("Snapshot can only be loaded into an empty catalog");
+            }
+            allProducts = new ArrayList<>(Math.max(16, products.length));
+            productsById = new HashMap<>(Math.max(16, products.length * 4 / 3 + 1));
+            for (Product product : products) {
+                product.slot = allProducts.size();
+                allProducts.add(product);
+                productsById.put(product.getId(), product);
+                stats.add(product);
+                expiryCalendar.schedule(product);
+            }
+            urgentProductsQueue.insertAll(products);
+            for (int i = Math.max(0, products.length - recentProductsStack.capacity()); i < products.length; i++) {
+                recentProductsStack.push(products[i]);
+            }
+            if (products.length > 0) {
+                unbuilt.addAll(EnumSet.allOf(SecondaryIndex.class));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    // Builds whatever restoreAll left unbuilt, filter and sort indexes
+    // first; run on a background thread after startup
+    void warmUp() {
+        for (SecondaryIndex index : SecondaryIndex.values()) {
+            ensureBuilt(index);
+        }
+    }
+    
+    // Starts logging every write; called once recovery has finished
+    void attachLog(WriteAheadLog log) {
+        lock.writeLock().lock();
+        try {
+            this.writeAheadLog = log;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    // Copies the catalog and rolls the log to a new segment under the read
+    // lock, which keeps writers out, so the copy is exactly the state as of
+    // the returned log sequence
+    long checkpoint(List<Product> into) throws IOException {
+        lock.readLock().lock();
+        try {
+            for (Product product : allProducts) {
+                into.add(product.copy());
+            }
+            return writeAheadLog.roll();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public Product processNextExpired() {
+        List<Product> processed = processExpired(lastExpiredDay(), 1);
+        return processed.isEmpty() ? null : processed.get(0);
+    }
+    
+    // Yesterday on the catalog's clock: the latest expiry date that is past
+    public long lastExpiredDay() {
+        return clock.today() - 1;
+    }
+    
+    // Writes off up to limit products expiring on or before lastDay (an
+    // epoch day), earliest first, removing them from every structure. Each
+    // removal is logged before the product is touched; if an append fails,
+    // the products polled but not yet written off go back on the calendar.
+    public List<Product> processExpired(long lastDay, int limit) {
+        List<Product> expired;
+        lock.writeLock().lock();
+        try {
+            logger.debug("[→] Processing expired products up to {}", LocalDate.ofEpochDay(lastDay));
+            
+            drainExpiryIntake();
+            expired = expiryCalendar.pollDue(lastDay, limit);
+            for (int i = 0; i < expired.size(); i++) {
+                Product product = expired.get(i);
+                try {
+                    logRemove(product.getId());
+                } catch (RuntimeException e) {
+                    for (Product pending : expired.subList(i, expired.size())) {
+                        expiryCalendar.schedule(pending);
+                    }
+                    throw e;
+                }
+                productsById.remove(product.getId());
+                detach(product);
+                logger.debug("  ✓ Processed: {}", product.getName());
+            }
+            
+            if (expired.isEmpty()) {
+                logger.debug("  ⓘ No expired products due");
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        
+        syncLog();
+        return expired;
+    }
+    
+    public Product getMostUrgentProduct() {
+        lock.readLock().lock();
+        try {
+            logger.debug("[!] Getting most urgent product");
+            
+            Product urgent = urgentProductsQueue.peekMostUrgent();
+            if (urgent != null) {
+                logger.debug("  ✓ Most urgent: {}", urgent.getName());
+                return urgent;
+            }
+            
+            logger.debug("  ⓘ No urgent products");
+            return null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    // A page of the most urgent products (earliest expiry first), optionally
+    // limited to one category; reads the heap without draining it
+    public List<Product> getUrgentProducts(int offset, int limit, String category) {
+        lock.readLock().lock();
+        try {
+            return urgentProductsQueue.topUrgent(offset, limit, category);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    // Newest additions first; reads the stack's ring without taking the lock
+    public List<Product> getRecentAdditions(int limit) {
+        return recentProductsStack.snapshot(limit);
+    }
+    
+    // One page of the catalog in the given multi-key order. A single indexed
+    // key is read straight off its skip list; anything else is sorted.
+    public List<Product> sortProducts(List<ProductSorter.Order> orders, int offset, int limit) {
+        if (sortedIndexFor(orders) != null) {
+            ensureBuilt(SecondaryIndex.SORTED);
+        }
+        lock.readLock().lock();
+        try {
+            logger.debug("[↕] Sorting products by {}", orders);
+            
+            SortedProductIndex index = sortedIndexFor(orders);
+            if (index != null) {
+                logger.debug("  ✓ Range scan of the {} index", orders.get(0).key);
+                return index.page(offset, limit, orders.get(0).descending);
+            }
+            
+            List<Product> sortable = fillWorkspace();
+            try {
+                int end = (int) Math.min((long) offset + limit, sortable.size());
+                if (offset >= end) {
+                    return new ArrayList<>();
+                }
+                List<Product> prefix = productSorter.sortedPrefix(sortable, orders, end);
+                if (logger.isDebugEnabled()) {
+                    logger.debug("  ✓ {}", ProductSorter.describe(orders, sortable.size(), end));
+                }
+                return new ArrayList<>(prefix.subList(offset, end));
+            } finally {
+                workspace.release(sortable);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    // One page of a whole-catalog walk in (expiry, id) order: up to limit
+    // detached copies following `after`, the last product of the previous
+    // page (null for the first). Each page takes the read lock on its own,
+    // so a long export never holds off writers, but the walk is not a
+    // snapshot. Products added or updated ahead of the cursor show up in
+    // their latest state, and those behind it are missed. A product whose
+    // expiry changes mid-export can be skipped (moved from ahead of the
+    // cursor to behind it) or written twice (moved from behind to ahead).
+    public List<Product> exportPage(Product after, int limit) {
+        ensureBuilt(SecondaryIndex.SORTED);
+        lock.readLock().lock();
+        try {
+            Product position = after == null ? null : Product.expiryProbe(
+                after.getExpiryDate() != null ? after.getExpiryDate().toEpochDay() : Product.NO_EXPIRY, after.getId());
+            List<Product> page = sortedIndexes.get(ProductSorter.SortKey.EXPIRY).after(position, limit);
+            for (int i = 0; i < page.size(); i++) {
+                page.set(i, page.get(i).copy());
+            }
+            return page;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public boolean hasSortedIndex(List<ProductSorter.Order> orders) {
+        return sortedIndexFor(orders) != null;
+    }
+            
+    public int getProductCount() {
+        lock.readLock().lock();
+        try {
+            return allProducts.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    // Case-, accent- and spacing-insensitive name lookups against the
+    // maintained name index: exact match, prefix match, or distinct names
+    // for typeahead
+    public List<Product> findByName(String name, int limit) {
+        ensureBuilt(SecondaryIndex.NAME);
+        lock.readLock().lock();
+        try {
+            return productSearch.findByName(name, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public List<Product> findByNamePrefix(String prefix, int limit) {
+        ensureBuilt(SecondaryIndex.NAME);
+        lock.readLock().lock();
+        try {
+            return productSearch.findByPrefix(prefix, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public List<String> suggestNames(String prefix, int limit) {
+        ensureBuilt(SecondaryIndex.NAME);
+        lock.readLock().lock();
+        try {
+            return productSearch.suggest(prefix, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    // Ranked free-text search over name, category and supplier that
+    // tolerates partial words and typos
+    public List<InvertedIndex.Hit> searchText(String query, int limit) {
+        ensureBuilt(SecondaryIndex.TEXT);
+        lock.readLock().lock();
+        try {
+            return textIndex.search(query, limit, allProducts.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    // One page of the products matching every required attribute and none
+    // of the excluded ones, in catalog order, answered from the bitmaps
+    public ProductPage filterProducts(AttributeBitmaps.Filter filter, int offset, int limit) {
+        ensureBuilt(SecondaryIndex.ATTRIBUTES);
+        rollDayIfNeeded();
+        lock.readLock().lock();
+        try {
+            logger.debug("[⧩] Filtering products: {}", filter);
+            
+            OrdinalBitmap matches = attributeBitmaps.match(filter, allProducts.size());
+            int[] slots = matches.toArray(offset, limit);
+            List<Product> page = new ArrayList<>(slots.length);
+            for (int slot : slots) {
+                page.add(allProducts.get(slot));
+            }
+            if (logger.isDebugEnabled()) {
+                logger.debug("  ✓ {} matches from the attribute bitmaps", matches.cardinality());
+            }
+            return new ProductPage(page, matches.cardinality());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    // Products expiring between two epoch days (inclusive) with quantity
+    // below the bound, optionally in one category, earliest expiry first
+    public ProductPage findExpiringStock(long fromDay, long toDay, int belowQuantity, String category, int offset, int limit) {
+        ensureBuilt(SecondaryIndex.EXPIRY_STOCK);
+        lock.readLock().lock();
+        try {
+            if (logger.isDebugEnabled()) {
+                logger.debug("[⌛] Finding stock below {} expiring {} to {}",
+                    belowQuantity, LocalDate.ofEpochDay(fromDay), LocalDate.ofEpochDay(toDay));
+            }
+            
+            ProductPage page = expiryStockIndex.find(fromDay, toDay, belowQuantity, category, offset, limit);
+            if (logger.isDebugEnabled()) {
+                logger.debug("  ✓ {} matches from the expiry-day blocks", page.total);
+            }
+            return page;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public boolean updateQuantity(String productId, int quantity) {
+        lock.writeLock().lock();
+        try {
+            Product product = productsById.get(productId);
+            if (product == null) {
+                return false;
+            }
+            if (writeAheadLog != null) writeAheadLog.appendQuantity(productId, quantity);
+            setQuantity(product, quantity);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        
+        syncLog();
+        return true;
+    }
+    
+    public Map<String, Object> getDashboardStats() {
+        logger.debug("[📊] Generating dashboard statistics");
+        
+        rollDayIfNeeded();
+        
+        lock.readLock().lock();
+        try {
+            Map<String, Object> result = new HashMap<>();
+            result.put("totalProducts", stats.getTotal());
+            result.put("recentAdditions", recentProductsStack.size());
+            result.put("inQueue", expiryProcessingQueue.size());
+            result.put("intakeCapacity", expiryProcessingQueue.capacity());
+            result.put("intakeSpilled", expiryProcessingQueue.getSpilledCount());
+            result.put("scheduledForExpiry", expiryCalendar.size());
+            result.put("urgentCount", urgentProductsQueue.size());
+            result.put("lowStock", stats.getLowStock());
+            result.put("expiringSoon", stats.getExpiringSoon());
+            result.put("expired", stats.getExpired());
+            result.put("byPriority", stats.getByPriority());
+            result.put("filterIndexBytes", unbuilt.contains(SecondaryIndex.ATTRIBUTES) ? 0 : attributeBitmaps.sizeInBytes());
+            
+            logger.debug("  ✓ Generated stats for dashboard");
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    // Files a new product in storage and every structure except the expiry
+    // intake; caller holds the write lock
+    private void insert(Product product) {
+        store(product);
+        
+        // Add to DSA structures (all share the same instance)
+        recentProductsStack.push(product);
+        urgentProductsQueue.insert(product);
+    }
+    
+    // Storage, stats and indexes only; caller holds the write lock
+    private void store(Product product) {
+        product.slot = allProducts.size();
+        allProducts.add(product);
+        productsById.put(product.getId(), product);
+        product.captureIndexedKeys();
+        stats.add(product);
+        addToIndexes(product);
+    }
+    
+    // Re-keys the product stored under the same id, or swaps the given
+    // instance in for it; false if no product has that id. Caller holds
+    // the write lock.
+    private boolean replaceProduct(Product product) {
+        Product current = productsById.get(product.getId());
+        if (current == null) {
+            return false;
+        }
+        logPut(product);
+        
+        // Unfile under the old keys before they are recaptured
+        removeFromIndexes(current);
+        stats.remove(current);
+        product.slot = current.slot;
+        product.captureIndexedKeys();
+        stats.add(product);
+        addToIndexes(product);
+        
+        if (current != product) {
+            allProducts.set(current.slot, product);
+            productsById.put(product.getId(), product);
+            recentProductsStack.replace(current, product);
+            if (urgentProductsQueue.remove(current)) {
+                urgentProductsQueue.insert(product);
+            }
+            // The old instance may still sit in the intake ring, where it
+            // will be skipped, so the replacement goes straight on the calendar
+            expiryCalendar.unschedule(current);
+            expiryCalendar.schedule(product);
+        } else {
+            // Re-inserting a product already in the heap re-keys it in place
+            if (urgentProductsQueue.contains(product)) {
+                urgentProductsQueue.insert(product);
+            }
+            if (expiryCalendar.isScheduled(product)) {
+                expiryCalendar.schedule(product);
+            }
+        }
+        return true;
+    }
+    
+    // Only the quantity-keyed structures move: the quantity sort index, the
+    // expiry-stock index and the stats. Re-adding to the text index would
+    // bump searchGeneration and leave a stale copy of every posting behind,
+    // and the name index and attribute bitmaps don't look at quantity.
+    private void setQuantity(Product product, int quantity) {
+        boolean sorted = !unbuilt.contains(SecondaryIndex.SORTED);
+        boolean expiryStock = !unbuilt.contains(SecondaryIndex.EXPIRY_STOCK);
+        SortedProductIndex byQuantity = sortedIndexes.get(ProductSorter.SortKey.QUANTITY);
+        if (sorted) byQuantity.remove(product);
+        if (expiryStock) expiryStockIndex.remove(product);
+        stats.remove(product);
+        product.setQuantity(quantity);
+        product.captureIndexedQuantity();
+        stats.add(product);
+        if (expiryStock) expiryStockIndex.add(product);
+        if (sorted) byQuantity.add(product);
+    }
+    
+    private void logPut(Product product) {
+        if (writeAheadLog != null) writeAheadLog.appendPut(product);
+    }
+    
+    private void logRemove(String productId) {
+        if (writeAheadLog != null) writeAheadLog.appendRemove(productId);
+    }
+    
+    // Waits for the group commit covering this thread's writes; called
+    // after releasing the lock so other writers can join the same fsync
+    private void syncLog() {
+        WriteAheadLog log = writeAheadLog;
+        if (log != null) log.sync();
+    }
+    
+    // Unfiles a product (already dropped from productsById) from every other
+    // structure; caller holds the write lock
+    private void detach(Product removed) {
+        stats.remove(removed);
+        removeFromIndexes(removed);
+        
+        // Swap the last product into the freed slot so the list stays dense
+        Product last = allProducts.remove(allProducts.size() - 1);
+        if (last != removed) {
+            int from = last.slot;
+            allProducts.set(removed.slot, last);
+            last.slot = removed.slot;
+            if (!unbuilt.contains(SecondaryIndex.ATTRIBUTES)) {
+                attributeBitmaps.move(last, from);
+            }
+        }
+        removed.slot = -1;
+        
+        recentProductsStack.remove(removed);
+        urgentProductsQueue.remove(removed);
+        expiryCalendar.unschedule(removed);
+    }
+    
+    // Rolls the expiry bands in the stats and the priority bitmaps forward
+    // once per day change, under the write lock
+    private void rollDayIfNeeded() {
+        long today = clock.today();
+        if (stats.isCurrent(today) && attributeBitmaps.isCurrent(today)) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            stats.rollTo(today);
+            long from = attributeBitmaps.getDay();
+            if (today > from) {
+                if (unbuilt.contains(SecondaryIndex.ATTRIBUTES)) {
+                    // Unbuilt bitmaps are empty, and their build bands every
+                    // product against the new day
+                    attributeBitmaps.advanceTo(today);
+                } else {
+                    // Built bitmaps re-band from the expiry index
+                    build(SecondaryIndex.SORTED);
+                    attributeBitmaps.rollTo(today, sortedIndexes.get(ProductSorter.SortKey.EXPIRY).expiringBetween(from, today + 8));
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    private SortedProductIndex sortedIndexFor(List<ProductSorter.Order> orders) {
+        return orders.size() == 1 ? sortedIndexes.get(orders.get(0).key) : null;
+    }
+    
+    // Files a product in the sorted, name, text, attribute and expiry-stock
+    // indexes under its captured keys, skipping any not built yet; the
+    // attribute bitmaps also need its slot
+    private void addToIndexes(Product product) {
+        for (SecondaryIndex index : SecondaryIndex.values()) {
+            if (!unbuilt.contains(index)) addTo(index, product);
+        }
+    }
+    
+    private void removeFromIndexes(Product product) {
+        for (SecondaryIndex index : SecondaryIndex.values()) {
+            if (!unbuilt.contains(index)) removeFrom(index, product);
+        }
+    }
+    
+    private void addTo(SecondaryIndex index, Product product) {
+        switch (index) {
+            case ATTRIBUTES: attributeBitmaps.add(product); break;
+            case SORTED:
+                for (SortedProductIndex sorted : sortedIndexes.values()) {
+                    sorted.add(product);
+                }
+                break;
+            case EXPIRY_STOCK: expiryStockIndex.add(product); break;
+            case NAME: productSearch.add(product); break;
+            case TEXT: textIndex.add(product); break;
+        }
+    }
+    
+    private void removeFrom(SecondaryIndex index, Product product) {
+        switch (index) {
+            case ATTRIBUTES: attributeBitmaps.remove(product); break;
+            case SORTED:
+                for (SortedProductIndex sorted : sortedIndexes.values()) {
+                    sorted.remove(product);
+                }
+                break;
+            case EXPIRY_STOCK: expiryStockIndex.remove(product); break;
+            case NAME: productSearch.remove(product); break;
+            case TEXT: textIndex.remove(product); break;
+        }
+    }
+    
+    // Builds an index left unbuilt by restoreAll before a query reads it.
+    // Building holds the read lock, so other queries keep running and only
+    // writers wait.
+    private void ensureBuilt(SecondaryIndex index) {
+        if (!unbuilt.contains(index)) return;
+        lock.readLock().lock();
+        try {
+            build(index);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    // Files every product in the index if it is still unbuilt; caller holds
+    // the read or write lock
+    private void build(SecondaryIndex index) {
+        synchronized (buildLock) {
+            if (!unbuilt.contains(index)) return;
+            long started = System.nanoTime();
+            for (int i = 0; i < allProducts.size(); i++) {
+                addTo(index, allProducts.get(i));
+            }
+            unbuilt.remove(index);
+            logger.info("  ✓ Built {} index for {} products in {} ms", index.name().toLowerCase(Locale.ROOT).replace('_', ' '),
+                allProducts.size(), (System.nanoTime() - started) / 1_000_000);
+        }
+    }
+    
+    // Hands a newly added product to the intake ring without holding the
+    // lock. A full ring is handled per the queue's overflow policy: BLOCK
+    // takes the write lock to drain it and retries, REJECT backs the add out
+    // (SPILL never reports full).
+    private void enqueueForExpiry(Product product) {
+        while (!expiryProcessingQueue.enqueue(product)) {
+            lock.writeLock().lock();
+            try {
+                if (expiryProcessingQueue.getOverflowPolicy() == ExpiryQueue.OverflowPolicy.REJECT) {
+                    if (productsById.get(product.getId()) == product) {
+                        logRemove(product.getId());
+                        productsById.remove(product.getId());
+                        detach(product);
+                    }
+                    throw new ExpiryQueue.QueueFullException("Expiry intake queue is full, retry after the next expiry pass");
+                }
+                drainExpiryIntake();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+    
+    // Moves everything waiting in the intake queue onto the expiry calendar,
+    // skipping products removed or replaced since they were queued; caller
+    // holds the write lock, which makes it the ring's only consumer
+    private void drainExpiryIntake() {
+        Product next;
+        while ((next = expiryProcessingQueue.dequeue()) != null) {
+            if (next.slot >= 0 && next.slot < allProducts.size() && allProducts.get(next.slot) == next && !expiryCalendar.isScheduled(next)) {
+                expiryCalendar.schedule(next);
+            }
+        }
+    }
+    
+    // Loads the catalog into a pooled workspace list, to be handed back with
+    // workspace.release(); only references are copied, and the backing array
+    // is reused once it has grown
+    private List<Product> fillWorkspace() {
+        List<Product> list = workspace.acquire();
+        for (int i = 0; i < allProducts.size(); i++) {
+            list.add(allProducts.get(i));
+        }
+        return list;
+    }
 }
\ No newline at end of file
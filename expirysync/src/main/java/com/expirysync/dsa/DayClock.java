@@ -0,0 +1,51 @@
+package com.expirysync.dsa;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+// Caches today's epoch day and only asks the calendar again once midnight
+// has passed, so hot paths pay a currentTimeMillis() read instead of a
+// LocalDate.now() allocation and zone lookup.
+public class DayClock {
+    private static final DayClock SYSTEM = new DayClock();
+    
+    private final Clock clock;
+    private volatile long today;
+    private volatile long nextMidnightMillis;
+    
+    public DayClock() {
+        this(Clock.systemDefaultZone());
+    }
+    
+    public DayClock(Clock clock) {
+        this.clock = clock;
+        refresh(clock.millis());
+    }
+    
+    // Shared system-zone clock used wherever no clock is passed in
+    public static DayClock system() {
+        return SYSTEM;
+    }
+    
+    public long today() {
+        long now = clock.millis();
+        if (now >= nextMidnightMillis) {
+            refresh(now);
+        }
+        return today;
+    }
+    
+    public LocalDate todayDate() {
+        return LocalDate.ofEpochDay(today());
+    }
+    
+    private synchronized void refresh(long now) {
+        if (now < nextMidnightMillis) return;
+        ZoneId zone = clock.getZone();
+        LocalDate date = Instant.ofEpochMilli(now).atZone(zone).toLocalDate();
+        today = date.toEpochDay();
+        nextMidnightMillis = date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+    }
+}
\ No newline at end of file
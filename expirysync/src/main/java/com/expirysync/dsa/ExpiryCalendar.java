@@ -0,0 +1,174 @@
+package com.expirysync.dsa;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Calendar queue of products keyed by expiry epoch day. A wheel of
+// WHEEL_DAYS buckets covers [cursorDay, cursorDay + WHEEL_DAYS); further
+// days wait in an overflow map and cascade into the wheel as the cursor
+// advances. Products are linked into their bucket through their own
+// calendar fields, so scheduling and removal are O(1) and popping
+// everything due by a day costs O(items returned + days advanced).
+public class ExpiryCalendar {
+    static final int WHEEL_DAYS = 512;
+    private static final int MASK = WHEEL_DAYS - 1;
+    
+    private final Bucket[] wheel = new Bucket[WHEEL_DAYS];
+    private final TreeMap<Long, Bucket> overflow = new TreeMap<>();
+    // Products scheduled for a day the cursor has already passed
+    private final TreeMap<Long, Bucket> overdue = new TreeMap<>();
+    private long cursorDay;
+    private int wheelCount;
+    private int size;
+    
+    public ExpiryCalendar(long startDay) {
+        this.cursorDay = startDay;
+    }
+    
+    public void schedule(Product product) {
+        if (product.calendarBucket != null) {
+            unschedule(product);
+        }
+        long day = product.indexedExpiryDay;
+        Bucket bucket;
+        if (day == Product.NO_EXPIRY) {
+            return;
+        } else if (day < cursorDay) {
+            bucket = overdue.computeIfAbsent(day, Bucket::new);
+        } else if (day < cursorDay + WHEEL_DAYS) {
+            int slot = (int) (day & MASK);
+            if (wheel[slot] == null) wheel[slot] = new Bucket(day);
+            wheel[slot].day = day;
+            bucket = wheel[slot];
+            wheelCount++;
+        } else {
+            bucket = overflow.computeIfAbsent(day, Bucket::new);
+        }
+        bucket.push(product);
+        size++;
+    }
+    
+    public boolean unschedule(Product product) {
+        Bucket bucket = product.calendarBucket;
+        if (bucket == null) return false;
+        bucket.unlink(product);
+        size--;
+        // Occupied wheel days never fall behind the cursor or past its horizon,
+        // so the day alone says which part of the calendar holds the bucket
+        if (bucket.day < cursorDay) {
+            if (bucket.head == null) overdue.remove(bucket.day);
+        } else if (bucket.day >= cursorDay + WHEEL_DAYS) {
+            if (bucket.head == null) overflow.remove(bucket.day);
+        } else {
+            wheelCount--;
+        }
+        return true;
+    }
+    
+    public boolean isScheduled(Product product) {
+        return product.calendarBucket != null;
+    }
+    
+    // Pops up to limit products expiring on or before lastDay, earliest first
+    public List<Product> pollDue(long lastDay, int limit) {
+        List<Product> due = new ArrayList<>();
+        while (due.size() < limit && !overdue.isEmpty() && overdue.firstKey() <= lastDay) {
+            Bucket bucket = overdue.firstEntry().getValue();
+            while (due.size() < limit && bucket.head != null) {
+                due.add(take(bucket));
+            }
+            if (bucket.head == null) overdue.remove(bucket.day);
+        }
+        while (due.size() < limit && cursorDay <= lastDay) {
+            Bucket bucket = wheel[(int) (cursorDay & MASK)];
+            if (bucket != null && bucket.day == cursorDay && bucket.head != null) {
+                while (due.size() < limit && bucket.head != null) {
+                    due.add(take(bucket));
+                    wheelCount--;
+                }
+                if (bucket.head != null) break;
+            }
+            advance(lastDay);
+        }
+        return due;
+    }
+    
+    public Product peekEarliest() {
+        if (!overdue.isEmpty()) return overdue.firstEntry().getValue().head;
+        if (wheelCount > 0) {
+            for (long day = cursorDay; day < cursorDay + WHEEL_DAYS; day++) {
+                Bucket bucket = wheel[(int) (day & MASK)];
+                if (bucket != null && bucket.day == day && bucket.head != null) return bucket.head;
+            }
+        }
+        Map.Entry<Long, Bucket> first = overflow.firstEntry();
+        return first != null ? first.getValue().head : null;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    // Moves the cursor forward one day (or straight to the next occupied day
+    // when the wheel is empty) and cascades newly covered overflow days in
+    private void advance(long lastDay) {
+        if (wheelCount == 0) {
+            Long next = overflow.isEmpty() ? null : overflow.firstKey();
+            long target = next != null ? Math.min(next, lastDay + 1) : lastDay + 1;
+            cursorDay = Math.max(cursorDay + 1, target);
+        } else {
+            cursorDay++;
+        }
+        long horizon = cursorDay + WHEEL_DAYS;
+        while (!overflow.isEmpty() && overflow.firstKey() < horizon) {
+            // The slot's previous day is behind the cursor, so it is already empty
+            Bucket moved = overflow.pollFirstEntry().getValue();
+            wheel[(int) (moved.day & MASK)] = moved;
+            wheelCount += moved.size;
+        }
+    }
+    
+    private Product take(Bucket bucket) {
+        Product product = bucket.head;
+        bucket.unlink(product);
+        size--;
+        return product;
+    }
+    
+    // Intrusive doubly linked list of the products due on one day
+    static class Bucket {
+        private long day;
+        private Product head;
+        private int size;
+        
+        Bucket(long day) {
+            this.day = day;
+        }
+        
+        void push(Product product) {
+            product.calendarBucket = this;
+            product.calendarPrev = null;
+            product.calendarNext = head;
+            if (head != null) head.calendarPrev = product;
+            head = product;
+            size++;
+        }
+        
+        void unlink(Product product) {
+            if (product.calendarPrev != null) {
+                product.calendarPrev.calendarNext = product.calendarNext;
+            } else {
+                head = product.calendarNext;
+            }
+            if (product.calendarNext != null) {
+                product.calendarNext.calendarPrev = product.calendarPrev;
+            }
+            product.calendarBucket = null;
+            product.calendarPrev = null;
+            product.calendarNext = null;
+            size--;
+        }
+    }
+}
\ No newline at end of file
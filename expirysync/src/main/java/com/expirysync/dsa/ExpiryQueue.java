@@ -1,80 +1,118 @@
-package com.expirysync.dsa;
-
-import java.time.LocalDate;
-import java.util.LinkedList;
-import java.util.Queue;
-
-public class ExpiryQueue {
-    private Queue<Product> queue;
-    private int capacity;
-    
-    public ExpiryQueue(int capacity) {
-        this.queue = new LinkedList<>();
-        this.capacity = capacity;
-    }
-    
-    public void enqueue(Product product) {
-        if (queue.size() >= capacity) {
-            System.out.println("  Queue full, cannot enqueue");
-            return;
-        }
-        queue.offer(product);
-        System.out.println("  Enqueued: " + product.getName());
-    }
-    
-    public Product dequeue() {
-        if (isEmpty()) {
-            System.out.println("  Queue empty");
-            return null;
-        }
-        Product p = queue.poll();
-        System.out.println("  Dequeued: " + (p != null ? p.getName() : "null"));
-        return p;
-    }
-    
-    public Product peek() {
-        return queue.peek();
-    }
-    
-    public boolean isEmpty() {
-        return queue.isEmpty();
-    }
-    
-    public int size() {
-        return queue.size();
-    }
-    
-    // Product class for queue
-    public static class Product {
-        private String id;
-        private String name;
-        private String category;
-        private int quantity;
-        private LocalDate expiryDate;
-        private double price;
-        
-        // Getters and Setters
-        public String getId() { return id; }
-        public void setId(String id) { this.id = id; }
-        
-        public String getName() { return name; }
-        public void setName(String name) { this.name = name; }
-        
-        public String getCategory() { return category; }
-        public void setCategory(String category) { this.category = category; }
-        
-        public int getQuantity() { return quantity; }
-        public void setQuantity(int quantity) { this.quantity = quantity; }
-        
-        public LocalDate getExpiryDate() { return expiryDate; }
-        public void setExpiryDate(LocalDate expiryDate) { this.expiryDate = expiryDate; }
-        
-        public double getPrice() { return price; }
-        public void setPrice(double price) { this.price = price; }
-        
-        @Override
-        public String toString() {
-            return name;
-        }
-    }
+package com.expirysync.dsa;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Bounded FIFO ring buffer: many producers enqueue without locks (a CAS on
+// the tail claims a slot, a per-slot sequence number publishes it) and a
+// single consumer dequeues. DSAOperations only dequeues while holding its
+// write lock, which is what makes the consumer single.
+//
+// What happens when the ring is full is set by the OverflowPolicy:
+//   BLOCK  - enqueue() returns false and the producer must make room
+//            (DSAOperations drains the queue itself and retries)
+//   REJECT - enqueue() returns false and the caller is told to retry later
+//   SPILL  - the product goes to an unbounded lock-free overflow list that
+//            the consumer empties after the ring
+// Nothing is ever dropped silently.
+public class ExpiryQueue {
+    public enum OverflowPolicy { BLOCK, REJECT, SPILL }
+    
+    private final Product[] buffer;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+    private final OverflowPolicy policy;
+    private final ConcurrentLinkedQueue<Product> spill = new ConcurrentLinkedQueue<>();
+    private final AtomicLong spilled = new AtomicLong();
+    
+    public ExpiryQueue(int capacity) {
+        this(capacity, OverflowPolicy.BLOCK);
+    }
+    
+    public ExpiryQueue(int capacity, OverflowPolicy policy) {
+        // Round up to a power of two so slots can be found with a mask
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.buffer = new Product[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        this.mask = size - 1;
+        this.policy = policy;
+    }
+    
+    // Safe to call from any number of threads at once
+    public boolean enqueue(Product product) {
+        long pos = tail.get();
+        while (true) {
+            int index = (int) (pos & mask);
+            long diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    buffer[index] = product;
+                    sequences.lazySet(index, pos + 1);
+                    return true;
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                // Slot still holds an item from the previous lap: ring is full
+                if (policy == OverflowPolicy.SPILL) {
+                    spill.offer(product);
+                    spilled.incrementAndGet();
+                    return true;
+                }
+                return false;
+            } else {
+                pos = tail.get();
+            }
+        }
+    }
+    
+    // Single consumer only
+    public Product dequeue() {
+        long pos = head;
+        int index = (int) (pos & mask);
+        if (sequences.get(index) == pos + 1) {
+            Product p = buffer[index];
+            buffer[index] = null;
+            sequences.lazySet(index, pos + buffer.length);
+            head = pos + 1;
+            return p;
+        }
+        return spill.poll();
+    }
+    
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+    
+    // Approximate while producers are active
+    public int size() {
+        long ringSize = Math.max(0, tail.get() - head);
+        return (int) Math.min(Integer.MAX_VALUE, ringSize + spill.size());
+    }
+    
+    public int capacity() {
+        return buffer.length;
+    }
+    
+    public OverflowPolicy getOverflowPolicy() {
+        return policy;
+    }
+        
+    public long getSpilledCount() {
+        return spilled.get();
+    }
+    
+    // Thrown to API callers when a REJECT queue is full
+    public static class QueueFullException extends IllegalStateException {
+        private static final long serialVersionUID = 1L;
+        
+        public QueueFullException(String message) {
+            super(message);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,91 @@
+package com.expirysync.dsa;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+// Two-dimensional index for "expiring between two days with quantity below
+// N" (optionally within one category). Products are grouped into one block
+// per expiry day, each ordered by quantity, so a query walks only the days
+// in its window: a block whose largest quantity is below N counts in O(1)
+// and one whose smallest is not below N is skipped, leaving just the
+// straddling blocks to be walked. Blocks are kept for the whole catalog and
+// per category. Undated products are not indexed. Not thread-safe:
+// DSAOperations calls it under its lock.
+public class ExpiryStockIndex {
+    private static final Comparator<Product> BY_QUANTITY =
+        Comparator.<Product>comparingInt(p -> p.indexedQuantity).thenComparing(Product::getId);
+    
+    private final TreeMap<Long, NavigableSet<Product>> byDay = new TreeMap<>();
+    private final Map<String, TreeMap<Long, NavigableSet<Product>>> byCategoryDay = new HashMap<>();
+    
+    public void add(Product product) {
+        if (product.indexedExpiryDay == Product.NO_EXPIRY) return;
+        block(byDay, product.indexedExpiryDay).add(product);
+        block(byCategoryDay.computeIfAbsent(product.indexedCategory, k -> new TreeMap<>()), product.indexedExpiryDay).add(product);
+    }
+    
+    public void remove(Product product) {
+        if (product.indexedExpiryDay == Product.NO_EXPIRY) return;
+        unfile(byDay, product);
+        TreeMap<Long, NavigableSet<Product>> days = byCategoryDay.get(product.indexedCategory);
+        if (days != null) {
+            unfile(days, product);
+            if (days.isEmpty()) byCategoryDay.remove(product.indexedCategory);
+        }
+    }
+    
+    // Products expiring in [fromDay, toDay] with quantity below the given
+    // bound, earliest expiry then lowest quantity first; category may be null
+    public ProductPage find(long fromDay, long toDay, int belowQuantity, String category, int offset, int limit) {
+        List<Product> page = new ArrayList<>(Math.min(limit, 1024));
+        int total = 0;
+        for (NavigableSet<Product> block : window(fromDay, toDay, category).values()) {
+            if (block.first().indexedQuantity >= belowQuantity) continue;
+            NavigableSet<Product> matches = block.last().indexedQuantity < belowQuantity
+                ? block
+                : block.headSet(Product.quantityProbe(belowQuantity), false);
+            int count = matches.size();
+            if (page.size() < limit && total + count > offset) {
+                int skip = Math.max(0, offset - total);
+                for (Product p : matches) {
+                    if (skip > 0) {
+                        skip--;
+                        continue;
+                    }
+                    if (page.size() >= limit) break;
+                    page.add(p);
+                }
+            }
+            total += count;
+        }
+        return new ProductPage(page, total);
+    }
+    
+    private NavigableMap<Long, NavigableSet<Product>> window(long fromDay, long toDay, String category) {
+        TreeMap<Long, NavigableSet<Product>> days = byDay;
+        if (category != null) {
+            days = byCategoryDay.get(ProductSearch.normalize(category));
+            if (days == null) return new TreeMap<>();
+        }
+        if (fromDay > toDay) return new TreeMap<>();
+        return days.subMap(fromDay, true, toDay, true);
+    }
+    
+    private static NavigableSet<Product> block(TreeMap<Long, NavigableSet<Product>> days, long day) {
+        return days.computeIfAbsent(day, k -> new TreeSet<>(BY_QUANTITY));
+    }
+    
+    private static void unfile(TreeMap<Long, NavigableSet<Product>> days, Product product) {
+        NavigableSet<Product> block = days.get(product.indexedExpiryDay);
+        if (block == null) return;
+        block.remove(product);
+        if (block.isEmpty()) days.remove(product.indexedExpiryDay);
+    }
+}
\ No newline at end of file
@@ -1,95 +1,117 @@
-package com.expirysync.dsa;
-
-import java.time.LocalDate;
-import java.util.Stack;
-
-public class InventoryStack {
-    private Stack<Product> stack;
-    private int capacity;
-    
-    public InventoryStack(int capacity) {
-        this.stack = new Stack<>();
-        this.capacity = capacity;
-    }
-    
-    public void push(Product product) {
-        if (stack.size() >= capacity) {
-            System.out.println("  Stack full, removing oldest");
-            removeOldest();
-        }
-        stack.push(product);
-        System.out.println("  Pushed to stack: " + product.getName());
-    }
-    
-    public Product pop() {
-        if (isEmpty()) {
-            System.out.println("  Stack empty");
-            return null;
-        }
-        Product p = stack.pop();
-        System.out.println("  Popped from stack: " + p.getName());
-        return p;
-    }
-    
-    public Product peek() {
-        if (isEmpty()) return null;
-        return stack.peek();
-    }
-    
-    public boolean isEmpty() {
-        return stack.isEmpty();
-    }
-    
-    public int size() {
-        return stack.size();
-    }
-    
-    private void removeOldest() {
-        if (!stack.isEmpty()) {
-            Stack<Product> temp = new Stack<>();
-            while (stack.size() > 1) {
-                temp.push(stack.pop());
-            }
-            Product removed = stack.pop();
-            System.out.println("  Removed oldest: " + removed.getName());
-            
-            while (!temp.isEmpty()) {
-                stack.push(temp.pop());
-            }
-        }
-    }
-    
-    // Product class for stack
-    public static class Product {
-        private String id;
-        private String name;
-        private String category;
-        private int quantity;
-        private LocalDate expiryDate;
-        private double price;
-        
-        // Getters and Setters
-        public String getId() { return id; }
-        public void setId(String id) { this.id = id; }
-        
-        public String getName() { return name; }
-        public void setName(String name) { this.name = name; }
-        
-        public String getCategory() { return category; }
-        public void setCategory(String category) { this.category = category; }
-        
-        public int getQuantity() { return quantity; }
-        public void setQuantity(int quantity) { this.quantity = quantity; }
-        
-        public LocalDate getExpiryDate() { return expiryDate; }
-        public void setExpiryDate(LocalDate expiryDate) { this.expiryDate = expiryDate; }
-        
-        public double getPrice() { return price; }
-        public void setPrice(double price) { this.price = price; }
-        
-        @Override
-        public String toString() {
-            return name;
-        }
-    }
+package com.expirysync.dsa;
+
+import com.expirysync.log.Log;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Bounded recent-history stack on a circular array. Push writes the slot
+// after the newest one; once the ring is full that slot holds the oldest
+// entry, so eviction is just the overwrite. Each product remembers the push
+// sequence it was stored under (Product.recentSeq), which makes removal by
+// product O(1): the slot is cleared and skipped from then on. The stack
+// therefore holds the survivors of the last `capacity` pushes; a removal
+// leaves a hole rather than keeping an older entry alive.
+//
+// Mutators are called under the DSAOperations write lock (a single writer).
+// snapshot() takes no lock: slots are read through the atomic array after
+// the volatile push count, and a read that the writer may have lapped in
+// the meantime is discarded.
+public class InventoryStack {
+    private static final Log logger = Log.get(InventoryStack.class);
+    
+    private final AtomicReferenceArray<Product> slots;
+    private final int capacity;
+    private volatile long pushed;
+    private volatile int size;
+    
+    public InventoryStack(int capacity) {
+        this.capacity = Math.max(1, capacity);
+        this.slots = new AtomicReferenceArray<>(this.capacity);
+    }
+    
+    public void push(Product product) {
+        remove(product);
+        long seq = pushed;
+        int index = (int) (seq % capacity);
+        Product oldest = slots.get(index);
+        if (oldest != null) {
+            oldest.recentSeq = -1;
+            logger.trace("  Stack full, removed oldest: {}", oldest.getName());
+        } else {
+            size++;
+        }
+        product.recentSeq = seq;
+        slots.set(index, product);
+        pushed = seq + 1;
+        logger.trace("  Pushed to stack: {}", product.getName());
+    }
+    
+    public Product pop() {
+        while (pushed > 0) {
+            long seq = pushed - 1;
+            Product p = slots.getAndSet((int) (seq % capacity), null);
+            pushed = seq;
+            if (p != null) {
+                p.recentSeq = -1;
+                size--;
+                logger.trace("  Popped from stack: {}", p.getName());
+                return p;
+            }
+        }
+        logger.trace("  Stack empty");
+        return null;
+    }
+    
+    public Product peek() {
+        List<Product> newest = snapshot(1);
+        return newest.isEmpty() ? null : newest.get(0);
+    }
+    
+    public boolean remove(Product product) {
+        if (!holds(product)) return false;
+        slots.set((int) (product.recentSeq % capacity), null);
+        product.recentSeq = -1;
+        size--;
+        return true;
+    }
+    
+    // Swaps a new instance of a product into the old one's place
+    public boolean replace(Product current, Product replacement) {
+        if (!holds(current)) return false;
+        replacement.recentSeq = current.recentSeq;
+        slots.set((int) (current.recentSeq % capacity), replacement);
+        current.recentSeq = -1;
+        return true;
+    }
+    
+    // Up to limit products, newest first; safe to call without any lock
+    public List<Product> snapshot(int limit) {
+        List<Product> result = new ArrayList<>(Math.min(limit, capacity));
+        long newest = pushed;
+        long oldest = Math.max(0, newest - capacity);
+        for (long seq = newest - 1; seq >= oldest && result.size() < limit; seq--) {
+            Product p = slots.get((int) (seq % capacity));
+            if (pushed - seq > capacity) break;  // slot reused by a newer push
+            if (p != null) result.add(p);
+        }
+        return result;
+    }
+    
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public int capacity() {
+        return capacity;
+    }
+    
+    private boolean holds(Product product) {
+        long seq = product.recentSeq;
+        return seq >= 0 && slots.get((int) (seq % capacity)) == product;
+    }
 }
\ No newline at end of file
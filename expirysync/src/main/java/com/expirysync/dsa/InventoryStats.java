@@ -0,0 +1,126 @@
+package com.expirysync.dsa;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Dashboard counters kept up to date on every add/remove/update instead of
+// rescanning the catalog. Expiry bands are relative to "today", so a per-day
+// histogram lets rollTo() move just the products whose band changed when the
+// date advances. Not thread-safe: DSAOperations calls it under its lock.
+public class InventoryStats {
+    public static final int LOW_STOCK_THRESHOLD = 10;
+    public static final int EXPIRING_SOON_DAYS = 7;
+    
+    // Bands match Product's priority levels: days until expiry < 0, 0-3, 4-7, > 7
+    private static final int EXPIRED = 0;
+    private static final int CRITICAL = 1;
+    private static final int URGENT = 2;
+    private static final int NORMAL = 3;
+    
+    private final Map<Long, Integer> countByDay = new HashMap<>();
+    private final int[] byPriority = new int[4];
+    private long today;
+    private int total;
+    private int lowStock;
+    private int expiringSoon;
+    private int noExpiry;
+    
+    public InventoryStats(long today) {
+        this.today = today;
+    }
+    
+    public void add(Product product) {
+        total++;
+        if (product.indexedQuantity < LOW_STOCK_THRESHOLD) lowStock++;
+        
+        long day = product.indexedExpiryDay;
+        if (day == Product.NO_EXPIRY) {
+            noExpiry++;
+            byPriority[NORMAL]++;
+            return;
+        }
+        countByDay.merge(day, 1, Integer::sum);
+        byPriority[band(day)]++;
+        if (day < today + EXPIRING_SOON_DAYS) expiringSoon++;
+    }
+    
+    public void remove(Product product) {
+        total--;
+        if (product.indexedQuantity < LOW_STOCK_THRESHOLD) lowStock--;
+        
+        long day = product.indexedExpiryDay;
+        if (day == Product.NO_EXPIRY) {
+            noExpiry--;
+            byPriority[NORMAL]--;
+            return;
+        }
+        countByDay.computeIfPresent(day, (d, count) -> count > 1 ? count - 1 : null);
+        byPriority[band(day)]--;
+        if (day < today + EXPIRING_SOON_DAYS) expiringSoon--;
+    }
+    
+    public boolean isCurrent(long day) {
+        return day == today;
+    }
+    
+    // Advances the bands to a new day. Each day crossed moves only the
+    // products on the band boundaries, so this is O(days crossed).
+    public void rollTo(long newToday) {
+        if (newToday <= today) return;
+        if (newToday - today > countByDay.size()) {
+            recompute(newToday);
+            return;
+        }
+        while (today < newToday) {
+            int leavingCritical = count(today);
+            int leavingUrgent = count(today + 4);
+            int leavingNormal = count(today + 8);
+            byPriority[CRITICAL] -= leavingCritical;
+            byPriority[EXPIRED] += leavingCritical;
+            byPriority[URGENT] -= leavingUrgent;
+            byPriority[CRITICAL] += leavingUrgent;
+            byPriority[NORMAL] -= leavingNormal;
+            byPriority[URGENT] += leavingNormal;
+            expiringSoon += count(today + EXPIRING_SOON_DAYS);
+            today++;
+        }
+    }
+    
+    public int getTotal() { return total; }
+    public int getLowStock() { return lowStock; }
+    public int getExpiringSoon() { return expiringSoon; }
+    public int getExpired() { return byPriority[EXPIRED]; }
+    
+    public Map<String, Integer> getByPriority() {
+        Map<String, Integer> result = new LinkedHashMap<>();
+        result.put("expired", byPriority[EXPIRED]);
+        result.put("critical", byPriority[CRITICAL]);
+        result.put("urgent", byPriority[URGENT]);
+        result.put("normal", byPriority[NORMAL]);
+        return result;
+    }
+    
+    private void recompute(long newToday) {
+        today = newToday;
+        Arrays.fill(byPriority, 0);
+        expiringSoon = 0;
+        for (Map.Entry<Long, Integer> entry : countByDay.entrySet()) {
+            long day = entry.getKey();
+            int count = entry.getValue();
+            byPriority[band(day)] += count;
+            if (day < today + EXPIRING_SOON_DAYS) expiringSoon += count;
+        }
+        byPriority[NORMAL] += noExpiry;
+    }
+    
+    private int band(long day) {
+        return Product.priorityFor(day, today);
+    }
+    
+    private int count(long day) {
+        Integer count = countByDay.get(day);
+        return count != null ? count : 0;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,152 @@
+package com.expirysync.dsa;
+
+import com.expirysync.log.Log;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Keeps the catalog across restarts in one data directory: a compacted
+// snapshot (snapshot-<seq>.snap, the whole catalog as of log sequence seq)
+// plus the write-ahead log segments written since. Opening maps the newest
+// snapshot (SnapshotFile) straight into storage and queues, replays the log
+// on top and leaves the secondary indexes to a warm-up thread, so requests
+// are served while they build; after that each write is logged. Once
+// enough records pile up a checkpoint writes a new snapshot and deletes
+// the log segments it covers.
+public class InventoryStore implements AutoCloseable {
+    private static final Log logger = Log.get(InventoryStore.class);
+    
+    private final DSAOperations operations;
+    private final Path dir;
+    private final WriteAheadLog log;
+    private final ScheduledExecutorService checkpointer;
+    
+    private InventoryStore(DSAOperations operations, Path dir, WriteAheadLog log, long snapshotEvery) {
+        this.operations = operations;
+        this.dir = dir;
+        this.log = log;
+        this.checkpointer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "inventory-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        checkpointer.scheduleWithFixedDelay(() -> {
+            if (log.getRecordsSinceRoll() >= snapshotEvery) {
+                try {
+                    checkpoint();
+                } catch (IOException e) {
+                    logger.error("Checkpoint failed: {}", e.getMessage());
+                } catch (RuntimeException e) {
+                    // Escaping the task would cancel every later checkpoint
+                    logger.error("Checkpoint failed", e);
+                }
+            }
+        }, 5, 5, TimeUnit.SECONDS);
+    }
+    
+    // Recovers the catalog from dir into operations (which must be empty)
+    // and starts logging its writes there
+    public static InventoryStore open(DSAOperations operations, Path dir, long snapshotEvery) throws IOException {
+        long started = System.nanoTime();
+        Files.createDirectories(dir);
+        
+        Path snapshot = latestSnapshot(dir);
+        long snapshotSeq = snapshot != null ? readSnapshot(snapshot, operations) : 0;
+        int[] replayed = new int[1];
+        long lastSeq = WriteAheadLog.replay(dir, snapshotSeq, new WriteAheadLog.Visitor() {
+            @Override
+            public void put(Product product) {
+                operations.restorePut(product);
+                replayed[0]++;
+            }
+            
+            @Override
+            public void remove(String id) {
+                operations.restoreRemove(id);
+                replayed[0]++;
+            }
+            
+            @Override
+            public void quantity(String id, int quantity) {
+                operations.restoreQuantity(id, quantity);
+                replayed[0]++;
+            }
+        });
+        
+        WriteAheadLog log = new WriteAheadLog(dir, lastSeq);
+        operations.attachLog(log);
+        InventoryStore store = new InventoryStore(operations, dir, log, snapshotEvery);
+        logger.info("Recovered {} products from {} (snapshot at seq {}, {} log records replayed) in {} ms",
+            operations.getProductCount(), dir, snapshotSeq, replayed[0], (System.nanoTime() - started) / 1_000_000);
+        
+        Thread warmUp = new Thread(operations::warmUp, "index-warmup");
+        warmUp.setDaemon(true);
+        warmUp.start();
+        
+        // Fold the replayed records into a fresh snapshot so the next
+        // startup does not replay them again
+        if (replayed[0] > 0) {
+            store.checkpoint();
+        }
+        return store;
+    }
+    
+    // Writes a snapshot of the current catalog and drops the log it covers
+    public synchronized void checkpoint() throws IOException {
+        long started = System.nanoTime();
+        List<Product> products = new ArrayList<>();
+        long seq = operations.checkpoint(products);
+        long firstLiveSegment = log.getSegment();
+        
+        Path target = dir.resolve(String.format("snapshot-%020d.snap", seq));
+        Path temp = dir.resolve(target.getFileName() + ".tmp");
+        SnapshotFile.write(temp, seq, products);
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        
+        // Only now that the snapshot is durable can what it replaces go
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path path : (Iterable<Path>) files::iterator) {
+                String name = path.getFileName().toString();
+                if (name.startsWith("snapshot-") && !path.equals(target)) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        }
+        log.deleteSegmentsBefore(firstLiveSegment);
+        logger.info("Checkpoint: {} products at seq {} in {} ms",
+            products.size(), seq, (System.nanoTime() - started) / 1_000_000);
+    }
+    
+    // Stops checkpointing and flushes the log; safe to call from a shutdown hook
+    @Override
+    public void close() {
+        checkpointer.shutdownNow();
+        try {
+            log.close();
+        } catch (IOException e) {
+            logger.error("Closing the write-ahead log failed: {}", e.getMessage());
+        }
+    }
+    
+    private static Path latestSnapshot(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> p.getFileName().toString().matches("snapshot-\\d{20}\\.snap"))
+                .max(Path::compareTo)
+                .orElse(null);
+        }
+    }
+    
+    // Loads a snapshot into operations and returns the log sequence it covers
+    private static long readSnapshot(Path path, DSAOperations operations) throws IOException {
+        SnapshotFile.Contents contents = SnapshotFile.read(path);
+        operations.restoreAll(contents.products);
+        return contents.seq;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,432 @@
+package com.expirysync.dsa;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+
+// Full-text index over name, category and supplier. Each normalized word
+// (term) maps to a postings array of the products containing it, and each
+// term's character trigrams map back to the term, so a query word is
+// expanded to the exact term, terms it prefixes ("choc" -> "chocolate") and
+// terms within one or two typos ("orgnic" -> "organic") before the postings
+// are scored. Results are ranked by how many query words matched, then by
+// the summed weight of the best field and expansion per word.
+//
+// Postings are appended on add and never searched on remove: removing a
+// product bumps Product.searchGeneration, which turns its entries stale,
+// and a term's array is compacted once half of it is stale. Scoring uses
+// dense per-slot arrays (Product.slot). Query words are scored rarest
+// first, and a word whose postings exceed POSTINGS_BUDGET is only checked
+// against products already found by rarer words, so latency stays bounded
+// however common a word is ("ltd", a category name).
+// Not thread-safe for writes: DSAOperations calls it under its lock.
+public class InvertedIndex {
+    static final int NAME = 1;
+    static final int CATEGORY = 2;
+    static final int SUPPLIER = 4;
+    
+    private static final int MAX_QUERY_TERMS = 8;
+    private static final int MAX_PREFIX_EXPANSIONS = 32;
+    private static final int MAX_FUZZY_CANDIDATES = 64;
+    static final int POSTINGS_BUDGET = 50_000;
+    private static final float EXACT_WEIGHT = 1.0f;
+    private static final float PREFIX_WEIGHT = 0.7f;
+    private static final float ONE_TYPO_WEIGHT = 0.5f;
+    private static final float TWO_TYPO_WEIGHT = 0.3f;
+    
+    private final TreeMap<String, Postings> dictionary = new TreeMap<>();
+    private final Map<String, Set<String>> termsByTrigram = new HashMap<>();
+    
+    // Scoring arrays indexed by product slot, reused across queries; each
+    // search cleans the slots it touched before handing them back
+    private final ScratchPool<Scores> scratch = new ScratchPool<>(Scores::new, s -> { });
+    
+    public static class Hit {
+        public final Product product;
+        public final float score;
+        public final int matchedTerms;
+        
+        Hit(Product product, float score, int matchedTerms) {
+            this.product = product;
+            this.score = score;
+            this.matchedTerms = matchedTerms;
+        }
+    }
+    
+    public void add(Product product) {
+        Map<String, Integer> fields = new LinkedHashMap<>();
+        collectTerms(product.indexedName, NAME, fields);
+        collectTerms(product.indexedCategory, CATEGORY, fields);
+        collectTerms(product.indexedSupplier, SUPPLIER, fields);
+        int generation = product.searchGeneration;
+        for (Map.Entry<String, Integer> entry : fields.entrySet()) {
+            Postings postings = dictionary.get(entry.getKey());
+            if (postings == null) {
+                postings = new Postings();
+                dictionary.put(entry.getKey(), postings);
+                for (String trigram : trigrams(entry.getKey())) {
+                    termsByTrigram.computeIfAbsent(trigram, k -> new HashSet<>()).add(entry.getKey());
+                }
+            }
+            postings.add(product, generation, entry.getValue());
+        }
+    }
+    
+    public void remove(Product product) {
+        // Stale from here on; terms are only visited to account for it
+        product.searchGeneration++;
+        Map<String, Integer> fields = new LinkedHashMap<>();
+        collectTerms(product.indexedName, NAME, fields);
+        collectTerms(product.indexedCategory, CATEGORY, fields);
+        collectTerms(product.indexedSupplier, SUPPLIER, fields);
+        for (String term : fields.keySet()) {
+            Postings postings = dictionary.get(term);
+            if (postings == null) continue;
+            postings.stale++;
+            if ((postings.stale >= 16 && postings.stale * 2 > postings.size) || postings.stale == postings.size) {
+                postings.compact();
+                if (postings.size == 0) {
+                    dictionary.remove(term);
+                    for (String trigram : trigrams(term)) {
+                        Set<String> terms = termsByTrigram.get(trigram);
+                        if (terms != null && terms.remove(term) && terms.isEmpty()) {
+                            termsByTrigram.remove(trigram);
+                        }
+                    }
+                }
+            }
+        }
+    }
+    
+    // Best matches for a free-text query; slotCount is the catalog size
+    public List<Hit> search(String query, int limit, int slotCount) {
+        List<String> words = new ArrayList<>();
+        collectTerms(ProductSearch.normalize(query), 0, null, words);
+        if (words.isEmpty() || limit <= 0) return new ArrayList<>();
+        if (words.size() > MAX_QUERY_TERMS) words = words.subList(0, MAX_QUERY_TERMS);
+        
+        List<Map<String, Float>> expansions = new ArrayList<>();
+        List<Integer> order = new ArrayList<>();
+        long[] cost = new long[words.size()];
+        for (int w = 0; w < words.size(); w++) {
+            expansions.add(expand(words.get(w)));
+            for (String term : expansions.get(w).keySet()) {
+                cost[w] += dictionary.get(term).size;
+            }
+            order.add(w);
+        }
+        order.sort((a, b) -> Long.compare(cost[a], cost[b]));
+        
+        Scores s = scratch.acquire();
+        s.ensure(slotCount);
+        List<Integer> touched = new ArrayList<>();
+        try {
+            for (int w : order) {
+                if (touched.isEmpty() || cost[w] <= POSTINGS_BUDGET) {
+                    scanWord(expansions.get(w), 1 << w, s, touched);
+                } else {
+                    probeWord(expansions.get(w), 1 << w, s, touched);
+                }
+            }
+            return topHits(touched, limit, s);
+        } finally {
+            for (int slot : touched) {
+                s.total[slot] = 0;
+                s.matched[slot] = 0;
+                s.owner[slot] = null;
+            }
+            scratch.release(s);
+        }
+    }
+    
+    public int termCount() {
+        return dictionary.size();
+    }
+    
+    // Walks the postings of a word's expansions, best expansions first,
+    // stopping once the budget is spent
+    private void scanWord(Map<String, Float> expansions, int bit, Scores s, List<Integer> touched) {
+        List<Integer> wordTouched = new ArrayList<>();
+        int budget = POSTINGS_BUDGET;
+        for (Map.Entry<String, Float> expansion : expansions.entrySet()) {
+            if (budget <= 0) break;
+            Postings postings = dictionary.get(expansion.getKey());
+            float weight = expansion.getValue();
+            int end = Math.min(postings.size, budget);
+            budget -= end;
+            for (int i = 0; i < end; i++) {
+                Product p = postings.products[i];
+                if (p.searchGeneration != postings.generations[i] || p.slot < 0 || p.slot >= s.total.length) continue;
+                float score = weight * fieldWeight(postings.fields[i]);
+                int slot = p.slot;
+                if (s.wordStamp[slot] != bit) {
+                    s.wordStamp[slot] = bit;
+                    s.wordBest[slot] = score;
+                    wordTouched.add(slot);
+                    s.owner[slot] = p;
+                } else if (score > s.wordBest[slot]) {
+                    s.wordBest[slot] = score;
+                }
+            }
+        }
+        for (int slot : wordTouched) {
+            if (s.matched[slot] == 0) touched.add(slot);
+            s.total[slot] += s.wordBest[slot];
+            s.matched[slot] |= bit;
+            s.wordStamp[slot] = 0;
+        }
+    }
+    
+    // Scores a common word only against products rarer words already found,
+    // by re-deriving each candidate's terms from its captured fields
+    private void probeWord(Map<String, Float> expansions, int bit, Scores s, List<Integer> touched) {
+        Map<String, Integer> fields = new HashMap<>();
+        for (int slot : touched) {
+            Product p = s.owner[slot];
+            fields.clear();
+            collectTerms(p.indexedName, NAME, fields);
+            collectTerms(p.indexedCategory, CATEGORY, fields);
+            collectTerms(p.indexedSupplier, SUPPLIER, fields);
+            float best = 0;
+            for (Map.Entry<String, Integer> field : fields.entrySet()) {
+                Float weight = expansions.get(field.getKey());
+                if (weight != null) {
+                    best = Math.max(best, weight * fieldWeight(field.getValue()));
+                }
+            }
+            if (best > 0) {
+                s.total[slot] += best;
+                s.matched[slot] |= bit;
+            }
+        }
+    }
+    
+    // Dictionary terms a query word may stand for, with their weights
+    private Map<String, Float> expand(String word) {
+        Map<String, Float> expansions = new LinkedHashMap<>();
+        if (dictionary.containsKey(word)) {
+            expansions.put(word, EXACT_WEIGHT);
+        }
+        if (word.length() >= 2) {
+            for (String term : prefixRange(word).keySet()) {
+                if (expansions.size() > MAX_PREFIX_EXPANSIONS) break;
+                expansions.putIfAbsent(term, PREFIX_WEIGHT);
+            }
+        }
+        if (word.length() >= 3) {
+            int maxEdits = word.length() <= 5 ? 1 : 2;
+            for (String term : fuzzyCandidates(word)) {
+                if (expansions.containsKey(term)) continue;
+                int edits = boundedEditDistance(word, term, maxEdits);
+                if (edits == 1) {
+                    expansions.put(term, ONE_TYPO_WEIGHT);
+                } else if (edits == 2) {
+                    expansions.put(term, TWO_TYPO_WEIGHT);
+                }
+            }
+        }
+        return expansions;
+    }
+    
+    // Terms sharing the most trigrams with the word, best first. Swapping
+    // two letters inside a short word can change every one of its trigrams
+    // ("mlik" shares none with "milk"), so a short word also brings the
+    // trigrams of each adjacent swap.
+    private List<String> fuzzyCandidates(String word) {
+        Set<String> grams = new HashSet<>(trigrams(word));
+        if (word.length() <= 5) {
+            char[] chars = word.toCharArray();
+            for (int i = 0; i + 1 < chars.length; i++) {
+                char c = chars[i];
+                chars[i] = chars[i + 1];
+                chars[i + 1] = c;
+                grams.addAll(trigrams(new String(chars)));
+                chars[i + 1] = chars[i];
+                chars[i] = c;
+            }
+        }
+        Map<String, Integer> shared = new HashMap<>();
+        for (String trigram : grams) {
+            Set<String> terms = termsByTrigram.get(trigram);
+            if (terms == null) continue;
+            for (String term : terms) {
+                if (Math.abs(term.length() - word.length()) <= 2) {
+                    shared.merge(term, 1, Integer::sum);
+                }
+            }
+        }
+        List<Map.Entry<String, Integer>> ranked = new ArrayList<>(shared.entrySet());
+        ranked.sort((a, b) -> Integer.compare(b.getValue(), a.getValue()));
+        List<String> candidates = new ArrayList<>(Math.min(ranked.size(), MAX_FUZZY_CANDIDATES));
+        for (int i = 0; i < ranked.size() && i < MAX_FUZZY_CANDIDATES; i++) {
+            candidates.add(ranked.get(i).getKey());
+        }
+        return candidates;
+    }
+    
+    private List<Hit> topHits(List<Integer> touched, int limit, Scores s) {
+        // Min-heap of the best `limit` slots: more matched words first, then score
+        PriorityQueue<Integer> best = new PriorityQueue<>(limit + 1, (a, b) -> compareSlots(a, b, s));
+        for (int slot : touched) {
+            best.offer(slot);
+            if (best.size() > limit) best.poll();
+        }
+        Hit[] hits = new Hit[best.size()];
+        for (int i = hits.length - 1; i >= 0; i--) {
+            int slot = best.poll();
+            hits[i] = new Hit(s.owner[slot], s.total[slot], Integer.bitCount(s.matched[slot]));
+        }
+        return new ArrayList<>(Arrays.asList(hits));
+    }
+    
+    private static int compareSlots(int a, int b, Scores s) {
+        int c = Integer.compare(Integer.bitCount(s.matched[a]), Integer.bitCount(s.matched[b]));
+        if (c != 0) return c;
+        c = Float.compare(s.total[a], s.total[b]);
+        return c != 0 ? c : Integer.compare(b, a);
+    }
+    
+    private static float fieldWeight(int fields) {
+        if ((fields & NAME) != 0) return 3f;
+        if ((fields & CATEGORY) != 0) return 1.5f;
+        return 1f;
+    }
+    
+    private static void collectTerms(String text, int field, Map<String, Integer> fields) {
+        collectTerms(text, field, fields, null);
+    }
+    
+    // Splits normalized text into letter/digit runs, either merging each
+    // term's field bit into fields or appending distinct terms to words
+    private static void collectTerms(String text, int field, Map<String, Integer> fields, List<String> words) {
+        if (text == null) return;
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                String term = text.substring(start, i);
+                if (fields != null) {
+                    fields.merge(term, field, (a, b) -> a | b);
+                } else if (!words.contains(term)) {
+                    words.add(term);
+                }
+                start = -1;
+            }
+        }
+    }
+    
+    // Trigrams of the term padded with boundary markers, so short terms and
+    // word starts/ends still produce grams
+    private static List<String> trigrams(String term) {
+        String padded = "$" + term + "$";
+        List<String> grams = new ArrayList<>(padded.length());
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        if (grams.isEmpty()) grams.add(padded);
+        return grams;
+    }
+    
+    // Optimal string alignment distance (insert, delete, substitute, swap
+    // adjacent), or -1 once it must exceed max
+    static int boundedEditDistance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) return -1;
+        int[] prevPrev = new int[b.length() + 1];
+        int[] prev = new int[b.length() + 1];
+        int[] cur = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) prev[j] = j;
+        for (int i = 1; i <= a.length(); i++) {
+            cur[0] = i;
+            int rowMin = cur[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int d = Math.min(Math.min(prev[j] + 1, cur[j - 1] + 1), prev[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    d = Math.min(d, prevPrev[j - 2] + 1);
+                }
+                cur[j] = d;
+                rowMin = Math.min(rowMin, d);
+            }
+            if (rowMin > max) return -1;
+            int[] rotate = prevPrev;
+            prevPrev = prev;
+            prev = cur;
+            cur = rotate;
+        }
+        return prev[b.length()] <= max ? prev[b.length()] : -1;
+    }
+    
+    private NavigableMap<String, Postings> prefixRange(String prefix) {
+        int last = prefix.length() - 1;
+        char bumped = (char) (prefix.charAt(last) + 1);
+        if (bumped == 0) return dictionary.tailMap(prefix, true);
+        return dictionary.subMap(prefix, true, prefix.substring(0, last) + bumped, false);
+    }
+    
+    // Products containing one term, with the generation they were added
+    // under and the fields the term appeared in
+    private static class Postings {
+        private Product[] products = new Product[2];
+        private int[] generations = new int[2];
+        private byte[] fields = new byte[2];
+        private int size;
+        private int stale;
+        
+        void add(Product product, int generation, int fieldBits) {
+            if (size == products.length) {
+                int grown = size * 2;
+                products = Arrays.copyOf(products, grown);
+                generations = Arrays.copyOf(generations, grown);
+                fields = Arrays.copyOf(fields, grown);
+            }
+            products[size] = product;
+            generations[size] = generation;
+            fields[size] = (byte) fieldBits;
+            size++;
+        }
+        
+        void compact() {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (products[i].searchGeneration == generations[i]) {
+                    products[kept] = products[i];
+                    generations[kept] = generations[i];
+                    fields[kept] = fields[i];
+                    kept++;
+                }
+            }
+            Arrays.fill(products, kept, size, null);
+            size = kept;
+            stale = 0;
+        }
+    }
+    
+    private static class Scores {
+        private float[] total = new float[0];
+        private float[] wordBest = new float[0];
+        private int[] matched = new int[0];
+        private int[] wordStamp = new int[0];
+        private Product[] owner = new Product[0];
+        
+        void ensure(int slots) {
+            if (total.length < slots) {
+                int size = Math.max(slots, total.length * 2);
+                total = Arrays.copyOf(total, size);
+                wordBest = Arrays.copyOf(wordBest, size);
+                matched = Arrays.copyOf(matched, size);
+                wordStamp = Arrays.copyOf(wordStamp, size);
+                owner = Arrays.copyOf(owner, size);
+            }
+        }
+    }
+}
\ No newline at end of file
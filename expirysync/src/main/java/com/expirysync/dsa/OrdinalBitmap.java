@@ -0,0 +1,319 @@
+package com.expirysync.dsa;
+
+import java.util.Arrays;
+
+// Compressed set of product ordinals (Product.slot). Ordinals are split into
+// chunks of 65536; a chunk holding up to 4096 ordinals is a sorted char
+// array, a fuller one a 1024-word bitset, so sparse and dense attribute
+// values both stay small. Since ordinals are dense, chunk i simply covers
+// [i * 65536, (i + 1) * 65536). and/or/andNot combine chunk by chunk and
+// return new bitmaps, leaving their inputs untouched.
+public class OrdinalBitmap {
+    private static final int CHUNK_BITS = 16;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int WORDS = CHUNK_SIZE / 64;
+    private static final int ARRAY_MAX = 4096;
+    
+    private Chunk[] chunks = new Chunk[0];
+    
+    // Every ordinal in [0, n)
+    public static OrdinalBitmap range(int n) {
+        OrdinalBitmap bitmap = new OrdinalBitmap();
+        bitmap.chunks = new Chunk[(n + CHUNK_SIZE - 1) >>> CHUNK_BITS];
+        for (int c = 0; c < bitmap.chunks.length; c++) {
+            int count = Math.min(CHUNK_SIZE, n - (c << CHUNK_BITS));
+            long[] words = new long[WORDS];
+            Arrays.fill(words, 0, count >>> 6, -1L);
+            if ((count & 63) != 0) words[count >>> 6] = (1L << (count & 63)) - 1;
+            bitmap.chunks[c] = Chunk.fromWords(words, count);
+        }
+        return bitmap;
+    }
+    
+    public void add(int ordinal) {
+        int c = ordinal >>> CHUNK_BITS;
+        if (c >= chunks.length) chunks = Arrays.copyOf(chunks, c + 1);
+        if (chunks[c] == null) chunks[c] = new Chunk();
+        chunks[c].add((char) ordinal);
+    }
+    
+    public void remove(int ordinal) {
+        int c = ordinal >>> CHUNK_BITS;
+        if (c >= chunks.length || chunks[c] == null) return;
+        chunks[c].remove((char) ordinal);
+        if (chunks[c].count == 0) chunks[c] = null;
+    }
+    
+    public boolean contains(int ordinal) {
+        int c = ordinal >>> CHUNK_BITS;
+        return c < chunks.length && chunks[c] != null && chunks[c].contains((char) ordinal);
+    }
+    
+    public int cardinality() {
+        int total = 0;
+        for (Chunk chunk : chunks) {
+            if (chunk != null) total += chunk.count;
+        }
+        return total;
+    }
+    
+    public boolean isEmpty() {
+        return cardinality() == 0;
+    }
+    
+    public OrdinalBitmap and(OrdinalBitmap other) {
+        OrdinalBitmap result = new OrdinalBitmap();
+        result.chunks = new Chunk[Math.min(chunks.length, other.chunks.length)];
+        for (int c = 0; c < result.chunks.length; c++) {
+            if (chunks[c] != null && other.chunks[c] != null) {
+                result.chunks[c] = Chunk.and(chunks[c], other.chunks[c]);
+            }
+        }
+        return result;
+    }
+    
+    public OrdinalBitmap or(OrdinalBitmap other) {
+        OrdinalBitmap result = new OrdinalBitmap();
+        result.chunks = new Chunk[Math.max(chunks.length, other.chunks.length)];
+        for (int c = 0; c < result.chunks.length; c++) {
+            Chunk a = c < chunks.length ? chunks[c] : null;
+            Chunk b = c < other.chunks.length ? other.chunks[c] : null;
+            if (a != null && b != null) {
+                result.chunks[c] = Chunk.or(a, b);
+            } else if (a != null || b != null) {
+                result.chunks[c] = (a != null ? a : b).copy();
+            }
+        }
+        return result;
+    }
+    
+    public OrdinalBitmap andNot(OrdinalBitmap other) {
+        OrdinalBitmap result = new OrdinalBitmap();
+        result.chunks = new Chunk[chunks.length];
+        for (int c = 0; c < chunks.length; c++) {
+            if (chunks[c] == null) continue;
+            Chunk b = c < other.chunks.length ? other.chunks[c] : null;
+            result.chunks[c] = b != null ? Chunk.andNot(chunks[c], b) : chunks[c].copy();
+        }
+        return result;
+    }
+    
+    // Ordinals in ascending order, skipping the first offset
+    public int[] toArray(int offset, int limit) {
+        int[] out = new int[Math.max(0, Math.min(limit, cardinality() - offset))];
+        int n = 0;
+        int skip = offset;
+        for (int c = 0; c < chunks.length && n < out.length; c++) {
+            Chunk chunk = chunks[c];
+            if (chunk == null) continue;
+            if (skip >= chunk.count) {
+                skip -= chunk.count;
+                continue;
+            }
+            int base = c << CHUNK_BITS;
+            if (chunk.words == null) {
+                for (int i = skip; i < chunk.count && n < out.length; i++) {
+                    out[n++] = base | chunk.values[i];
+                }
+            } else {
+                for (int w = 0; w < WORDS && n < out.length; w++) {
+                    long word = chunk.words[w];
+                    while (word != 0 && n < out.length) {
+                        if (skip > 0) {
+                            skip--;
+                        } else {
+                            out[n++] = base | (w << 6) | Long.numberOfTrailingZeros(word);
+                        }
+                        word &= word - 1;
+                    }
+                }
+            }
+            skip = 0;
+        }
+        return out;
+    }
+    
+    public long sizeInBytes() {
+        long bytes = 16L + 4L * chunks.length;
+        for (Chunk chunk : chunks) {
+            if (chunk == null) continue;
+            bytes += chunk.words != null ? 8L * WORDS : 2L * chunk.values.length;
+        }
+        return bytes;
+    }
+    
+    // One 65536-ordinal chunk: sorted values while sparse, words once dense
+    private static final class Chunk {
+        private char[] values = new char[4];
+        private long[] words;
+        private int count;
+        
+        static Chunk fromWords(long[] words, int count) {
+            Chunk chunk = new Chunk();
+            chunk.values = null;
+            chunk.words = words;
+            chunk.count = count;
+            return chunk.count <= ARRAY_MAX ? chunk.toArrayChunk() : chunk;
+        }
+        
+        static Chunk fromValues(char[] values, int count) {
+            Chunk chunk = new Chunk();
+            chunk.values = values;
+            chunk.count = count;
+            return chunk;
+        }
+        
+        void add(char low) {
+            if (words != null) {
+                long bit = 1L << low;
+                if ((words[low >>> 6] & bit) == 0) {
+                    words[low >>> 6] |= bit;
+                    count++;
+                }
+                return;
+            }
+            int at = Arrays.binarySearch(values, 0, count, low);
+            if (at >= 0) return;
+            at = -at - 1;
+            if (count == ARRAY_MAX) {
+                toWords();
+                add(low);
+                return;
+            }
+            if (count == values.length) values = Arrays.copyOf(values, Math.min(ARRAY_MAX, count * 2));
+            System.arraycopy(values, at, values, at + 1, count - at);
+            values[at] = low;
+            count++;
+        }
+        
+        void remove(char low) {
+            if (words != null) {
+                long bit = 1L << low;
+                if ((words[low >>> 6] & bit) != 0) {
+                    words[low >>> 6] &= ~bit;
+                    count--;
+                    // Only switch back well below the limit, so a value
+                    // hovering at 4096 does not flip on every write
+                    if (count <= ARRAY_MAX / 2) {
+                        Chunk sparse = toArrayChunk();
+                        values = sparse.values;
+                        words = null;
+                    }
+                }
+                return;
+            }
+            int at = Arrays.binarySearch(values, 0, count, low);
+            if (at < 0) return;
+            System.arraycopy(values, at + 1, values, at, count - at - 1);
+            count--;
+        }
+        
+        boolean contains(char low) {
+            if (words != null) return (words[low >>> 6] & (1L << low)) != 0;
+            return Arrays.binarySearch(values, 0, count, low) >= 0;
+        }
+        
+        Chunk copy() {
+            Chunk chunk = new Chunk();
+            chunk.count = count;
+            chunk.words = words != null ? words.clone() : null;
+            chunk.values = values != null ? Arrays.copyOf(values, Math.max(count, 1)) : null;
+            return chunk;
+        }
+        
+        static Chunk and(Chunk a, Chunk b) {
+            if (a.words != null && b.words != null) {
+                long[] words = new long[WORDS];
+                int count = 0;
+                for (int w = 0; w < WORDS; w++) {
+                    words[w] = a.words[w] & b.words[w];
+                    count += Long.bitCount(words[w]);
+                }
+                return count == 0 ? null : fromWords(words, count);
+            }
+            if (a.words != null) {
+                Chunk swap = a;
+                a = b;
+                b = swap;
+            }
+            // a is sparse: keep its values that b also holds
+            char[] values = new char[Math.max(a.count, 1)];
+            int count = 0;
+            for (int i = 0; i < a.count; i++) {
+                if (b.contains(a.values[i])) values[count++] = a.values[i];
+            }
+            return count == 0 ? null : fromValues(values, count);
+        }
+        
+        static Chunk or(Chunk a, Chunk b) {
+            if (a.words == null && b.words == null && a.count + b.count <= ARRAY_MAX) {
+                char[] values = new char[Math.max(a.count + b.count, 1)];
+                int i = 0, j = 0, count = 0;
+                while (i < a.count || j < b.count) {
+                    if (j >= b.count || (i < a.count && a.values[i] < b.values[j])) {
+                        values[count++] = a.values[i++];
+                    } else if (i >= a.count || b.values[j] < a.values[i]) {
+                        values[count++] = b.values[j++];
+                    } else {
+                        values[count++] = a.values[i++];
+                        j++;
+                    }
+                }
+                return fromValues(values, count);
+            }
+            long[] words = new long[WORDS];
+            a.orInto(words);
+            b.orInto(words);
+            int count = 0;
+            for (long word : words) count += Long.bitCount(word);
+            return fromWords(words, count);
+        }
+        
+        static Chunk andNot(Chunk a, Chunk b) {
+            if (a.words == null) {
+                char[] values = new char[Math.max(a.count, 1)];
+                int count = 0;
+                for (int i = 0; i < a.count; i++) {
+                    if (!b.contains(a.values[i])) values[count++] = a.values[i];
+                }
+                return count == 0 ? null : fromValues(values, count);
+            }
+            long[] words = a.words.clone();
+            if (b.words != null) {
+                for (int w = 0; w < WORDS; w++) words[w] &= ~b.words[w];
+            } else {
+                for (int i = 0; i < b.count; i++) words[b.values[i] >>> 6] &= ~(1L << b.values[i]);
+            }
+            int count = 0;
+            for (long word : words) count += Long.bitCount(word);
+            return count == 0 ? null : fromWords(words, count);
+        }
+        
+        private void orInto(long[] target) {
+            if (words != null) {
+                for (int w = 0; w < WORDS; w++) target[w] |= words[w];
+            } else {
+                for (int i = 0; i < count; i++) target[values[i] >>> 6] |= 1L << values[i];
+            }
+        }
+        
+        private void toWords() {
+            words = new long[WORDS];
+            for (int i = 0; i < count; i++) words[values[i] >>> 6] |= 1L << values[i];
+            values = null;
+        }
+        
+        private Chunk toArrayChunk() {
+            char[] sparse = new char[Math.max(count, 4)];
+            int n = 0;
+            for (int w = 0; w < WORDS; w++) {
+                long word = words[w];
+                while (word != 0) {
+                    sparse[n++] = (char) ((w << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return fromValues(sparse, count);
+        }
+    }
+}
\ No newline at end of file
@@ -1,103 +1,225 @@
-package com.expirysync.dsa;
-
-import java.time.LocalDate;
-import java.util.Comparator;
-import java.util.PriorityQueue;
-
-public class PriorityExpiryQueue {
-    private PriorityQueue<Product> priorityQueue;
-    private int capacity;
-    
-    public PriorityExpiryQueue(int capacity) {
-        // Min-heap based on priority (lower number = higher priority)
-        this.priorityQueue = new PriorityQueue<>(Comparator.comparingInt(Product::getPriority));
-        this.capacity = capacity;
-    }
-    
-    public void insert(Product product) {
-        if (priorityQueue.size() >= capacity) {
-            System.out.println("  Priority queue full");
-            return;
-        }
-        
-        // Calculate priority based on expiry
-        int priority = calculatePriority(product.getExpiryDate());
-        product.setPriority(priority);
-        
-        priorityQueue.offer(product);
-        System.out.println("  Inserted to priority queue: " + product.getName() + 
-                          " (Priority: " + priority + ")");
-    }
-    
-    public Product removeMostUrgent() {
-        if (isEmpty()) {
-            System.out.println("  Priority queue empty");
-            return null;
-        }
-        Product p = priorityQueue.poll();
-        System.out.println("  Removed most urgent: " + p.getName());
-        return p;
-    }
-    
-    public Product peekMostUrgent() {
-        return priorityQueue.peek();
-    }
-    
-    public boolean isEmpty() {
-        return priorityQueue.isEmpty();
-    }
-    
-    public int size() {
-        return priorityQueue.size();
-    }
-    
-    private int calculatePriority(LocalDate expiryDate) {
-        if (expiryDate == null) return 3;
-        
-        long days = java.time.temporal.ChronoUnit.DAYS.between(
-            LocalDate.now(), expiryDate);
-        
-        if (days < 0) return 0;      // Expired
-        if (days <= 3) return 1;     // Critical
-        if (days <= 7) return 2;     // Urgent
-        return 3;                    // Normal
-    }
-    
-    // Product class for priority queue
-    public static class Product {
-        private String id;
-        private String name;
-        private String category;
-        private int quantity;
-        private LocalDate expiryDate;
-        private int priority;
-        private double price;
-        
-        // Getters and Setters
-        public String getId() { return id; }
-        public void setId(String id) { this.id = id; }
-        
-        public String getName() { return name; }
-        public void setName(String name) { this.name = name; }
-        
-        public String getCategory() { return category; }
-        public void setCategory(String category) { this.category = category; }
-        
-        public int getQuantity() { return quantity; }
-        public void setQuantity(int quantity) { this.quantity = quantity; }
-        
-        public LocalDate getExpiryDate() { return expiryDate; }
-        public void setExpiryDate(LocalDate expiryDate) { this.expiryDate = expiryDate; }
-        
-        public int getPriority() { return priority; }
-        public void setPriority(int priority) { this.priority = priority; }
-        
-        public double getPrice() { return price; }
-        public void setPrice(double price) { this.price = price; }
-        
-        @Override
-        public String toString() {
-            return name + " (P:" + priority + ")";
-        }
-    }
+package com.expirysync.dsa;
+
+import com.expirysync.log.Log;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class PriorityExpiryQueue {
+    private static final Log logger = Log.get(PriorityExpiryQueue.class);
+    
+    // Min-heap ordered by expiry day (earliest = most urgent). The 0-3
+    // priority is derived from that day on read (Product.getPriority()), so
+    // the order never goes stale as days pass and nothing has to be re-binned.
+    // Each product carries its own heap slot (Product.heapIndex) so arbitrary
+    // removal is O(log n).
+    private Product[] heap;
+    private int size;
+    
+    public PriorityExpiryQueue(int initialCapacity) {
+        this.heap = new Product[Math.max(1, initialCapacity)];
+    }
+    
+    public void insert(Product product) {
+        // Key on the expiry day; products without one sort last
+        product.heapKey = product.getExpiryDate() != null
+            ? product.getExpiryDate().toEpochDay() : Product.NO_EXPIRY;
+        
+        if (contains(product)) {
+            reposition(product.heapIndex);
+        } else {
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, size * 2);
+            }
+            place(product, size);
+            siftUp(size++);
+        }
+        if (logger.isTraceEnabled()) {
+            logger.trace("  Inserted to priority queue: {} (Priority: {})", product.getName(), product.getPriority());
+        }
+    }
+    
+    // Adds products not yet in the queue in one go, without per-item
+    // logging. A batch at least as large as the heap is appended whole and
+    // heap order restored bottom-up (Floyd, O(n)); a smaller one is sifted
+    // up product by product.
+    public void insertAll(Product[] products) {
+        if (size + products.length > heap.length) {
+            heap = Arrays.copyOf(heap, Math.max(heap.length * 2, size + products.length));
+        }
+        boolean rebuild = products.length >= size;
+        for (Product product : products) {
+            product.heapKey = product.getExpiryDate() != null
+                ? product.getExpiryDate().toEpochDay() : Product.NO_EXPIRY;
+            place(product, size);
+            if (rebuild) {
+                size++;
+            } else {
+                siftUp(size++);
+            }
+        }
+        if (rebuild) {
+            for (int index = size / 2 - 1; index >= 0; index--) {
+                siftDown(index);
+            }
+        }
+    }
+    
+    public Product removeMostUrgent() {
+        if (isEmpty()) {
+            logger.trace("  Priority queue empty");
+            return null;
+        }
+        Product p = removeAt(0);
+        logger.trace("  Removed most urgent: {}", p.getName());
+        return p;
+    }
+    
+    public boolean remove(Product product) {
+        if (!contains(product)) return false;
+        removeAt(product.heapIndex);
+        return true;
+    }
+    
+    public boolean contains(Product product) {
+        int index = product.heapIndex;
+        return index >= 0 && index < size && heap[index] == product;
+    }
+    
+    public Product peekMostUrgent() {
+        return size > 0 ? heap[0] : null;
+    }
+    
+    // The (offset+1)th to (offset+limit)th most urgent products matching the
+    // category (null = any), without touching the heap. The category is
+    // matched on normalized keys like the other category filters, so
+    // "creme" finds "Crème". A small frontier heap of candidate slots starts
+    // at the root and only ever expands the children of products already
+    // emitted or skipped, so the cost is O(m log m) for the m entries
+    // visited rather than O(n).
+    public List<Product> topUrgent(int offset, int limit, String category) {
+        List<Product> result = new ArrayList<>();
+        if (size == 0 || limit <= 0) return result;
+        
+        int[] frontier = new int[16];
+        int frontierSize = 0;
+        frontier[frontierSize++] = 0;
+        int skipped = 0;
+        String categoryKey = category != null ? ProductSearch.normalize(category) : null;
+        
+        while (frontierSize > 0 && result.size() < limit) {
+            // Pop the frontier slot with the earliest key
+            int index = frontier[0];
+            frontier[0] = frontier[--frontierSize];
+            siftDownFrontier(frontier, frontierSize, 0);
+            
+            Product product = heap[index];
+            if (categoryKey == null || categoryKey.equals(product.indexedCategory)) {
+                if (skipped < offset) {
+                    skipped++;
+                } else {
+                    result.add(product);
+                }
+            }
+            
+            for (int child = 2 * index + 1; child <= 2 * index + 2 && child < size; child++) {
+                if (frontierSize == frontier.length) {
+                    frontier = Arrays.copyOf(frontier, frontierSize * 2);
+                }
+                frontier[frontierSize] = child;
+                siftUpFrontier(frontier, frontierSize++);
+            }
+        }
+        return result;
+    }
+    
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    private Product removeAt(int index) {
+        Product removed = heap[index];
+        removed.heapIndex = -1;
+        int last = --size;
+        if (index != last) {
+            place(heap[last], index);
+            heap[last] = null;
+            reposition(index);
+        } else {
+            heap[last] = null;
+        }
+        return removed;
+    }
+    
+    private void reposition(int index) {
+        if (index > 0 && heap[index].heapKey < heap[(index - 1) / 2].heapKey) {
+            siftUp(index);
+        } else {
+            siftDown(index);
+        }
+    }
+    
+    private void siftUp(int index) {
+        Product moving = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (heap[parent].heapKey <= moving.heapKey) break;
+            place(heap[parent], index);
+            index = parent;
+        }
+        place(moving, index);
+    }
+    
+    private void siftDown(int index) {
+        Product moving = heap[index];
+        int half = size / 2;
+        while (index < half) {
+            int child = 2 * index + 1;
+            int right = child + 1;
+            if (right < size && heap[right].heapKey < heap[child].heapKey) {
+                child = right;
+            }
+            if (moving.heapKey <= heap[child].heapKey) break;
+            place(heap[child], index);
+            index = child;
+        }
+        place(moving, index);
+    }
+    
+    private void siftUpFrontier(int[] frontier, int pos) {
+        int moving = frontier[pos];
+        while (pos > 0) {
+            int parent = (pos - 1) / 2;
+            if (heap[frontier[parent]].heapKey <= heap[moving].heapKey) break;
+            frontier[pos] = frontier[parent];
+            pos = parent;
+        }
+        frontier[pos] = moving;
+    }
+    
+    private void siftDownFrontier(int[] frontier, int frontierSize, int pos) {
+        if (frontierSize == 0) return;
+        int moving = frontier[pos];
+        int half = frontierSize / 2;
+        while (pos < half) {
+            int child = 2 * pos + 1;
+            int right = child + 1;
+            if (right < frontierSize && heap[frontier[right]].heapKey < heap[frontier[child]].heapKey) {
+                child = right;
+            }
+            if (heap[moving].heapKey <= heap[frontier[child]].heapKey) break;
+            frontier[pos] = frontier[child];
+            pos = child;
+        }
+        frontier[pos] = moving;
+    }
+    
+    private void place(Product product, int index) {
+        heap[index] = product;
+        product.heapIndex = index;
+    }
 }
\ No newline at end of file
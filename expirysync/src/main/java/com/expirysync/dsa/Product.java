@@ -0,0 +1,177 @@
+package com.expirysync.dsa;
+
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicLong;
+
+// The one product record shared by every DSA structure. Structures hold the
+// same instance, so after mutating a stored product call
+// DSAOperations.updateProduct() to re-key it.
+public class Product {
+    // Millisecond-based ids, bumped past the last one issued so they stay unique
+    private static final AtomicLong LAST_ID = new AtomicLong();
+    
+    private String id;
+    private String name;
+    private String category;
+    private int quantity;
+    private LocalDate expiryDate;
+    private String status;
+    private double price;
+    private String supplier;
+    
+    // Marks a product without an expiry date in the epoch-day keys below
+    static final long NO_EXPIRY = Long.MAX_VALUE;
+    
+    // Position handles owned by the structures holding this product
+    int slot = -1;
+    int heapIndex = -1;
+    long heapKey;
+    long recentSeq = -1;
+    int searchGeneration;
+    ExpiryCalendar.Bucket calendarBucket;
+    Product calendarPrev;
+    Product calendarNext;
+    
+    // Keys the product is currently indexed under, captured when it is added
+    // or updated, so indexes can unfile it even after its fields change
+    int indexedQuantity;
+    long indexedExpiryDay = NO_EXPIRY;
+    double indexedPrice;
+    String indexedName = "";
+    String indexedCategory = "";
+    String indexedSupplier = "";
+    String indexedStatus = "";
+    // Expiry band as of the day AttributeBitmaps was last rolled to
+    int indexedPriority = 3;
+    
+    public Product() {
+        this.id = "PROD_" + LAST_ID.accumulateAndGet(
+            System.currentTimeMillis(), (last, now) -> Math.max(last + 1, now));
+        this.expiryDate = LocalDate.now().plusDays(30);
+        this.status = "Active";
+    }
+    
+    private Product(String id) {
+        this.id = id;
+    }
+    
+    // A product read back from disk under its original id; later generated
+    // ids are issued past it so they stay unique
+    static Product restored(String id) {
+        if (id.startsWith("PROD_")) {
+            try {
+                LAST_ID.accumulateAndGet(Long.parseLong(id.substring(5)), Math::max);
+            } catch (NumberFormatException e) {
+                // custom ids leave the counter alone
+            }
+        }
+        return new Product(id);
+    }
+    
+    // Detached copy of the stored fields, for writing a snapshot outside the lock
+    Product copy() {
+        Product copy = new Product(id);
+        copy.name = name;
+        copy.category = category;
+        copy.quantity = quantity;
+        copy.expiryDate = expiryDate;
+        copy.status = status;
+        copy.price = price;
+        copy.supplier = supplier;
+        return copy;
+    }
+    
+    // Id-less stand-in carrying only an expiry key, for range bounds in the
+    // sorted indexes; sorts before every real product due that day
+    static Product expiryProbe(long expiryDay) {
+        return expiryProbe(expiryDay, "");
+    }
+    
+    // The same with an id, marking one exact position in the expiry order
+    static Product expiryProbe(long expiryDay, String id) {
+        Product probe = new Product(id);
+        probe.indexedExpiryDay = expiryDay;
+        return probe;
+    }
+    
+    // The same for a quantity key
+    static Product quantityProbe(int quantity) {
+        Product probe = new Product("");
+        probe.indexedQuantity = quantity;
+        return probe;
+    }
+    
+    // Getters and Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+    
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+    
+    public String getCategory() { return category; }
+    public void setCategory(String category) { this.category = category; }
+    
+    public int getQuantity() { return quantity; }
+    public void setQuantity(int quantity) { this.quantity = quantity; }
+    
+    public LocalDate getExpiryDate() { return expiryDate; }
+    public void setExpiryDate(LocalDate expiryDate) { this.expiryDate = expiryDate; }
+    
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+    
+    // Derived on read from the shared day clock, so it never goes stale
+    public int getPriority() {
+        if (expiryDate == null) return 3;
+        return priorityFor(expiryDate.toEpochDay(), DayClock.system().today());
+    }
+    
+    public double getPrice() { return price; }
+    public void setPrice(double price) { this.price = price; }
+    
+    public String getSupplier() { return supplier; }
+    public void setSupplier(String supplier) { this.supplier = supplier; }
+    
+    void captureIndexedKeys() {
+        indexedQuantity = quantity;
+        indexedExpiryDay = expiryDate != null ? expiryDate.toEpochDay() : NO_EXPIRY;
+        indexedPrice = price;
+        indexedName = ProductSearch.normalize(name);
+        indexedCategory = ProductSearch.normalize(category);
+        indexedSupplier = ProductSearch.normalize(supplier);
+        indexedStatus = ProductSearch.normalize(status);
+    }
+    
+    // Just the quantity, for a stock change that leaves every other key alone
+    void captureIndexedQuantity() {
+        indexedQuantity = quantity;
+    }
+    
+    // Same as captureIndexedKeys(), with the text keys already normalized by the caller (a snapshot
+    // normalizes each distinct string once)
+    void captureIndexedKeys(String normalizedName, String normalizedCategory,
+                            String normalizedSupplier, String normalizedStatus) {
+        indexedQuantity = quantity;
+        indexedExpiryDay = expiryDate != null ? expiryDate.toEpochDay() : NO_EXPIRY;
+        indexedPrice = price;
+        indexedName = normalizedName;
+        indexedCategory = normalizedCategory;
+        indexedSupplier = normalizedSupplier;
+        indexedStatus = normalizedStatus;
+    }
+    
+    static int priorityFor(long expiryDay, long today) {
+        long days = expiryDay - today;
+        
+        if (days < 0) return 0;      // Expired
+        if (days <= 3) return 1;     // Critical
+        if (days <= 7) return 2;     // Urgent
+        return 3;                    // Normal
+    }
+    
+    @Override
+    public String toString() {
+        return name + " (" + category + ") - Qty: " + quantity + 
+               ", Expires: " + expiryDate;
+    }
+}
\ No newline at end of file
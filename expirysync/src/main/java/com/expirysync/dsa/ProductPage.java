@@ -0,0 +1,14 @@
+package com.expirysync.dsa;
+
+import java.util.List;
+
+// One page of query results plus the total number of matches
+public class ProductPage {
+    public final List<Product> products;
+    public final int total;
+    
+    public ProductPage(List<Product> products, int total) {
+        this.products = products;
+        this.total = total;
+    }
+}
\ No newline at end of file
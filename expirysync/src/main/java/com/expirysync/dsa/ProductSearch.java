@@ -1,87 +1,112 @@
-package com.expirysync.dsa;
-
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.List;
-
-public class ProductSearch {
-    
-    public Product linearSearchById(List<Product> products, String targetId) {
-        System.out.println("  Linear Search for ID: " + targetId);
-        
-        for (int i = 0; i < products.size(); i++) {
-            Product p = products.get(i);
-            if (p.getId().equals(targetId)) {
-                System.out.println("    Found at index " + i + ": " + p.getName());
-                System.out.println("    Time: O(n), Comparisons: " + (i + 1));
-                return p;
-            }
-        }
-        
-        System.out.println("    Not found");
-        return null;
-    }
-    
-    public Product binarySearchByName(List<Product> products, String targetName) {
-        System.out.println("  Binary Search for: " + targetName);
-        
-        // First sort by name
-        List<Product> sorted = new ArrayList<>(products);
-        Collections.sort(sorted, Comparator.comparing(Product::getName));
-        
-        int left = 0, right = sorted.size() - 1;
-        int comparisons = 0;
-        
-        while (left <= right) {
-            comparisons++;
-            int mid = left + (right - left) / 2;
-            Product midProduct = sorted.get(mid);
-            
-            int result = midProduct.getName().compareToIgnoreCase(targetName);
-            
-            if (result == 0) {
-                System.out.println("    Found at position " + mid);
-                System.out.println("    Time: O(log n), Comparisons: " + comparisons);
-                return midProduct;
-            } else if (result < 0) {
-                left = mid + 1;
-            } else {
-                right = mid - 1;
-            }
-        }
-        
-        System.out.println("    Not found");
-        return null;
-    }
-    
-    // Product class for search
-    public static class Product {
-        private String id;
-        private String name;
-        private String category;
-        private int quantity;
-        private double price;
-        
-        // Getters and Setters
-        public String getId() { return id; }
-        public void setId(String id) { this.id = id; }
-        
-        public String getName() { return name; }
-        public void setName(String name) { this.name = name; }
-        
-        public String getCategory() { return category; }
-        public void setCategory(String category) { this.category = category; }
-        
-        public int getQuantity() { return quantity; }
-        public void setQuantity(int quantity) { this.quantity = quantity; }
-        
-        public double getPrice() { return price; }
-        public void setPrice(double price) { this.price = price; }
-        
-        @Override
-        public String toString() {
-            return name;
-        }
-    }
+package com.expirysync.dsa;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+// Name index kept up to date on every add/remove instead of sorting the
+// catalog per query. Names are normalized (accents stripped, case folded,
+// whitespace collapsed) and kept in a sorted map of name -> products, so
+// exact, prefix and typeahead lookups are one tree descent plus a walk over
+// the matches: O(log n + results). Keyed by Product.indexedName, which only
+// changes while the product is out of the index. Not thread-safe:
+// DSAOperations calls it under its lock.
+public class ProductSearch {
+    private final TreeMap<String, Map<String, Product>> byName = new TreeMap<>();
+    private int size;
+    
+    public static String normalize(String name) {
+        if (name == null) return "";
+        // Plain ASCII has nothing to decompose, so skip the NFKD pass
+        String decomposed = isAscii(name) ? name : Normalizer.normalize(name, Normalizer.Form.NFKD);
+        StringBuilder out = new StringBuilder(decomposed.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) continue;
+            if (Character.isWhitespace(c)) {
+                pendingSpace = out.length() > 0;
+                continue;
+            }
+            if (pendingSpace) {
+                out.append(' ');
+                pendingSpace = false;
+            }
+            out.append(c);
+        }
+        return out.toString().toLowerCase(Locale.ROOT);
+    }
+    
+    public void add(Product product) {
+        Map<String, Product> products = byName.computeIfAbsent(product.indexedName, k -> new LinkedHashMap<>());
+        if (products.put(product.getId(), product) == null) size++;
+    }
+    
+    public boolean remove(Product product) {
+        Map<String, Product> products = byName.get(product.indexedName);
+        if (products == null || !products.remove(product.getId(), product)) return false;
+        if (products.isEmpty()) byName.remove(product.indexedName);
+        size--;
+        return true;
+    }
+    
+    // Products whose name equals the query, ignoring case, accents and spacing
+    public List<Product> findByName(String name, int limit) {
+        Map<String, Product> products = byName.get(normalize(name));
+        if (products == null) return Collections.emptyList();
+        List<Product> result = new ArrayList<>(Math.min(limit, products.size()));
+        for (Product p : products.values()) {
+            if (result.size() >= limit) break;
+            result.add(p);
+        }
+        return result;
+    }
+    
+    // Products whose name starts with the prefix, in name order
+    public List<Product> findByPrefix(String prefix, int limit) {
+        List<Product> result = new ArrayList<>();
+        for (Map<String, Product> products : prefixRange(normalize(prefix)).values()) {
+            for (Product p : products.values()) {
+                if (result.size() >= limit) return result;
+                result.add(p);
+            }
+        }
+        return result;
+    }
+    
+    // Distinct names starting with the prefix, for typeahead
+    public List<String> suggest(String prefix, int limit) {
+        List<String> names = new ArrayList<>();
+        for (Map<String, Product> products : prefixRange(normalize(prefix)).values()) {
+            if (names.size() >= limit) break;
+            names.add(products.values().iterator().next().getName());
+        }
+        return names;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    private NavigableMap<String, Map<String, Product>> prefixRange(String prefix) {
+        if (prefix.isEmpty()) return byName;
+        // Every key with the prefix sorts before the prefix with its last char bumped
+        int last = prefix.length() - 1;
+        char bumped = (char) (prefix.charAt(last) + 1);
+        if (bumped == 0) return byName.tailMap(prefix, true);
+        return byName.subMap(prefix, true, prefix.substring(0, last) + bumped, false);
+    }
+    
+    private static boolean isAscii(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) >= 0x80) return false;
+        }
+        return true;
+    }
 }
\ No newline at end of file
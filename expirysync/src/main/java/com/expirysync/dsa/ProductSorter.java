@@ -1,153 +1,386 @@
-package com.expirysync.dsa;
-
-import java.time.LocalDate;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-
-public class ProductSorter {
-    
-    public List<Product> quickSortByExpiry(List<Product> products) {
-        System.out.println("  Quick Sort by Expiry Date");
-        
-        if (products.size() <= 1) {
-            return new ArrayList<>(products);
-        }
-        
-        List<Product> sorted = new ArrayList<>(products);
-        quickSort(sorted, 0, sorted.size() - 1);
-        
-        System.out.println("    Time: O(n log n) average");
-        return sorted;
-    }
-    
-    private void quickSort(List<Product> products, int low, int high) {
-        if (low < high) {
-            int pi = partition(products, low, high);
-            quickSort(products, low, pi - 1);
-            quickSort(products, pi + 1, high);
-        }
-    }
-    
-    private int partition(List<Product> products, int low, int high) {
-        Product pivot = products.get(high);
-        int i = low - 1;
-        
-        for (int j = low; j < high; j++) {
-            if (products.get(j).getExpiryDate()
-                .compareTo(pivot.getExpiryDate()) <= 0) {
-                i++;
-                Collections.swap(products, i, j);
-            }
-        }
-        
-        Collections.swap(products, i + 1, high);
-        return i + 1;
-    }
-    
-    public List<Product> mergeSortByPriority(List<Product> products) {
-        System.out.println("  Merge Sort by Priority");
-        
-        if (products.size() <= 1) {
-            return new ArrayList<>(products);
-        }
-        
-        List<Product> sorted = new ArrayList<>(products);
-        mergeSort(sorted, 0, sorted.size() - 1);
-        
-        System.out.println("    Time: O(n log n) guaranteed");
-        return sorted;
-    }
-    
-    private void mergeSort(List<Product> products, int left, int right) {
-        if (left < right) {
-            int mid = left + (right - left) / 2;
-            mergeSort(products, left, mid);
-            mergeSort(products, mid + 1, right);
-            merge(products, left, mid, right);
-        }
-    }
-    
-    private void merge(List<Product> products, int left, int mid, int right) {
-        List<Product> leftArr = new ArrayList<>(products.subList(left, mid + 1));
-        List<Product> rightArr = new ArrayList<>(products.subList(mid + 1, right + 1));
-        
-        int i = 0, j = 0, k = left;
-        
-        while (i < leftArr.size() && j < rightArr.size()) {
-            if (leftArr.get(i).getPriority() <= rightArr.get(j).getPriority()) {
-                products.set(k++, leftArr.get(i++));
-            } else {
-                products.set(k++, rightArr.get(j++));
-            }
-        }
-        
-        while (i < leftArr.size()) {
-            products.set(k++, leftArr.get(i++));
-        }
-        
-        while (j < rightArr.size()) {
-            products.set(k++, rightArr.get(j++));
-        }
-    }
-    
-    public List<Product> bubbleSortByQuantity(List<Product> products) {
-        System.out.println("  Bubble Sort by Quantity");
-        
-        List<Product> sorted = new ArrayList<>(products);
-        int n = sorted.size();
-        boolean swapped;
-        
-        for (int i = 0; i < n - 1; i++) {
-            swapped = false;
-            for (int j = 0; j < n - i - 1; j++) {
-                if (sorted.get(j).getQuantity() > sorted.get(j + 1).getQuantity()) {
-                    Collections.swap(sorted, j, j + 1);
-                    swapped = true;
-                }
-            }
-            if (!swapped) break;
-        }
-        
-        System.out.println("    Time: O(n²) worst case");
-        return sorted;
-    }
-    
-    // Product class for sorting
-    public static class Product {
-        private String id;
-        private String name;
-        private String category;
-        private int quantity;
-        private LocalDate expiryDate;
-        private int priority;
-        private double price;
-        
-        // Getters and Setters
-        public String getId() { return id; }
-        public void setId(String id) { this.id = id; }
-        
-        public String getName() { return name; }
-        public void setName(String name) { this.name = name; }
-        
-        public String getCategory() { return category; }
-        public void setCategory(String category) { this.category = category; }
-        
-        public int getQuantity() { return quantity; }
-        public void setQuantity(int quantity) { this.quantity = quantity; }
-        
-        public LocalDate getExpiryDate() { return expiryDate; }
-        public void setExpiryDate(LocalDate expiryDate) { this.expiryDate = expiryDate; }
-        
-        public int getPriority() { return priority; }
-        public void setPriority(int priority) { this.priority = priority; }
-        
-        public double getPrice() { return price; }
-        public void setPrice(double price) { this.price = price; }
-        
-        @Override
-        public String toString() {
-            return name;
-        }
-    }
+package com.expirysync.dsa;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+// Multi-key product sorting. Each numeric key (expiry day, quantity,
+// priority, price) is extracted into a primitive long per product and
+// rebased to its minimum, so narrow ranges such as expiry days or the four
+// priority bands need only one or two digit passes. Keys are applied least
+// significant first, each with a stable pass: an LSD byte radix sort, or a
+// parallel sort of packed (key, position) longs for large inputs. Names have
+// no fixed-width key and go through a stable comparator sort instead.
+//
+// sort() reorders the caller's list in place (a reusable workspace in
+// DSAOperations); sortedPrefix() answers first-page requests with a bounded
+// heap instead of sorting everything.
+public class ProductSorter {
+    public enum SortKey { EXPIRY, QUANTITY, PRIORITY, PRICE, NAME }
+    
+    // One key of a multi-key order, written "expiry" or "-quantity"
+    public static class Order {
+        public final SortKey key;
+        public final boolean descending;
+        
+        public Order(SortKey key, boolean descending) {
+            this.key = key;
+            this.descending = descending;
+        }
+        
+        @Override
+        public String toString() {
+            return (descending ? "-" : "") + key.name().toLowerCase(Locale.ROOT);
+        }
+    }
+    
+    // Below this many products a plain pass beats forking the common pool
+    static final int PARALLEL_THRESHOLD = 1 << 15;
+    // A prefix this much smaller than the input is selected with a heap
+    private static final int PARTIAL_SORT_RATIO = 8;
+    private static final int RADIX_BITS = 8;
+    private static final int RADIX = 1 << RADIX_BITS;
+    
+    private static final Comparator<Product> BY_NAME = Comparator.comparing(
+        Product::getName, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER));
+        
+    // Key, permutation and heap arrays, grown on demand and reused across
+    // calls; concurrent readers each take their own from the pool
+    private final ScratchPool<Scratch> scratch = new ScratchPool<>(Scratch::new, s -> { });
+    
+    // Parses a comma-separated spec such as "expiry,-quantity"
+    public static List<Order> parse(String spec) {
+        List<Order> orders = new ArrayList<>();
+        if (spec == null) return orders;
+        for (String part : spec.split(",")) {
+            String name = part.trim();
+            if (name.isEmpty()) continue;
+            boolean descending = name.startsWith("-");
+            if (descending || name.startsWith("+")) {
+                name = name.substring(1);
+            }
+            try {
+                orders.add(new Order(SortKey.valueOf(name.toUpperCase(Locale.ROOT)), descending));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown sort key '" + name +
+                    "' (use expiry, quantity, priority, price or name)");
+            }
+        }
+        return orders;
+    }
+    
+    public static String describe(List<Order> orders, int n, int k) {
+        if (usesPartialSort(n, k)) {
+            return "Bounded heap top-K selection";
+        }
+        if (usesName(orders)) {
+            return n >= PARALLEL_THRESHOLD ? "Arrays.parallelSort (comparator)" : "TimSort (comparator)";
+        }
+        return n >= PARALLEL_THRESHOLD ? "Arrays.parallelSort on packed primitive keys" : "LSD radix sort on primitive keys";
+    }
+    
+    public static String complexity(List<Order> orders, int n, int k) {
+        if (usesPartialSort(n, k)) return "O(n log k)";
+        return usesName(orders) ? "O(n log n)" : "O(n) per key (byte passes over the key range)";
+    }
+    
+    public List<Product> sort(List<Product> products, List<Order> orders) {
+        int n = products.size();
+        if (n <= 1 || orders.isEmpty()) {
+            return products;
+        }
+        
+        if (usesName(orders)) {
+            // Both sorts are stable, matching the radix path on ties
+            Product[] array = products.toArray(new Product[0]);
+            Comparator<Product> comparator = comparator(orders);
+            if (n >= PARALLEL_THRESHOLD) {
+                Arrays.parallelSort(array, comparator);
+            } else {
+                Arrays.sort(array, comparator);
+            }
+            for (int i = 0; i < n; i++) {
+                products.set(i, array[i]);
+            }
+            return products;
+        }
+        
+        Scratch s = scratch.acquire();
+        try {
+            s.ensure(n, 1);
+            int[] perm = s.perm;
+            for (int i = 0; i < n; i++) {
+                perm[i] = i;
+            }
+            long today = DayClock.system().today();
+            for (int o = orders.size() - 1; o >= 0; o--) {
+                int bits = extractKeys(products, orders.get(o), today, s.keys[0]);
+                perm = sortPass(perm, s.keys[0], n, bits, s);
+            }
+            
+            Product[] items = s.items;
+            for (int i = 0; i < n; i++) {
+                items[i] = products.get(perm[i]);
+            }
+            for (int i = 0; i < n; i++) {
+                products.set(i, items[i]);
+            }
+            Arrays.fill(items, 0, n, null);
+            return products;
+        } finally {
+            scratch.release(s);
+        }
+    }
+    
+    // The first k products in the given order. Small prefixes are picked with
+    // a size-k max-heap and leave the input untouched; ties fall back to input
+    // position, so the result is the prefix a full stable sort would give.
+    // Larger prefixes sort the input in place.
+    public List<Product> sortedPrefix(List<Product> products, List<Order> orders, int k) {
+        int n = products.size();
+        k = Math.min(k, n);
+        if (!usesPartialSort(n, k)) {
+            sort(products, orders);
+            return new ArrayList<>(products.subList(0, k));
+        }
+        
+        Scratch s = scratch.acquire();
+        try {
+            s.ensure(n, orders.size());
+            long today = DayClock.system().today();
+            for (int o = 0; o < orders.size(); o++) {
+                if (orders.get(o).key != SortKey.NAME) {
+                    extractKeys(products, orders.get(o), today, s.keys[o]);
+                }
+            }
+            
+            int[] heap = s.heap;
+            int size = 0;
+            for (int i = 0; i < n; i++) {
+                if (size < k) {
+                    heap[size] = i;
+                    siftUp(heap, size++, orders, s.keys, products);
+                } else if (compareAt(i, heap[0], orders, s.keys, products) < 0) {
+                    heap[0] = i;
+                    siftDown(heap, size, orders, s.keys, products);
+                }
+            }
+            
+            // Popping the max-heap fills the result from the back
+            Product[] result = new Product[size];
+            while (size > 0) {
+                result[size - 1] = products.get(heap[0]);
+                heap[0] = heap[--size];
+                siftDown(heap, size, orders, s.keys, products);
+            }
+            return new ArrayList<>(Arrays.asList(result));
+        } finally {
+            scratch.release(s);
+        }
+    }
+    
+    private static boolean usesPartialSort(int n, int k) {
+        return k < n / PARTIAL_SORT_RATIO;
+    }
+    
+    private static boolean usesName(List<Order> orders) {
+        for (Order order : orders) {
+            if (order.key == SortKey.NAME) return true;
+        }
+        return false;
+    }
+    
+    // Fills keys[i] with product i's key for this order, rebased so the
+    // smallest (or, descending, the largest) is 0; returns the bit width of
+    // the resulting range. Products without an expiry sort after all dates.
+    private static int extractKeys(List<Product> products, Order order, long today, long[] keys) {
+        int n = products.size();
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        boolean missing = false;
+        for (int i = 0; i < n; i++) {
+            Product p = products.get(i);
+            long key;
+            switch (order.key) {
+                case EXPIRY:
+                    if (p.getExpiryDate() == null) {
+                        keys[i] = Product.NO_EXPIRY;
+                        missing = true;
+                        continue;
+                    }
+                    key = p.getExpiryDate().toEpochDay();
+                    break;
+                case QUANTITY:
+                    key = p.getQuantity();
+                    break;
+                case PRIORITY:
+                    key = p.getExpiryDate() == null ? 3 : Product.priorityFor(p.getExpiryDate().toEpochDay(), today);
+                    break;
+                default:
+                    // IEEE bits flipped so signed long order matches Double.compare
+                    long bits = Double.doubleToLongBits(p.getPrice());
+                    key = bits ^ ((bits >> 63) & Long.MAX_VALUE);
+            }
+            keys[i] = key;
+            if (key < min) min = key;
+            if (key > max) max = key;
+        }
+        if (missing) {
+            if (min > max) return 0;
+            max++;
+            for (int i = 0; i < n; i++) {
+                if (keys[i] == Product.NO_EXPIRY) keys[i] = max;
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            keys[i] = order.descending ? max - keys[i] : keys[i] - min;
+        }
+        return 64 - Long.numberOfLeadingZeros(max - min);
+    }
+    
+    // Stably reorders perm by keys[perm[i]] (unsigned, bits wide) and returns
+    // whichever scratch array holds the result
+    private static int[] sortPass(int[] perm, long[] keys, int n, int bits, Scratch s) {
+        if (bits == 0) return perm;
+        int[] other = perm == s.perm ? s.tmp : s.perm;
+        
+        int positionBits = 32 - Integer.numberOfLeadingZeros(n - 1);
+        if (n >= PARALLEL_THRESHOLD && bits + positionBits <= 63) {
+            // The position in the low bits keeps equal keys in their current order
+            long[] packed = s.packed;
+            for (int i = 0; i < n; i++) {
+                packed[i] = (keys[perm[i]] << positionBits) | i;
+            }
+            Arrays.parallelSort(packed, 0, n);
+            long mask = (1L << positionBits) - 1;
+            for (int i = 0; i < n; i++) {
+                other[i] = perm[(int) (packed[i] & mask)];
+            }
+            return other;
+        }
+        
+        int[] counts = s.counts;
+        int[] src = perm;
+        int[] dst = other;
+        for (int shift = 0; shift < bits; shift += RADIX_BITS) {
+            Arrays.fill(counts, 0);
+            for (int i = 0; i < n; i++) {
+                counts[(int) ((keys[src[i]] >>> shift) & (RADIX - 1))]++;
+            }
+            int start = 0;
+            for (int d = 0; d < RADIX; d++) {
+                int count = counts[d];
+                counts[d] = start;
+                start += count;
+            }
+            for (int i = 0; i < n; i++) {
+                int index = src[i];
+                dst[counts[(int) ((keys[index] >>> shift) & (RADIX - 1))]++] = index;
+            }
+            int[] swap = src;
+            src = dst;
+            dst = swap;
+        }
+        return src;
+    }
+    
+    private static Comparator<Product> comparator(List<Order> orders) {
+        Comparator<Product> result = null;
+        for (Order order : orders) {
+            Comparator<Product> next;
+            switch (order.key) {
+                case NAME:
+                    next = BY_NAME;
+                    break;
+                case EXPIRY:
+                    next = Comparator.comparing(Product::getExpiryDate, Comparator.nullsLast(Comparator.naturalOrder()));
+                    break;
+                case QUANTITY:
+                    next = Comparator.comparingInt(Product::getQuantity);
+                    break;
+                case PRIORITY:
+                    next = Comparator.comparingInt(Product::getPriority);
+                    break;
+                default:
+                    next = Comparator.comparingDouble(Product::getPrice);
+            }
+            if (order.descending) next = next.reversed();
+            result = result == null ? next : result.thenComparing(next);
+        }
+        return result;
+    }
+    
+    private static int compareAt(int a, int b, List<Order> orders, long[][] keys, List<Product> products) {
+        for (int o = 0; o < orders.size(); o++) {
+            int c;
+            if (orders.get(o).key == SortKey.NAME) {
+                c = BY_NAME.compare(products.get(a), products.get(b));
+                if (orders.get(o).descending) c = -c;
+            } else {
+                c = Long.compareUnsigned(keys[o][a], keys[o][b]);
+            }
+            if (c != 0) return c;
+        }
+        return Integer.compare(a, b);
+    }
+    
+    private static void siftUp(int[] heap, int i, List<Order> orders, long[][] keys, List<Product> products) {
+        int item = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (compareAt(item, heap[parent], orders, keys, products) <= 0) break;
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = item;
+    }
+    
+    private static void siftDown(int[] heap, int size, List<Order> orders, long[][] keys, List<Product> products) {
+        if (size == 0) return;
+        int item = heap[0];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) break;
+            if (child + 1 < size && compareAt(heap[child + 1], heap[child], orders, keys, products) > 0) {
+                child++;
+            }
+            if (compareAt(item, heap[child], orders, keys, products) >= 0) break;
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = item;
+    }
+    
+    private static class Scratch {
+        private int[] perm = new int[0];
+        private int[] tmp = new int[0];
+        private int[] heap = new int[0];
+        private long[] packed = new long[0];
+        private long[][] keys = new long[0][];
+        private Product[] items = new Product[0];
+        private final int[] counts = new int[RADIX];
+        
+        void ensure(int n, int keyCount) {
+            if (perm.length < n) {
+                perm = new int[n];
+                tmp = new int[n];
+                heap = new int[n];
+                items = new Product[n];
+            }
+            if (n >= PARALLEL_THRESHOLD && packed.length < n) {
+                packed = new long[n];
+            }
+            if (keys.length < keyCount) {
+                keys = Arrays.copyOf(keys, keyCount);
+            }
+            for (int o = 0; o < keyCount; o++) {
+                if (keys[o] == null || keys[o].length < n) {
+                    keys[o] = new long[n];
+                }
+            }
+        }
+    }
 }
\ No newline at end of file
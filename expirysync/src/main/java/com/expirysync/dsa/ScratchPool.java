@@ -0,0 +1,34 @@
+package com.expirysync.dsa;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+// Reusable catalog-sized scratch objects (sort keys, score arrays, the
+// sortable copy of the catalog) shared by every thread. A per-thread copy
+// would pin one set of arrays per pooled worker and be thrown away by each
+// virtual thread; this keeps at most one per core, which is as many as can
+// be in use at once by CPU-bound readers. An acquire with the pool empty
+// makes a fresh one; a release with the pool full lets it go.
+class ScratchPool<T> {
+    private final ArrayBlockingQueue<T> idle;
+    private final Supplier<T> factory;
+    private final Consumer<T> reset;
+    
+    // reset runs on every release and must drop any references to products
+    ScratchPool(Supplier<T> factory, Consumer<T> reset) {
+        this.idle = new ArrayBlockingQueue<>(Math.max(1, Runtime.getRuntime().availableProcessors()));
+        this.factory = factory;
+        this.reset = reset;
+    }
+    
+    T acquire() {
+        T scratch = idle.poll();
+        return scratch != null ? scratch : factory.get();
+    }
+    
+    void release(T scratch) {
+        reset.accept(scratch);
+        idle.offer(scratch);
+    }
+}
\ No newline at end of file
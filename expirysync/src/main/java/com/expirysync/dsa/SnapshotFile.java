@@ -0,0 +1,217 @@
+package com.expirysync.dsa;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+// Fixed-layout binary snapshot of the catalog, read back through
+// FileChannel.map so loading is a pass over a mapped buffer instead of a
+// stream of parsed records:
+//
+//   header      magic, version, log seq, product count, string count,
+//               dictionary offset, records offset, CRC32 of the rest
+//   dictionary  every distinct string once: (count + 1) int offsets, then
+//               the UTF-8 bytes
+//   records     RECORD_BYTES per product: id, name, category, supplier and
+//               status as dictionary refs (-1 = null), quantity, expiry as
+//               an epoch-day int, price as the raw bits of its double
+//
+// Repeated categories, suppliers and statuses are stored, decoded and
+// normalized once per distinct value rather than once per product.
+public class SnapshotFile {
+    static final int MAGIC = 0x45585353; // "EXSS"
+    static final int VERSION = 3;
+    
+    private static final int HEADER_BYTES = 48;
+    private static final int RECORD_BYTES = 36;
+    private static final int NO_DAY = Integer.MIN_VALUE;
+    
+    // The catalog as read back: products with their index keys captured,
+    // and the log sequence they reflect
+    public static class Contents {
+        public final long seq;
+        public final Product[] products;
+        
+        Contents(long seq, Product[] products) {
+            this.seq = seq;
+            this.products = products;
+        }
+    }
+    
+    public static void write(Path path, long seq, List<Product> products) throws IOException {
+        Map<String, Integer> refs = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+        int[] records = new int[products.size() * 5];
+        long dictionaryBytes = 0;
+        for (int i = 0; i < products.size(); i++) {
+            Product p = products.get(i);
+            String[] fields = {p.getId(), p.getName(), p.getCategory(), p.getSupplier(), p.getStatus()};
+            for (int f = 0; f < fields.length; f++) {
+                String value = fields[f];
+                if (value == null) {
+                    records[i * 5 + f] = -1;
+                    continue;
+                }
+                Integer ref = refs.get(value);
+                if (ref == null) {
+                    ref = strings.size();
+                    refs.put(value, ref);
+                    strings.add(value);
+                }
+                records[i * 5 + f] = ref;
+            }
+        }
+        byte[][] encoded = new byte[strings.size()][];
+        for (int i = 0; i < encoded.length; i++) {
+            encoded[i] = strings.get(i).getBytes(StandardCharsets.UTF_8);
+            dictionaryBytes += encoded[i].length;
+        }
+        long dictionaryOffset = HEADER_BYTES;
+        long recordsOffset = dictionaryOffset + 4L * (encoded.length + 1) + dictionaryBytes;
+        
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            channel.position(HEADER_BYTES);
+            CRC32 crc = new CRC32();
+            DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16), crc));
+            int offset = 0;
+            for (byte[] bytes : encoded) {
+                out.writeInt(offset);
+                offset += bytes.length;
+            }
+            out.writeInt(offset);
+            for (byte[] bytes : encoded) {
+                out.write(bytes);
+            }
+            for (int i = 0; i < products.size(); i++) {
+                Product p = products.get(i);
+                for (int f = 0; f < 5; f++) {
+                    out.writeInt(records[i * 5 + f]);
+                }
+                out.writeInt(p.getQuantity());
+                out.writeInt(p.getExpiryDate() != null ? Math.toIntExact(p.getExpiryDate().toEpochDay()) : NO_DAY);
+                out.writeLong(Double.doubleToLongBits(p.getPrice()));
+            }
+            out.flush();
+            
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC).putInt(VERSION).putLong(seq).putInt(products.size()).putInt(encoded.length)
+                .putLong(dictionaryOffset).putLong(recordsOffset).putLong(crc.getValue());
+            header.flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(true);
+        }
+    }
+    
+    public static Contents read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot too large to map in one piece: " + path);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IOException("Not a version " + VERSION + " snapshot: " + path);
+            }
+            long seq = buffer.getLong(8);
+            int count = buffer.getInt(16);
+            int stringCount = buffer.getInt(20);
+            int dictionaryOffset = (int) buffer.getLong(24);
+            int recordsOffset = (int) buffer.getLong(32);
+            long expected = buffer.getLong(40);
+            if ((long) recordsOffset + (long) count * RECORD_BYTES != channel.size()) {
+                throw new IOException("Snapshot truncated: " + path);
+            }
+            CRC32 crc = new CRC32();
+            crc.update(buffer.duplicate().position(HEADER_BYTES));
+            if (crc.getValue() != expected) {
+                throw new IOException("Snapshot checksum mismatch: " + path);
+            }
+            
+            Dictionary dictionary = new Dictionary(buffer, dictionaryOffset, stringCount);
+            // Dates are immutable, so products due the same day share one
+            Map<Integer, LocalDate> dates = new HashMap<>();
+            Product[] products = new Product[count];
+            for (int i = 0; i < count; i++) {
+                int at = recordsOffset + i * RECORD_BYTES;
+                Product product = Product.restored(dictionary.get(buffer.getInt(at)));
+                int name = buffer.getInt(at + 4);
+                int category = buffer.getInt(at + 8);
+                int supplier = buffer.getInt(at + 12);
+                int status = buffer.getInt(at + 16);
+                product.setName(dictionary.get(name));
+                product.setCategory(dictionary.get(category));
+                product.setSupplier(dictionary.get(supplier));
+                product.setStatus(dictionary.get(status));
+                product.setQuantity(buffer.getInt(at + 20));
+                int day = buffer.getInt(at + 24);
+                product.setExpiryDate(day == NO_DAY ? null : dates.computeIfAbsent(day, LocalDate::ofEpochDay));
+                product.setPrice(Double.longBitsToDouble(buffer.getLong(at + 28)));
+                product.captureIndexedKeys(dictionary.normalized(name), dictionary.normalized(category),
+                    dictionary.normalized(supplier), dictionary.normalized(status));
+                products[i] = product;
+            }
+            return new Contents(seq, products);
+        }
+    }
+    
+    // Strings decoded from the mapped dictionary on first use, each with
+    // its normalized index key
+    private static class Dictionary {
+        private final ByteBuffer buffer;
+        private final int offsets;
+        private final int bytes;
+        private final String[] decoded;
+        private final String[] normalized;
+        
+        Dictionary(ByteBuffer buffer, int offset, int count) {
+            this.buffer = buffer;
+            this.offsets = offset;
+            this.bytes = offset + 4 * (count + 1);
+            this.decoded = new String[count];
+            this.normalized = new String[count];
+        }
+        
+        String get(int ref) {
+            if (ref < 0) return null;
+            String value = decoded[ref];
+            if (value == null) {
+                int start = buffer.getInt(offsets + 4 * ref);
+                int end = buffer.getInt(offsets + 4 * (ref + 1));
+                byte[] utf8 = new byte[end - start];
+                ByteBuffer src = buffer.duplicate();
+                src.position(bytes + start);
+                src.get(utf8);
+                value = new String(utf8, StandardCharsets.UTF_8);
+                decoded[ref] = value;
+            }
+            return value;
+        }
+        
+        String normalized(int ref) {
+            if (ref < 0) return "";
+            String value = normalized[ref];
+            if (value == null) {
+                value = ProductSearch.normalize(get(ref));
+                normalized[ref] = value;
+            }
+            return value;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,94 @@
+package com.expirysync.dsa;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+// Catalog kept permanently ordered by one key, with the product id breaking
+// ties, so a sorted page is a skip-list walk of O(log n + offset + limit)
+// instead of a full sort. Ordering uses the keys captured in Product's
+// indexed* fields, which only change while the product is out of the index.
+public class SortedProductIndex {
+    private final ProductSorter.SortKey key;
+    private final ConcurrentSkipListSet<Product> products;
+    
+    public SortedProductIndex(ProductSorter.SortKey key) {
+        this.key = key;
+        this.products = new ConcurrentSkipListSet<>(comparatorFor(key).thenComparing(Product::getId));
+    }
+    
+    // Whether a key can be indexed; priority depends on today's date, so it
+    // (like multi-key and name orders) is left to ProductSorter
+    public static boolean supports(ProductSorter.SortKey key) {
+        return key == ProductSorter.SortKey.EXPIRY
+            || key == ProductSorter.SortKey.QUANTITY
+            || key == ProductSorter.SortKey.PRICE;
+    }
+    
+    public void add(Product product) {
+        products.add(product);
+    }
+    
+    public boolean remove(Product product) {
+        return products.remove(product);
+    }
+    
+    public List<Product> page(int offset, int limit, boolean descending) {
+        NavigableSet<Product> view = descending ? products.descendingSet() : products;
+        List<Product> page = new ArrayList<>(Math.min(limit, 1024));
+        Iterator<Product> it = view.iterator();
+        for (int skipped = 0; skipped < offset && it.hasNext(); skipped++) {
+            it.next();
+        }
+        while (page.size() < limit && it.hasNext()) {
+            page.add(it.next());
+        }
+        return page;
+    }
+    
+    // Up to limit products strictly after the given position (null = from
+    // the start), for keyset pagination that stays stable while the index
+    // changes between pages
+    public List<Product> after(Product position, int limit) {
+        NavigableSet<Product> view = position != null ? products.tailSet(position, false) : products;
+        List<Product> page = new ArrayList<>(Math.min(limit, 1024));
+        Iterator<Product> it = view.iterator();
+        while (page.size() < limit && it.hasNext()) {
+            page.add(it.next());
+        }
+        return page;
+    }
+    
+    // Products keyed in [fromDay, toDay); only the expiry index has day keys
+    public NavigableSet<Product> expiringBetween(long fromDay, long toDay) {
+        if (key != ProductSorter.SortKey.EXPIRY) {
+            throw new IllegalStateException("Day ranges need the EXPIRY index, not " + key);
+        }
+        return products.subSet(Product.expiryProbe(fromDay), true, Product.expiryProbe(toDay), false);
+    }
+    
+    public ProductSorter.SortKey getKey() {
+        return key;
+    }
+    
+    public int size() {
+        return products.size();
+    }
+    
+    private static Comparator<Product> comparatorFor(ProductSorter.SortKey key) {
+        switch (key) {
+            case EXPIRY:
+                // NO_EXPIRY is Long.MAX_VALUE, so undated products come last
+                return Comparator.comparingLong(p -> p.indexedExpiryDay);
+            case QUANTITY:
+                return Comparator.comparingInt(p -> p.indexedQuantity);
+            case PRICE:
+                return Comparator.comparingDouble(p -> p.indexedPrice);
+            default:
+                throw new IllegalArgumentException("No sorted index for " + key);
+        }
+    }
+}
\ No newline at end of file
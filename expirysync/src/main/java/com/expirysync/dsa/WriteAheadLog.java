@@ -0,0 +1,440 @@
+package com.expirysync.dsa;
+
+import com.expirysync.log.Log;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+// Append-only log of catalog writes, split into numbered segment files
+// (wal-0000000001.log, ...). Every record carries a sequence number and a
+// CRC, and sets absolute state (put a whole product, remove an id, set a
+// quantity), so replaying a record twice is harmless and a torn tail is
+// simply where replay stops. A bad record anywhere else means acknowledged
+// writes are lost, and replay fails rather than skip past them.
+//
+// Group commit: writers append to an in-memory batch under the write lock
+// and later call sync() without it. One flusher thread writes whatever has
+// accumulated and fsyncs once, so every writer that arrived during the
+// previous fsync shares the next one. Once a write to disk fails, every
+// later append throws before the caller has changed anything, and nothing
+// more is buffered.
+public class WriteAheadLog implements AutoCloseable {
+    private static final Log logger = Log.get(WriteAheadLog.class);
+    
+    static final byte PUT = 1;
+    static final byte REMOVE = 2;
+    static final byte QUANTITY = 3;
+    
+    private static final int MAX_RECORD = 1 << 20;
+    // DataOutput.writeUTF's limit on one string's encoded length
+    public static final int MAX_STRING_BYTES = 65535;
+    
+    private final Path dir;
+    private final Thread flusher;
+    
+    // Batch and counters, guarded by this
+    private ByteArrayOutputStream batch = new ByteArrayOutputStream(64 * 1024);
+    private final ByteArrayOutputStream record = new ByteArrayOutputStream(256);
+    private final DataOutputStream recordOut = new DataOutputStream(record);
+    private final CRC32 crc = new CRC32();
+    private long appendedSeq;
+    private long durableSeq;
+    private long recordsSinceRoll;
+    private IOException failure;
+    private boolean closed;
+    
+    // Current segment, guarded by ioLock; taking batches under it keeps
+    // them in order even when a roll races the flusher
+    private final Object ioLock = new Object();
+    private FileChannel channel;
+    private long segment;
+    
+    // Starts a new segment after the existing ones, continuing from lastSeq
+    public WriteAheadLog(Path dir, long lastSeq) throws IOException {
+        this.dir = dir;
+        this.appendedSeq = lastSeq;
+        this.durableSeq = lastSeq;
+        List<Path> existing = segments(dir);
+        this.segment = existing.isEmpty() ? 1 : segmentNumber(existing.get(existing.size() - 1)) + 1;
+        this.channel = openSegment(segment);
+        this.flusher = new Thread(this::flushLoop, "wal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+    
+    public synchronized void appendPut(Product product) {
+        append(PUT, product, product.getId(), 0);
+    }
+    
+    public synchronized void appendRemove(String id) {
+        append(REMOVE, null, id, 0);
+    }
+    
+    public synchronized void appendQuantity(String id, int quantity) {
+        append(QUANTITY, null, id, quantity);
+    }
+    
+    // Throws IllegalArgumentException if a string field of the product is
+    // too long for a record, or its expiry day will not fit the int a
+    // snapshot stores it in; callers check before changing anything
+    public static void checkRecordable(Product product) {
+        checkLength("id", product.getId());
+        checkLength("name", product.getName());
+        checkLength("category", product.getCategory());
+        checkLength("supplier", product.getSupplier());
+        checkLength("status", product.getStatus());
+        checkExpiry(product.getExpiryDate());
+    }
+    
+    // Blocks until everything appended so far is on disk
+    public void sync() {
+        synchronized (this) {
+            long target = appendedSeq;
+            try {
+                while (durableSeq < target && failure == null) {
+                    wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new UncheckedIOException(new InterruptedIOException("Interrupted waiting for the write-ahead log"));
+            }
+            if (failure != null && durableSeq < target) {
+                throw new UncheckedIOException("Write-ahead log failed", failure);
+            }
+        }
+    }
+    
+    // Flushes the current segment and starts the next one; returns the
+    // sequence of the last record before the roll. Callers hold the
+    // catalog lock so no append can slip in between.
+    public long roll() throws IOException {
+        synchronized (ioLock) {
+            long upTo = writeBatch();
+            channel.close();
+            segment++;
+            channel = openSegment(segment);
+            synchronized (this) {
+                recordsSinceRoll = 0;
+            }
+            return upTo;
+        }
+    }
+    
+    // Segments numbered below the current one, i.e. closed by a roll
+    public void deleteSegmentsBefore(long keepFrom) throws IOException {
+        for (Path path : segments(dir)) {
+            if (segmentNumber(path) < keepFrom) Files.deleteIfExists(path);
+        }
+    }
+    
+    public synchronized long getSegment() {
+        return segment;
+    }
+    
+    public synchronized long getRecordsSinceRoll() {
+        return recordsSinceRoll;
+    }
+    
+    public synchronized long getLastSeq() {
+        return appendedSeq;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (ioLock) {
+            try {
+                writeBatch();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+    
+    // Replays every segment in order, passing records after afterSeq to the
+    // visitor, and returns the highest sequence seen. A segment may end in a
+    // torn record, the unacknowledged part of the batch being written when
+    // the process died; replay of that segment stops there. Throws
+    // IOException at a bad record with intact data after it, or when the
+    // next segment does not pick up the sequence where a torn one stopped.
+    public static long replay(Path dir, long afterSeq, Visitor visitor) throws IOException {
+        long lastSeq = afterSeq;
+        String tornAt = null;
+        for (Path path : segments(dir)) {
+            long size = Files.size(path);
+            long offset = 0;
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+                while (offset < size) {
+                    byte[] payload = readRecord(in);
+                    if (payload == null) {
+                        if (!isTornTail(path, offset, size)) {
+                            throw new IOException("Corrupt record in " + path + " at offset " + offset
+                                + " of " + size + " with intact data after it; replay stopped at seq " + lastSeq);
+                        }
+                        logger.warn("Torn record at the end of {} (offset {} of {}), replay of it stopped at seq {}",
+                            path, offset, size, lastSeq);
+                        tornAt = path + " at offset " + offset;
+                        break;
+                    }
+                    offset += 8 + payload.length;
+                    DataInputStream record = new DataInputStream(new ByteArrayInputStream(payload));
+                    long seq = record.readLong();
+                    byte type = record.readByte();
+                    if (tornAt != null) {
+                        // Only the records after the last durable one can be
+                        // torn, so a restarted log continues right after it
+                        if (seq > lastSeq + 1) {
+                            throw new IOException("Log is torn in " + tornAt + " after seq " + lastSeq
+                                + " but " + path + " continues at seq " + seq);
+                        }
+                        tornAt = null;
+                    }
+                    lastSeq = Math.max(lastSeq, seq);
+                    if (seq <= afterSeq) continue;
+                    switch (type) {
+                        case PUT: visitor.put(readProduct(record)); break;
+                        case REMOVE: visitor.remove(record.readUTF()); break;
+                        case QUANTITY: visitor.quantity(record.readUTF(), record.readInt()); break;
+                        default: throw new IOException("Unknown record type " + type + " in " + path);
+                    }
+                }
+            }
+        }
+        return lastSeq;
+    }
+    
+    public interface Visitor {
+        void put(Product product);
+        void remove(String id);
+        void quantity(String id, int quantity);
+    }
+    
+    // Product fields in a stable order
+    private static void writeProduct(DataOutput out, Product product) throws IOException {
+        out.writeUTF(product.getId());
+        writeString(out, product.getName());
+        writeString(out, product.getCategory());
+        writeString(out, product.getSupplier());
+        writeString(out, product.getStatus());
+        out.writeInt(product.getQuantity());
+        out.writeDouble(product.getPrice());
+        out.writeLong(product.getExpiryDate() != null ? product.getExpiryDate().toEpochDay() : Product.NO_EXPIRY);
+    }
+    
+    private static Product readProduct(DataInput in) throws IOException {
+        Product product = Product.restored(in.readUTF());
+        product.setName(readString(in));
+        product.setCategory(readString(in));
+        product.setSupplier(readString(in));
+        product.setStatus(readString(in));
+        product.setQuantity(in.readInt());
+        product.setPrice(in.readDouble());
+        long day = in.readLong();
+        product.setExpiryDate(day == Product.NO_EXPIRY ? null : LocalDate.ofEpochDay(day));
+        return product;
+    }
+    
+    // Adds one record to the batch. Throws, leaving the batch and sequence
+    // untouched, if the record cannot be written or the log has already
+    // failed, so callers append before changing the catalog.
+    private void append(byte type, Product product, String id, int quantity) {
+        if (failure != null) {
+            throw new UncheckedIOException("Write-ahead log failed", failure);
+        }
+        if (type == PUT) {
+            checkRecordable(product);
+        } else {
+            checkLength("id", id);
+        }
+        try {
+            record.reset();
+            recordOut.writeLong(appendedSeq + 1);
+            recordOut.writeByte(type);
+            if (type == PUT) {
+                writeProduct(recordOut, product);
+            } else {
+                recordOut.writeUTF(id);
+                if (type == QUANTITY) recordOut.writeInt(quantity);
+            }
+            crc.reset();
+            crc.update(record.toByteArray(), 0, record.size());
+            DataOutputStream out = new DataOutputStream(batch);
+            out.writeInt(record.size());
+            out.writeInt((int) crc.getValue());
+            record.writeTo(batch);
+        } catch (IOException e) {
+            // The fields were checked and the streams are in memory
+            throw new UncheckedIOException(e);
+        }
+        appendedSeq++;
+        recordsSinceRoll++;
+        notifyAll();
+    }
+    
+    private void flushLoop() {
+        while (true) {
+            synchronized (this) {
+                while (batch.size() == 0 && !closed) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (batch.size() == 0) return;
+            }
+            try {
+                synchronized (ioLock) {
+                    writeBatch();
+                }
+            } catch (IOException e) {
+                synchronized (this) {
+                    failure = e;
+                    notifyAll();
+                }
+                logger.error("Write-ahead log failed", e);
+                return;
+            }
+        }
+    }
+    
+    // Takes the pending batch, writes and fsyncs it to the current segment
+    // and marks it durable; caller holds ioLock
+    private long writeBatch() throws IOException {
+        ByteArrayOutputStream pending;
+        long upTo;
+        synchronized (this) {
+            if (failure != null) throw failure;
+            pending = batch;
+            upTo = appendedSeq;
+            batch = new ByteArrayOutputStream(Math.max(64 * 1024, pending.size()));
+        }
+        if (pending.size() > 0) {
+            ByteBuffer buffer = ByteBuffer.wrap(pending.toByteArray());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+        synchronized (this) {
+            durableSeq = Math.max(durableSeq, upTo);
+            notifyAll();
+        }
+        return upTo;
+    }
+    
+    private FileChannel openSegment(long number) throws IOException {
+        return FileChannel.open(dir.resolve(String.format("wal-%010d.log", number)),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+    
+    private static List<Path> segments(Path dir) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            files.filter(p -> p.getFileName().toString().matches("wal-\\d{10}\\.log")).sorted().forEach(segments::add);
+        }
+        return segments;
+    }
+    
+    private static long segmentNumber(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(4, name.length() - 4));
+    }
+    
+    // One record's payload, or null at the end of the segment or at a torn
+    // or corrupt record
+    private static byte[] readRecord(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        try {
+            int length = data.readInt();
+            int expected = data.readInt();
+            if (length <= 0 || length > MAX_RECORD) return null;
+            byte[] payload = new byte[length];
+            data.readFully(payload);
+            CRC32 check = new CRC32();
+            check.update(payload);
+            return (int) check.getValue() == expected ? payload : null;
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+    
+    // A bad record at offset is a torn tail if it claims to run to or past
+    // the end of the segment, or if nothing but zeros follows it (the file
+    // grew but the data never reached the disk)
+    private static boolean isTornTail(Path path, long offset, long size) throws IOException {
+        if (size - offset < 8) return true;
+        try (InputStream in = new BufferedInputStream(Channels.newInputStream(FileChannel.open(path).position(offset)), 1 << 16)) {
+            DataInputStream data = new DataInputStream(in);
+            int length = data.readInt();
+            int expected = data.readInt();
+            if (length > 0 && offset + 8 + length >= size) return true;
+            if (length != 0 || expected != 0) return false;
+            int b;
+            while ((b = in.read()) >= 0) {
+                if (b != 0) return false;
+            }
+            return true;
+        }
+    }
+    
+    private static void writeString(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) out.writeUTF(value);
+    }
+    
+    private static void checkLength(String field, String value) {
+        if (value == null || value.length() * 3L <= MAX_STRING_BYTES) return;
+        long bytes = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            // writeUTF's modified UTF-8: NUL takes two bytes
+            bytes += c >= 0x0001 && c <= 0x007F ? 1 : c <= 0x07FF ? 2 : 3;
+        }
+        if (bytes > MAX_STRING_BYTES) {
+            throw new IllegalArgumentException(field + " is too long (" + bytes + " bytes, at most "
+                + MAX_STRING_BYTES + ")");
+        }
+    }
+    
+    // Integer.MIN_VALUE is the snapshot's marker for "no expiry date"
+    private static void checkExpiry(LocalDate expiry) {
+        if (expiry == null) return;
+        long day = expiry.toEpochDay();
+        if (day <= Integer.MIN_VALUE || day > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("expiryDate is out of range (" + expiry + ")");
+        }
+    }
+    
+    private static String readString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
\ No newline at end of file
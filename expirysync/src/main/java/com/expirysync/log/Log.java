@@ -0,0 +1,249 @@
+package com.expirysync.log;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Leveled logger for the dsa and api packages. Messages are templates with
+// {} placeholders, and arguments are passed as they are:
+//
+//     log.debug("Adding product: {}", product.getName());
+//
+// A Throwable as the last argument is also written out as a stack trace
+// after the line, whether or not a {} shows it:
+//
+//     log.error("Checkpoint failed", e);
+//
+// A call below the logger's level returns after one comparison, with no
+// formatting and, for up to three arguments, no allocation. An enabled
+// line is handed to LogRing and formatted and written by its writer
+// thread, so the caller never waits on the console. Each logger also caps
+// how many lines it emits per second, and reports how many it suppressed.
+//
+// Levels come from configure(): a default plus overrides per package or
+// class, e.g. "dsa=warn,api.WebServer=debug" (names are relative to
+// com.expirysync unless they start with "com."). The most specific
+// override wins.
+public final class Log {
+    public enum Level { TRACE, DEBUG, INFO, WARN, ERROR, OFF }
+    
+    private static final String ROOT_PACKAGE = "com.expirysync";
+    private static final Map<String, Log> loggers = new ConcurrentHashMap<>();
+    private static final LogRing ring = new LogRing(8192, System.out, System.err);
+    private static volatile Level defaultLevel = Level.INFO;
+    private static volatile Map<String, Level> overrides = Collections.emptyMap();
+    private static volatile int maxPerSecond = 1000;
+    
+    private final String name;
+    private final String shortName;
+    private volatile int threshold;
+    private final AtomicLong window = new AtomicLong();
+    private final AtomicInteger windowCount = new AtomicInteger();
+    private final AtomicInteger suppressed = new AtomicInteger();
+    
+    private Log(String name) {
+        this.name = name;
+        this.shortName = name.substring(name.lastIndexOf('.') + 1);
+        this.threshold = resolve(name).ordinal();
+    }
+    
+    public static Log get(Class<?> owner) {
+        return loggers.computeIfAbsent(owner.getName(), Log::new);
+    }
+    
+    // level is the default level name; packageLevels is a comma-separated
+    // list of name=level overrides (may be null); maxPerSecond caps the
+    // lines each logger writes per second
+    public static void configure(String level, String packageLevels, int maxPerSecond) {
+        Log log = get(Log.class);
+        Map<String, Level> parsed = new HashMap<>();
+        if (packageLevels != null) {
+            for (String entry : packageLevels.split(",")) {
+                int eq = entry.indexOf('=');
+                if (eq <= 0) continue;
+                String target = entry.substring(0, eq).trim();
+                Level targetLevel = parse(entry.substring(eq + 1), null);
+                if (targetLevel == null) {
+                    log.warn("Unknown log level in '{}', ignored", entry);
+                    continue;
+                }
+                parsed.put(target.startsWith("com.") ? target : ROOT_PACKAGE + "." + target, targetLevel);
+            }
+        }
+        Level parsedDefault = parse(level, null);
+        if (parsedDefault == null) {
+            log.warn("Unknown log level '{}', using info", level);
+            parsedDefault = Level.INFO;
+        }
+        defaultLevel = parsedDefault;
+        overrides = parsed;
+        Log.maxPerSecond = maxPerSecond;
+        for (Log logger : loggers.values()) {
+            logger.threshold = resolve(logger.name).ordinal();
+        }
+    }
+    
+    // Lines lost because the ring was full
+    public static long getDroppedCount() {
+        return ring.getDroppedCount();
+    }
+    
+    public boolean isEnabled(Level level) {
+        return threshold <= level.ordinal();
+    }
+    
+    public boolean isTraceEnabled() {
+        return threshold <= Level.TRACE.ordinal();
+    }
+    
+    public boolean isDebugEnabled() {
+        return threshold <= Level.DEBUG.ordinal();
+    }
+    
+    public void trace(String message) {
+        log(Level.TRACE, message, 0, null, null, null, null);
+    }
+    
+    public void trace(String message, Object a) {
+        log(Level.TRACE, message, 1, a, null, null, null);
+    }
+    
+    public void trace(String message, Object a, Object b) {
+        log(Level.TRACE, message, 2, a, b, null, null);
+    }
+    
+    public void trace(String message, Object a, Object b, Object c) {
+        log(Level.TRACE, message, 3, a, b, c, null);
+    }
+    
+    public void trace(String message, Object... args) {
+        log(Level.TRACE, message, -1, null, null, null, args);
+    }
+    
+    public void debug(String message) {
+        log(Level.DEBUG, message, 0, null, null, null, null);
+    }
+    
+    public void debug(String message, Object a) {
+        log(Level.DEBUG, message, 1, a, null, null, null);
+    }
+    
+    public void debug(String message, Object a, Object b) {
+        log(Level.DEBUG, message, 2, a, b, null, null);
+    }
+    
+    public void debug(String message, Object a, Object b, Object c) {
+        log(Level.DEBUG, message, 3, a, b, c, null);
+    }
+    
+    public void debug(String message, Object... args) {
+        log(Level.DEBUG, message, -1, null, null, null, args);
+    }
+    
+    public void info(String message) {
+        log(Level.INFO, message, 0, null, null, null, null);
+    }
+    
+    public void info(String message, Object a) {
+        log(Level.INFO, message, 1, a, null, null, null);
+    }
+    
+    public void info(String message, Object a, Object b) {
+        log(Level.INFO, message, 2, a, b, null, null);
+    }
+    
+    public void info(String message, Object a, Object b, Object c) {
+        log(Level.INFO, message, 3, a, b, c, null);
+    }
+    
+    public void info(String message, Object... args) {
+        log(Level.INFO, message, -1, null, null, null, args);
+    }
+    
+    public void warn(String message) {
+        log(Level.WARN, message, 0, null, null, null, null);
+    }
+    
+    public void warn(String message, Object a) {
+        log(Level.WARN, message, 1, a, null, null, null);
+    }
+    
+    public void warn(String message, Object a, Object b) {
+        log(Level.WARN, message, 2, a, b, null, null);
+    }
+    
+    public void warn(String message, Object a, Object b, Object c) {
+        log(Level.WARN, message, 3, a, b, c, null);
+    }
+    
+    public void warn(String message, Object... args) {
+        log(Level.WARN, message, -1, null, null, null, args);
+    }
+    
+    public void error(String message) {
+        log(Level.ERROR, message, 0, null, null, null, null);
+    }
+    
+    public void error(String message, Object a) {
+        log(Level.ERROR, message, 1, a, null, null, null);
+    }
+    
+    public void error(String message, Object a, Object b) {
+        log(Level.ERROR, message, 2, a, b, null, null);
+    }
+    
+    public void error(String message, Object a, Object b, Object c) {
+        log(Level.ERROR, message, 3, a, b, c, null);
+    }
+    
+    public void error(String message, Object... args) {
+        log(Level.ERROR, message, -1, null, null, null, args);
+    }
+    
+    private void log(Level level, String message, int argCount, Object a0, Object a1, Object a2, Object[] more) {
+        if (threshold > level.ordinal() || !admit()) return;
+        ring.publish(level, shortName, message, argCount, a0, a1, a2, more);
+    }
+    
+    // Fixed one-second windows; the thread that opens a new window reports
+    // what the previous one suppressed
+    private boolean admit() {
+        long second = System.currentTimeMillis() / 1000;
+        long current = window.get();
+        if (second != current && window.compareAndSet(current, second)) {
+            windowCount.set(0);
+            int skipped = suppressed.getAndSet(0);
+            if (skipped > 0) {
+                ring.publish(Level.WARN, shortName, "{} lines suppressed by the rate limit", 1, skipped, null, null, null);
+            }
+        }
+        if (windowCount.incrementAndGet() <= maxPerSecond) return true;
+        suppressed.incrementAndGet();
+        return false;
+    }
+    
+    private static Level resolve(String name) {
+        Map<String, Level> current = overrides;
+        String key = name;
+        while (true) {
+            Level level = current.get(key);
+            if (level != null) return level;
+            int dot = key.lastIndexOf('.');
+            if (dot < 0) return defaultLevel;
+            key = key.substring(0, dot);
+        }
+    }
+    
+    private static Level parse(String value, Level fallback) {
+        if (value == null) return fallback;
+        try {
+            return Level.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return fallback;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,236 @@
+package com.expirysync.log;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+// Hand-off between logging threads and the one thread that formats and
+// writes. The ring works like ExpiryQueue: a CAS on the tail claims a slot,
+// a per-slot sequence number publishes it. The slots are preallocated
+// entries that producers fill in place, so logging an enabled line costs a
+// CAS and a few field writes, with no allocation, formatting or I/O.
+// Templates and arguments are formatted on the writer thread; arguments
+// must not change after the call.
+//
+// A full ring drops the line rather than block the caller, and the writer
+// reports how many were lost. Once the JVM starts shutting down the ring is
+// drained and later lines are written synchronously.
+class LogRing {
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("HH:mm:ss.SSS")
+        .withZone(ZoneId.systemDefault());
+    private static final long IDLE_PARK_NANOS = 10_000_000;
+    
+    static class Entry {
+        Log.Level level;
+        String logger;
+        String thread;
+        long time;
+        String template;
+        int argCount;
+        Object a0;
+        Object a1;
+        Object a2;
+        Object[] more;
+    }
+    
+    private final Entry[] entries;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+    private final AtomicLong dropped = new AtomicLong();
+    private final Writer out;
+    private final Writer err;
+    private final StringBuilder line = new StringBuilder(256);
+    private final Thread writer;
+    private volatile boolean running = true;
+    
+    LogRing(int capacity, OutputStream out, OutputStream err) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.entries = new Entry[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            entries[i] = new Entry();
+            sequences.set(i, i);
+        }
+        this.mask = size - 1;
+        this.out = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        this.err = new OutputStreamWriter(err, StandardCharsets.UTF_8);
+        this.writer = new Thread(this::drainLoop, "log-writer");
+        writer.setDaemon(true);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "log-flush"));
+    }
+    
+    // Safe to call from any number of threads at once
+    void publish(Log.Level level, String logger, String template, int argCount,
+                 Object a0, Object a1, Object a2, Object[] more) {
+        if (!running) {
+            Entry entry = new Entry();
+            fill(entry, level, logger, template, argCount, a0, a1, a2, more);
+            write(entry);
+            flush();
+            return;
+        }
+        long pos = tail.get();
+        while (true) {
+            int index = (int) (pos & mask);
+            long diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    fill(entries[index], level, logger, template, argCount, a0, a1, a2, more);
+                    sequences.lazySet(index, pos + 1);
+                    return;
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                dropped.incrementAndGet();
+                return;
+            } else {
+                pos = tail.get();
+            }
+        }
+    }
+    
+    long getDroppedCount() {
+        return dropped.get();
+    }
+    
+    private static void fill(Entry entry, Log.Level level, String logger, String template, int argCount,
+                             Object a0, Object a1, Object a2, Object[] more) {
+        entry.level = level;
+        entry.logger = logger;
+        entry.thread = Thread.currentThread().getName();
+        entry.time = System.currentTimeMillis();
+        entry.template = template;
+        entry.argCount = argCount;
+        entry.a0 = a0;
+        entry.a1 = a1;
+        entry.a2 = a2;
+        entry.more = more;
+    }
+    
+    // Writes lines as they arrive and flushes whenever the ring runs dry,
+    // so a burst goes out in large writes and a quiet server still shows
+    // each line promptly
+    private void drainLoop() {
+        long reportedDrops = 0;
+        while (running) {
+            if (drainOnce()) continue;
+            long drops = dropped.get();
+            if (drops != reportedDrops) {
+                writeNotice(Log.Level.WARN, (drops - reportedDrops) + " log lines dropped: buffer full");
+                reportedDrops = drops;
+            }
+            flush();
+            LockSupport.parkNanos(IDLE_PARK_NANOS);
+        }
+    }
+    
+    // Writes one entry if there is one; single consumer only
+    private boolean drainOnce() {
+        long pos = head;
+        int index = (int) (pos & mask);
+        if (sequences.get(index) != pos + 1) return false;
+        Entry entry = entries[index];
+        write(entry);
+        entry.a0 = entry.a1 = entry.a2 = null;
+        entry.more = null;
+        sequences.lazySet(index, pos + entries.length);
+        head = pos + 1;
+        return true;
+    }
+    
+    private void shutdown() {
+        running = false;
+        try {
+            writer.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        while (drainOnce()) {
+            // write what the writer thread left behind
+        }
+        flush();
+    }
+    
+    private synchronized void write(Entry entry) {
+        line.setLength(0);
+        TIME.formatTo(Instant.ofEpochMilli(entry.time), line);
+        line.append(' ').append(entry.level.name());
+        for (int pad = entry.level.name().length(); pad < 5; pad++) {
+            line.append(' ');
+        }
+        line.append(" [").append(entry.thread).append("] ").append(entry.logger).append(" - ");
+        try {
+            format(entry);
+            appendStackTrace(entry);
+        } catch (RuntimeException e) {
+            // A failing toString() must not take the writer thread down
+            line.append(entry.template).append(" [formatting failed: ").append(e).append(']');
+        }
+        line.append('\n');
+        try {
+            (entry.level.compareTo(Log.Level.WARN) >= 0 ? err : out).append(line);
+        } catch (IOException e) {
+            // nowhere left to report it
+        }
+    }
+    
+    private void writeNotice(Log.Level level, String message) {
+        Entry entry = new Entry();
+        fill(entry, level, "LogRing", message, 0, null, null, null, null);
+        write(entry);
+    }
+    
+    // Substitutes each {} in the template with the next argument
+    private void format(Entry entry) {
+        String template = entry.template;
+        int count = entry.argCount < 0 ? entry.more.length : entry.argCount;
+        int start = 0;
+        for (int arg = 0; arg < count; arg++) {
+            int at = template.indexOf("{}", start);
+            if (at < 0) break;
+            line.append(template, start, at);
+            line.append(argument(entry, arg));
+            start = at + 2;
+        }
+        line.append(template, start, template.length());
+    }
+    
+    // A trailing Throwable argument's stack trace goes on the lines after
+    // the message; errors are rare enough that the allocation is fine
+    private void appendStackTrace(Entry entry) {
+        int count = entry.argCount < 0 ? entry.more.length : entry.argCount;
+        if (count == 0 || !(argument(entry, count - 1) instanceof Throwable)) return;
+        StringWriter trace = new StringWriter();
+        ((Throwable) argument(entry, count - 1)).printStackTrace(new PrintWriter(trace));
+        int end = trace.getBuffer().length();
+        while (end > 0 && Character.isWhitespace(trace.getBuffer().charAt(end - 1))) end--;
+        line.append('\n').append(trace.getBuffer(), 0, end);
+    }
+    
+    private static Object argument(Entry entry, int arg) {
+        if (entry.argCount < 0) return entry.more[arg];
+        return arg == 0 ? entry.a0 : arg == 1 ? entry.a1 : entry.a2;
+    }
+    
+    private synchronized void flush() {
+        try {
+            out.flush();
+            err.flush();
+        } catch (IOException e) {
+            // nowhere left to report it
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,104 @@
+package com.expirysync.api;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+// Bytes allocated on server threads per request, for the read endpoints
+// that stream through ResponseBuffer. Starts an in-memory server, imports
+// a catalog, then for each endpoint runs a warm-up followed by `requests`
+// keep-alive GETs and divides the growth of
+// ThreadMXBean.getThreadAllocatedBytes over every thread but this one.
+// Not a JUnit test (it binds the server port and takes a while); run with
+//   mvn test-compile exec:java -Dexec.classpathScope=test
+//       -Dexec.mainClass=com.expirysync.api.AllocationBenchmark -Dexec.args="2000 5000"
+// where the arguments are requests per endpoint and catalog size. The
+// server listens on PORT (default 8080) like the real one.
+public class AllocationBenchmark {
+    private static final int WARM_UP = 300;
+    private static final String[] ENDPOINTS = {
+        "/api/sortProducts?by=expiry&limit=50",
+        "/api/filterProducts?category=Bakery&limit=50",
+        "/api/getUrgent?k=100",
+        "/api/searchProducts?type=text&q=nd&limit=20",
+        "/api/expiringStock?from=2020-01-01&to=2100-01-01&limit=200",
+        "/api/recentAdditions?limit=50",
+        "/api/dashboardStats",
+        // Missing parameters: the error path
+        "/api/sortProducts",
+    };
+    
+    private static final com.sun.management.ThreadMXBean THREADS =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    
+    public static void main(String[] args) throws Exception {
+        int requests = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int products = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+        String port = System.getenv("PORT") != null ? System.getenv("PORT") : "8080";
+        String base = "http://localhost:" + port;
+        
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        WebServer.startServer(new String[] {"--data-dir=off", "--log-level=warn"});
+        importCatalog(base, products);
+        
+        System.out.printf("%-62s %10s %14s%n", "endpoint", "bytes", "alloc/request");
+        for (String endpoint : ENDPOINTS) {
+            for (int i = 0; i < WARM_UP; i++) {
+                get(base + endpoint);
+            }
+            long before = serverAllocatedBytes();
+            int length = 0;
+            for (int i = 0; i < requests; i++) {
+                length = get(base + endpoint);
+            }
+            long perRequest = (serverAllocatedBytes() - before) / requests;
+            System.out.printf("%-62s %10d %11.1f KB%n", endpoint, length, perRequest / 1024.0);
+        }
+        System.exit(0);
+    }
+    
+    private static void importCatalog(String base, int products) throws IOException {
+        String[] categories = {"Bakery", "Dairy", "Produce", "Meat"};
+        HttpURLConnection connection = (HttpURLConnection) new URL(base + "/api/importProducts?format=ndjson").openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        try (Writer out = new OutputStreamWriter(connection.getOutputStream(), StandardCharsets.UTF_8)) {
+            LocalDate today = LocalDate.now();
+            for (int i = 0; i < products; i++) {
+                out.write("{\"name\": \"Nd " + i + "\", \"category\": \"" + categories[i % categories.length]
+                    + "\", \"quantity\": " + (i % 40) + ", \"price\": \"2.5\", \"expiryDate\": \""
+                    + today.plusDays(i % 60 - 5) + "\"}\n");
+            }
+        }
+        if (connection.getResponseCode() != 200) {
+            throw new IOException("Import failed with HTTP " + connection.getResponseCode());
+        }
+        connection.getInputStream().readAllBytes();
+    }
+    
+    // Reads the whole body so the connection goes back to the keep-alive pool
+    private static int get(String url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        int code = connection.getResponseCode();
+        try (InputStream in = code < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+            return in.readAllBytes().length;
+        }
+    }
+    
+    private static long serverAllocatedBytes() {
+        long[] ids = THREADS.getAllThreadIds();
+        long[] bytes = THREADS.getThreadAllocatedBytes(ids);
+        long self = Thread.currentThread().getId();
+        long total = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] != self && bytes[i] > 0) total += bytes[i];
+        }
+        return total;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,121 @@
+package com.expirysync.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.expirysync.dsa.DSAOperations;
+import com.expirysync.dsa.Product;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class BulkImporterTest {
+    @Test
+    void csvWithQuotingAndAnyColumnOrder() throws IOException {
+        DSAOperations ops = new DSAOperations();
+        BulkImporter importer = run(ops, 1000, BulkImporter.Format.CSV,
+            "Price,Name,Expiry_Date,Quantity,Notes,Id\n"
+            + "1.50,Whole Milk,2030-01-02,4,ignored,M1\n"
+            + "2,\"Bread, \"\"Sourdough\"\"\n(sliced)\",2030-01-03,1,,B1\n"
+            + "\n"
+            + "3,Cheese,2030-01-04,2,,C1\n");
+        
+        assertEquals(3, importer.rows);
+        assertEquals(3, importer.added);
+        assertEquals(0, importer.failed);
+        assertEquals("Bread, \"Sourdough\"\n(sliced)", ops.getProduct("B1").getName());
+        assertEquals(1.5, ops.getProduct("M1").getPrice());
+        assertEquals(4, ops.getProduct("M1").getQuantity());
+        assertEquals("2030-01-02", ops.getProduct("M1").getExpiryDate().toString());
+    }
+    
+    // Bad rows are reported by line and skipped; the rest are applied
+    @Test
+    void reportsBadRowsByLine() throws IOException {
+        DSAOperations ops = new DSAOperations();
+        BulkImporter importer = run(ops, 2, BulkImporter.Format.NDJSON,
+            "{\"name\": \"ok 1\"}\n"
+            + "{\"name\": \"negative\", \"quantity\": -1}\n"
+            + "not json\n"
+            + "\n"
+            + "{\"category\": \"no name\"}\n"
+            + "{\"name\": \"bad date\", \"expiryDate\": \"soon\"}\n"
+            + "{\"name\": \"" + "x".repeat(70_000) + "\"}\n"
+            + "{\"name\": \"ok 2\"}\n");
+        
+        assertEquals(7, importer.rows);
+        assertEquals(2, importer.added);
+        assertEquals(5, importer.failed);
+        List<Object> lines = new ArrayList<>();
+        for (Map<String, Object> error : importer.errors) {
+            lines.add(error.get("line"));
+        }
+        assertEquals(List.of(2, 3, 5, 6, 7), lines);
+        assertEquals(2, ops.getProductCount());
+    }
+    
+    @Test
+    void unterminatedQuoteEndsTheFeed() throws IOException {
+        DSAOperations ops = new DSAOperations();
+        BulkImporter importer = run(ops, 1000, BulkImporter.Format.CSV,
+            "name,quantity\nfirst,1\n\"open,2\nsecond,3\n");
+        assertEquals(1, importer.added);
+        assertEquals(1, importer.failed);
+        assertEquals(3, importer.errors.get(0).get("line"));
+    }
+    
+    // A feed that repeats an id, within a batch and across batches, ends
+    // with the last row stored and only that instance in the urgency heap
+    // and recent stack
+    @Test
+    void repeatedIdsKeepTheLastRow() throws IOException {
+        DSAOperations ops = new DSAOperations();
+        BulkImporter importer = run(ops, 3, BulkImporter.Format.NDJSON,
+            "{\"id\": \"A\", \"name\": \"a1\"}\n"
+            + "{\"id\": \"B\", \"name\": \"b1\"}\n"
+            + "{\"id\": \"A\", \"name\": \"a2\"}\n"
+            + "{\"id\": \"B\", \"name\": \"b2\"}\n"
+            + "{\"id\": \"A\", \"name\": \"a3\"}\n");
+        
+        assertEquals(5, importer.rows);
+        assertEquals(2, importer.added);
+        assertEquals(3, importer.updated);
+        assertEquals(2, importer.batches);
+        Product a = ops.getProduct("A");
+        Product b = ops.getProduct("B");
+        assertEquals("a3", a.getName());
+        assertEquals("b2", b.getName());
+        assertEquals(Set.of(a, b), identities(ops.getUrgentProducts(0, 10, null)));
+        assertEquals(Set.of(a, b), identities(ops.getRecentAdditions(10)));
+        
+        ops.removeProduct("A");
+        ops.removeProduct("B");
+        assertEquals(0, ops.getUrgentProducts(0, 10, null).size());
+        assertEquals(0, ops.getRecentAdditions(10).size());
+    }
+    
+    @Test
+    void formatFromParameterOrContentType() {
+        assertSame(BulkImporter.Format.CSV, BulkImporter.formatFor("CSV", null));
+        assertSame(BulkImporter.Format.NDJSON, BulkImporter.formatFor("jsonl", "text/csv"));
+        assertSame(BulkImporter.Format.CSV, BulkImporter.formatFor(null, "text/csv; charset=utf-8"));
+        assertSame(BulkImporter.Format.NDJSON, BulkImporter.formatFor(null, null));
+    }
+    
+    private static BulkImporter run(DSAOperations ops, int batchSize, BulkImporter.Format format, String feed) throws IOException {
+        BulkImporter importer = new BulkImporter(ops, batchSize);
+        importer.run(new StringReader(feed), format);
+        return importer;
+    }
+    
+    private static Set<Product> identities(List<Product> products) {
+        Set<Product> set = new HashSet<>(products);
+        assertEquals(products.size(), set.size(), "duplicate products");
+        return set;
+    }
+}
\ No newline at end of file
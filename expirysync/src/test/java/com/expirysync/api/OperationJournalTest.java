@@ -0,0 +1,140 @@
+package com.expirysync.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+class OperationJournalTest {
+    @Test
+    void cursorPagesOldestFirst() {
+        OperationJournal journal = new OperationJournal(5);
+        assertEquals(8, journal.capacity());
+        for (int i = 0; i < 5; i++) {
+            journal.record(OperationJournal.Type.ADD, System.nanoTime(), "P" + i, 1);
+        }
+        
+        OperationJournal.Page first = journal.read(0, 3);
+        assertEquals(List.of(1L, 2L, 3L), seqs(first));
+        assertEquals(3, first.nextCursor);
+        assertTrue(first.hasMore);
+        assertEquals(0, first.missed);
+        
+        OperationJournal.Page second = journal.read(first.nextCursor, 10);
+        assertEquals(List.of(4L, 5L), seqs(second));
+        assertEquals(5, second.nextCursor);
+        assertFalse(second.hasMore);
+        
+        OperationJournal.Page idle = journal.read(second.nextCursor, 10);
+        assertEquals(List.of(), seqs(idle));
+        assertEquals(5, idle.nextCursor);
+        assertEquals(0, idle.missed);
+        
+        // A cursor from before a restart starts again from the oldest entry
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), seqs(journal.read(100, 10)));
+    }
+    
+    // Once the journal laps a reader, the entries it overwrote are counted
+    // as missed and the page resumes at the oldest one still held
+    @Test
+    void lappedReaderIsToldWhatItMissed() {
+        OperationJournal journal = new OperationJournal(4);
+        for (int i = 0; i < 10; i++) {
+            journal.record(OperationJournal.Type.SEARCH, System.nanoTime(), "q" + i, i);
+        }
+        
+        OperationJournal.Page behind = journal.read(2, 10);
+        assertEquals(List.of(7L, 8L, 9L, 10L), seqs(behind));
+        assertEquals(4, behind.missed);
+        assertEquals(7, behind.oldestSeq);
+        assertEquals(10, behind.latestSeq);
+        assertEquals(10, behind.nextCursor);
+        
+        OperationJournal.Page fromStart = journal.read(0, 2);
+        assertEquals(List.of(7L, 8L), seqs(fromStart));
+        assertEquals(6, fromStart.missed);
+        assertTrue(fromStart.hasMore);
+        assertEquals("q6", fromStart.entries.get(0).subject);
+    }
+    
+    // However writers and a polling reader interleave, every sequence is
+    // either returned once, in order, or counted as missed
+    @Test
+    void concurrentWritersAreAllAccountedFor() throws Exception {
+        int writers = 4;
+        int perWriter = 20_000;
+        OperationJournal journal = new OperationJournal(256);
+        ExecutorService pool = Executors.newFixedThreadPool(writers);
+        try {
+            List<Future<?>> done = new ArrayList<>();
+            for (int w = 0; w < writers; w++) {
+                done.add(pool.submit(() -> {
+                    for (int i = 0; i < perWriter; i++) {
+                        journal.record(OperationJournal.Type.STATS, System.nanoTime(), null, -1);
+                    }
+                }));
+            }
+            
+            long cursor = 0;
+            long received = 0;
+            long missed = 0;
+            while (cursor < (long) writers * perWriter) {
+                OperationJournal.Page page = journal.read(cursor, 100);
+                long previous = cursor;
+                for (OperationJournal.Entry entry : page.entries) {
+                    assertTrue(entry.seq > previous);
+                    previous = entry.seq;
+                }
+                received += page.entries.size();
+                missed += page.missed;
+                cursor = page.nextCursor;
+                if (page.entries.isEmpty()) {
+                    Thread.yield();
+                }
+            }
+            for (Future<?> future : done) {
+                future.get();
+            }
+            assertEquals((long) writers * perWriter, received + missed);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+    
+    @Test
+    void pageJson() throws IOException {
+        OperationJournal journal = new OperationJournal(4);
+        journal.record(OperationJournal.Type.UPDATE_QUANTITY, System.nanoTime(), "P1", 7);
+        journal.record(OperationJournal.Type.STATS, System.nanoTime(), null, -1);
+        
+        StringWriter out = new StringWriter();
+        journal.read(0, 10).writeTo(new JsonWriter(out));
+        JsonObject page = JsonParser.parseString(out.toString()).getAsJsonObject();
+        assertEquals(2, page.get("count").getAsInt());
+        assertEquals(2, page.get("nextCursor").getAsLong());
+        assertEquals(4, page.get("capacity").getAsInt());
+        JsonObject update = page.getAsJsonArray("operations").get(0).getAsJsonObject();
+        assertEquals("update_quantity", update.get("type").getAsString());
+        assertEquals("P1", update.get("subject").getAsString());
+        assertEquals(7, update.get("count").getAsInt());
+        JsonObject stats = page.getAsJsonArray("operations").get(1).getAsJsonObject();
+        assertEquals("stats", stats.get("type").getAsString());
+        assertFalse(stats.has("count"));
+    }
+    
+    private static List<Long> seqs(OperationJournal.Page page) {
+        return page.entries.stream().map(entry -> entry.seq).collect(Collectors.toList());
+    }
+}
\ No newline at end of file
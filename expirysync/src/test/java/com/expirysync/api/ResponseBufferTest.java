@@ -0,0 +1,46 @@
+package com.expirysync.api;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import org.junit.jupiter.api.Test;
+
+class ResponseBufferTest {
+    @Test
+    void encodesLikeStringGetBytes() throws IOException {
+        String text = "plain, é, €, 🍎 and a lone \uD800 surrogate";
+        ResponseBuffer buffer = ResponseBuffer.acquire();
+        try {
+            buffer.write(text);
+            buffer.write(text.toCharArray(), 0, text.length());
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            buffer.writeTo(out);
+            assertArrayEquals((text + text).getBytes(StandardCharsets.UTF_8), out.toByteArray());
+        } finally {
+            buffer.release();
+        }
+    }
+    
+    // A released buffer is handed to the next request whatever thread it
+    // runs on, and empty
+    @Test
+    void releasedBufferIsReusedByAnyThread() throws ExecutionException, InterruptedException, IOException {
+        ResponseBuffer buffer = ResponseBuffer.acquire();
+        buffer.write("x".repeat(ResponseBuffer.MAX_RETAINED + 1));
+        buffer.release();
+        
+        ResponseBuffer reused = CompletableFuture.supplyAsync(ResponseBuffer::acquire).get();
+        try {
+            assertSame(buffer, reused);
+            assertEquals(0, reused.size());
+        } finally {
+            reused.release();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,106 @@
+package com.expirysync.dsa;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class AttributeBitmapsTest {
+    private static final String[] BANDS = {"expired", "critical", "urgent", "normal"};
+    
+    // Rolling the day re-bands just the boundary products, after which every
+    // priority bitmap matches a brute-force classification for that day
+    @Test
+    void rollToKeepsPriorityBandsCurrent() {
+        Random random = new Random(7);
+        AttributeBitmaps bitmaps = new AttributeBitmaps(100);
+        SortedProductIndex byExpiry = new SortedProductIndex(ProductSorter.SortKey.EXPIRY);
+        List<Product> products = products(random, 5000);
+        for (Product product : products) {
+            byExpiry.add(product);
+            bitmaps.add(product);
+        }
+        for (long day = 100; day < 140; day += 1 + random.nextInt(4)) {
+            bitmaps.rollTo(day, byExpiry.expiringBetween(bitmaps.getDay(), day + 8));
+            assertBands(bitmaps, products, day);
+        }
+    }
+    
+    // An index advanced while empty bands what it is built with against the
+    // new day
+    @Test
+    void advanceToBandsLaterAdds() {
+        Random random = new Random(9);
+        AttributeBitmaps bitmaps = new AttributeBitmaps(100);
+        bitmaps.advanceTo(112);
+        bitmaps.advanceTo(105);
+        List<Product> products = products(random, 2000);
+        for (Product product : products) {
+            bitmaps.add(product);
+        }
+        assertBands(bitmaps, products, 112);
+    }
+    
+    @Test
+    void filterCombinesValuesAttributesAndExclusions() {
+        Random random = new Random(13);
+        String[] categories = {"Dairy", "Bakery", "Meat"};
+        String[] suppliers = {"Acme", "Ünïon"};
+        String[] statuses = {"Active", "Hold"};
+        AttributeBitmaps bitmaps = new AttributeBitmaps(100);
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            Product product = new Product();
+            product.setCategory(categories[random.nextInt(3)]);
+            product.setSupplier(suppliers[random.nextInt(2)]);
+            product.setStatus(statuses[random.nextInt(2)]);
+            product.setExpiryDate(LocalDate.ofEpochDay(95 + random.nextInt(20)));
+            product.captureIndexedKeys();
+            product.slot = i;
+            products.add(product);
+            bitmaps.add(product);
+        }
+        AttributeBitmaps.Filter filter = new AttributeBitmaps.Filter()
+            .require(AttributeBitmaps.Attribute.CATEGORY, "dairy")
+            .require(AttributeBitmaps.Attribute.CATEGORY, "MEAT")
+            .require(AttributeBitmaps.Attribute.SUPPLIER, "union")
+            .exclude(AttributeBitmaps.Attribute.STATUS, "hold");
+        BitSet expected = new BitSet();
+        for (Product product : products) {
+            if ((product.getCategory().equals("Dairy") || product.getCategory().equals("Meat"))
+                    && product.getSupplier().equals("Ünïon") && !product.getStatus().equals("Hold")) {
+                expected.set(product.slot);
+            }
+        }
+        assertArrayEquals(expected.stream().toArray(), bitmaps.match(filter, products.size()).toArray(0, Integer.MAX_VALUE));
+    }
+    
+    private static List<Product> products(Random random, int count) {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Product product = new Product();
+            product.setExpiryDate(random.nextInt(20) == 0 ? null : LocalDate.ofEpochDay(90 + random.nextInt(40)));
+            product.captureIndexedKeys();
+            product.slot = i;
+            products.add(product);
+        }
+        return products;
+    }
+    
+    private static void assertBands(AttributeBitmaps bitmaps, List<Product> products, long day) {
+        for (int band = 0; band < BANDS.length; band++) {
+            BitSet expected = new BitSet();
+            for (Product product : products) {
+                long expiry = product.getExpiryDate() == null ? Product.NO_EXPIRY : product.getExpiryDate().toEpochDay();
+                if (Product.priorityFor(expiry, day) == band) expected.set(product.slot);
+            }
+            AttributeBitmaps.Filter filter = new AttributeBitmaps.Filter().require(AttributeBitmaps.Attribute.PRIORITY, BANDS[band]);
+            assertArrayEquals(expected.stream().toArray(), bitmaps.match(filter, products.size()).toArray(0, Integer.MAX_VALUE),
+                BANDS[band] + " on day " + day);
+        }
+    }
+}
\ No newline at end of file
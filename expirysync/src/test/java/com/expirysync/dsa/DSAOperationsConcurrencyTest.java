@@ -0,0 +1,131 @@
+package com.expirysync.dsa;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+
+// Parallel add/remove traffic against one DSAOperations while readers sort,
+// search and page the urgent list. Once the writers finish, every kept
+// product must be reachable through every structure and every removed one
+// through none.
+class DSAOperationsConcurrencyTest {
+    private static final int WRITERS = 8;
+    private static final int READERS = 2;
+    private static final int ADDS_PER_WRITER = 500;
+    private static final int ALL = 100_000;
+    
+    @Test
+    void concurrentAddsAndRemovesLoseNothing() throws Exception {
+        DSAOperations ops = new DSAOperations();
+        ExecutorService pool = Executors.newFixedThreadPool(WRITERS + READERS);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        Set<String> kept = new HashSet<>();
+        Set<String> removed = new HashSet<>();
+        try {
+            List<Future<?>> readers = new ArrayList<>();
+            for (int r = 0; r < READERS; r++) {
+                readers.add(pool.submit(() -> {
+                    while (writing.get()) {
+                        ops.sortProducts(ProductSorter.parse("expiry"), 0, 20);
+                        ops.sortProducts(ProductSorter.parse("quantity,-price"), 0, 20);
+                        ops.searchText("stress", 20);
+                        ops.getUrgentProducts(0, 20, "stress");
+                        ops.getDashboardStats();
+                    }
+                    return null;
+                }));
+            }
+            
+            List<Future<List<List<String>>>> writers = new ArrayList<>();
+            for (int w = 0; w < WRITERS; w++) {
+                final int worker = w;
+                writers.add(pool.submit(() -> {
+                    // Each writer adds its products and removes every other one
+                    List<String> keptHere = new ArrayList<>();
+                    List<String> removedHere = new ArrayList<>();
+                    for (int i = 0; i < ADDS_PER_WRITER; i++) {
+                        Product product = new Product();
+                        product.setName("Stress " + worker + "-" + i);
+                        product.setCategory("Stress");
+                        product.setQuantity(i % 20);
+                        product.setPrice(i % 7);
+                        product.setExpiryDate(LocalDate.now().plusDays(i % 30));
+                        ops.addProduct(product);
+                        if (i % 2 == 0) {
+                            assertSame(product, ops.removeProduct(product.getId()));
+                            removedHere.add(product.getId());
+                        } else {
+                            keptHere.add(product.getId());
+                        }
+                    }
+                    List<List<String>> result = new ArrayList<>();
+                    result.add(keptHere);
+                    result.add(removedHere);
+                    return result;
+                }));
+            }
+            
+            for (Future<List<List<String>>> writer : writers) {
+                List<List<String>> result = writer.get();
+                kept.addAll(result.get(0));
+                removed.addAll(result.get(1));
+            }
+            writing.set(false);
+            for (Future<?> reader : readers) {
+                reader.get();
+            }
+        } finally {
+            writing.set(false);
+            pool.shutdownNow();
+        }
+        
+        assertEquals(WRITERS * ADDS_PER_WRITER / 2, kept.size());
+        assertEquals(WRITERS * ADDS_PER_WRITER / 2, removed.size());
+        for (String id : kept) {
+            assertNotNull(ops.getProduct(id), id);
+        }
+        for (String id : removed) {
+            assertNull(ops.getProduct(id), id);
+        }
+        
+        assertEquals(kept, ids(ops.sortProducts(ProductSorter.parse("expiry"), 0, ALL)), "expiry index");
+        assertEquals(kept, ids(ops.sortProducts(ProductSorter.parse("quantity,-price"), 0, ALL)), "sorted catalog");
+        assertEquals(kept, ids(ops.getUrgentProducts(0, ALL, null)), "urgency heap");
+        assertEquals(kept, ids(ops.filterProducts(
+            new AttributeBitmaps.Filter().require(AttributeBitmaps.Attribute.CATEGORY, "stress"), 0, ALL).products), "bitmaps");
+        Set<String> hits = new HashSet<>();
+        for (InvertedIndex.Hit hit : ops.searchText("stress", ALL)) {
+            hits.add(hit.product.getId());
+        }
+        assertEquals(kept, hits, "text index");
+        for (Product product : ops.getRecentAdditions(50)) {
+            assertTrue(kept.contains(product.getId()), product.getId());
+        }
+        
+        assertEquals(kept.size(), ops.getProductCount());
+        assertEquals(kept.size(), ops.getDashboardStats().get("totalProducts"));
+        assertEquals(kept.size(), ops.getDashboardStats().get("urgentCount"));
+    }
+    
+    private static Set<String> ids(List<Product> products) {
+        Set<String> ids = new HashSet<>();
+        for (Product product : products) {
+            ids.add(product.getId());
+        }
+        assertEquals(products.size(), ids.size(), "duplicate products");
+        return ids;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,240 @@
+package com.expirysync.dsa;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+// Random adds, removes, quantity updates and replacements, with every
+// secondary index queried along the way and compared with a linear scan of
+// the catalog
+class DSAOperationsTest {
+    private static final long TODAY = DayClock.system().today();
+    private static final String[] CATEGORIES = {"Dairy", "Bakery", "Crème Pâtisserie"};
+    private static final String[] SUPPLIERS = {"Acme", "Fresh Co", "Ünïon"};
+    private static final String[] STATUSES = {"Active", "Expired", "Hold"};
+    private static final int ALL = 1_000_000;
+    
+    @Test
+    void indexesMatchLinearScan() {
+        Random random = new Random(3);
+        DSAOperations ops = new DSAOperations(1 << 16, ExpiryQueue.OverflowPolicy.SPILL, 50);
+        List<String> ids = new ArrayList<>();
+        Set<String> removed = new HashSet<>();
+        for (int step = 0; step < 8000; step++) {
+            int op = random.nextInt(10);
+            if (op < 6 || ids.isEmpty()) {
+                Product product = randomProduct(random, new Product());
+                ops.addProduct(product);
+                ids.add(product.getId());
+            } else if (op < 8) {
+                String id = ids.remove(random.nextInt(ids.size()));
+                ops.removeProduct(id);
+                removed.add(id);
+            } else if (op < 9) {
+                ops.updateQuantity(ids.get(random.nextInt(ids.size())), random.nextInt(50));
+            } else {
+                Product replacement = randomProduct(random, new Product());
+                replacement.setId(ids.get(random.nextInt(ids.size())));
+                ops.updateProduct(replacement);
+            }
+            if (step % 400 == 399) {
+                List<Product> catalog = catalog(ops, ids);
+                checkSortedPages(ops, catalog);
+                checkExpiringStock(ops, catalog, random);
+                checkFilter(ops, catalog, random);
+                checkTextSearch(ops, catalog);
+            }
+        }
+        for (String id : removed) {
+            assertNull(ops.getProduct(id), id);
+        }
+    }
+    
+    // A quantity change leaves the text postings alone: repeated updates
+    // neither bump the product's search generation nor change what a
+    // search returns
+    @Test
+    void updateQuantityLeavesTextIndexAlone() {
+        DSAOperations ops = new DSAOperations();
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Product product = new Product();
+            product.setName("Milk bread " + (i % 10));
+            product.setCategory("Bakery");
+            ops.addProduct(product);
+            products.add(product);
+        }
+        int hits = ops.searchText("bread 7", 1000).size();
+        int[] generations = new int[products.size()];
+        for (int i = 0; i < generations.length; i++) {
+            generations[i] = products.get(i).searchGeneration;
+        }
+        Random random = new Random(1);
+        for (int i = 0; i < 2000; i++) {
+            ops.updateQuantity(products.get(random.nextInt(products.size())).getId(), random.nextInt(100));
+        }
+        for (int i = 0; i < generations.length; i++) {
+            assertEquals(generations[i], products.get(i).searchGeneration);
+        }
+        assertEquals(hits, ops.searchText("bread 7", 1000).size());
+        
+        List<Product> byQuantity = ops.sortProducts(ProductSorter.parse("quantity"), 0, ALL);
+        List<Product> expected = new ArrayList<>(products);
+        expected.sort(Comparator.comparingInt(Product::getQuantity).thenComparing(Product::getId));
+        assertEquals(expected, byQuantity);
+    }
+    
+    // A new id repeated within one batch is stored once, from its last row,
+    // and that live instance is what the heap and the stack hold
+    @Test
+    void addProductsKeepsLastRowOfRepeatedId() {
+        DSAOperations ops = new DSAOperations();
+        Product first = namedProduct("DUP", "first");
+        Product other = namedProduct("OTHER", "other");
+        Product last = namedProduct("DUP", "last");
+        assertEquals(2, ops.addProducts(List.of(first, other, last)));
+        
+        assertSame(last, ops.getProduct("DUP"));
+        assertEquals(2, ops.getProductCount());
+        assertEquals(Set.of(last, other), new HashSet<>(ops.getUrgentProducts(0, 10, null)));
+        assertEquals(List.of(last, other), ops.getRecentAdditions(10));
+        
+        assertSame(last, ops.removeProduct("DUP"));
+        assertEquals(List.of(other), ops.getUrgentProducts(0, 10, null));
+        assertEquals(List.of(other), ops.getRecentAdditions(10));
+        
+        // Repeats of an id already stored replace it in place
+        Product again = namedProduct("OTHER", "again");
+        Product latest = namedProduct("OTHER", "latest");
+        assertEquals(0, ops.addProducts(List.of(again, latest)));
+        assertSame(latest, ops.getProduct("OTHER"));
+        assertEquals(List.of(latest), ops.getUrgentProducts(0, 10, null));
+    }
+    
+    private static Product namedProduct(String id, String name) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        return product;
+    }
+    
+    private static Product randomProduct(Random random, Product product) {
+        product.setName("item " + random.nextInt(300));
+        product.setCategory(CATEGORIES[random.nextInt(CATEGORIES.length)]);
+        product.setSupplier(SUPPLIERS[random.nextInt(SUPPLIERS.length)]);
+        product.setStatus(STATUSES[random.nextInt(STATUSES.length)]);
+        product.setQuantity(random.nextInt(50));
+        product.setPrice(random.nextInt(2000) / 100.0);
+        product.setExpiryDate(random.nextInt(15) == 0 ? null : LocalDate.ofEpochDay(TODAY - 5 + random.nextInt(40)));
+        return product;
+    }
+    
+    private static List<Product> catalog(DSAOperations ops, List<String> ids) {
+        List<Product> catalog = new ArrayList<>();
+        for (String id : ids) {
+            catalog.add(ops.getProduct(id));
+        }
+        assertEquals(catalog.size(), ops.getProductCount());
+        return catalog;
+    }
+    
+    private static void checkSortedPages(DSAOperations ops, List<Product> catalog) {
+        for (String spec : new String[] {"expiry", "-expiry", "quantity", "-quantity", "price", "-price"}) {
+            List<ProductSorter.Order> orders = ProductSorter.parse(spec);
+            Comparator<Product> comparator;
+            switch (orders.get(0).key) {
+                case EXPIRY: comparator = Comparator.comparing(Product::getExpiryDate, Comparator.nullsLast(Comparator.naturalOrder())); break;
+                case QUANTITY: comparator = Comparator.comparingInt(Product::getQuantity); break;
+                default: comparator = Comparator.comparingDouble(Product::getPrice);
+            }
+            comparator = comparator.thenComparing(Product::getId);
+            if (orders.get(0).descending) comparator = comparator.reversed();
+            List<Product> expected = new ArrayList<>(catalog);
+            expected.sort(comparator);
+            assertEquals(expected, ops.sortProducts(orders, 0, ALL), spec);
+            assertEquals(expected.subList(Math.min(100, expected.size()), Math.min(130, expected.size())),
+                ops.sortProducts(orders, 100, 30), spec + " page");
+        }
+    }
+    
+    private static void checkExpiringStock(DSAOperations ops, List<Product> catalog, Random random) {
+        long from = TODAY + random.nextInt(30);
+        long to = from + random.nextInt(10) - 2;
+        int below = random.nextInt(55);
+        String category = random.nextBoolean() ? null : CATEGORIES[random.nextInt(CATEGORIES.length)].toUpperCase();
+        int offset = random.nextInt(20);
+        int limit = 1 + random.nextInt(40);
+        List<Product> expected = new ArrayList<>();
+        for (Product product : catalog) {
+            if (product.getExpiryDate() == null) continue;
+            long day = product.getExpiryDate().toEpochDay();
+            if (day >= from && day <= to && product.getQuantity() < below
+                    && (category == null || ProductSearch.normalize(product.getCategory()).equals(ProductSearch.normalize(category)))) {
+                expected.add(product);
+            }
+        }
+        expected.sort(Comparator.<Product>comparingLong(p -> p.getExpiryDate().toEpochDay())
+            .thenComparingInt(Product::getQuantity).thenComparing(Product::getId));
+        ProductPage page = ops.findExpiringStock(from, to, below, category, offset, limit);
+        assertEquals(expected.size(), page.total);
+        assertEquals(expected.subList(Math.min(offset, expected.size()), Math.min(expected.size(), offset + limit)), page.products);
+    }
+    
+    private static void checkFilter(DSAOperations ops, List<Product> catalog, Random random) {
+        boolean byCategory = random.nextBoolean();
+        boolean bySupplier = random.nextBoolean();
+        boolean excludeExpired = random.nextBoolean();
+        boolean urgentOnly = random.nextBoolean();
+        AttributeBitmaps.Filter filter = new AttributeBitmaps.Filter();
+        if (byCategory) {
+            filter.require(AttributeBitmaps.Attribute.CATEGORY, "dairy").require(AttributeBitmaps.Attribute.CATEGORY, "CREME PATISSERIE");
+        }
+        if (bySupplier) filter.require(AttributeBitmaps.Attribute.SUPPLIER, "union");
+        if (excludeExpired) filter.exclude(AttributeBitmaps.Attribute.STATUS, "expired");
+        if (urgentOnly) filter.require(AttributeBitmaps.Attribute.PRIORITY, "critical").require(AttributeBitmaps.Attribute.PRIORITY, "0");
+        
+        Set<String> expected = new HashSet<>();
+        for (Product product : catalog) {
+            if (byCategory && !(product.getCategory().equals("Dairy") || product.getCategory().equals("Crème Pâtisserie"))) continue;
+            if (bySupplier && !product.getSupplier().equals("Ünïon")) continue;
+            if (excludeExpired && product.getStatus().equals("Expired")) continue;
+            if (urgentOnly && product.getPriority() > 1) continue;
+            expected.add(product.getId());
+        }
+        ProductPage page = ops.filterProducts(filter, 0, ALL);
+        Set<String> actual = new HashSet<>();
+        for (Product product : page.products) {
+            actual.add(product.getId());
+        }
+        assertEquals(expected.size(), page.total, filter.toString());
+        assertEquals(expected, actual, filter.toString());
+    }
+    
+    // Every product named "item 7" is found, once, by an exact search
+    private static void checkTextSearch(DSAOperations ops, List<Product> catalog) {
+        Set<String> expected = new HashSet<>();
+        for (Product product : catalog) {
+            if (product.getName().equals("item 7")) expected.add(product.getId());
+        }
+        Set<String> actual = new HashSet<>();
+        List<InvertedIndex.Hit> hits = ops.searchText("item 7", catalog.size() + 1);
+        for (InvertedIndex.Hit hit : hits) {
+            if (hit.matchedTerms == 2 && hit.product.getName().equals("item 7")) actual.add(hit.product.getId());
+        }
+        assertEquals(expected, actual);
+        Set<String> distinct = new HashSet<>();
+        for (InvertedIndex.Hit hit : hits) {
+            assertTrue(distinct.add(hit.product.getId()), "duplicate hit " + hit.product.getId());
+        }
+    }
+}
\ No newline at end of file
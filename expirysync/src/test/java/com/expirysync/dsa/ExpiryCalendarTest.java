@@ -0,0 +1,97 @@
+package com.expirysync.dsa;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class ExpiryCalendarTest {
+    private static final long START = 20_000;
+    
+    // Random schedules, unschedules and polls, with the cursor sometimes
+    // jumping past the wheel horizon, checked against a plain set
+    @Test
+    void matchesSetModel() {
+        Random random = new Random(7);
+        ExpiryCalendar calendar = new ExpiryCalendar(START);
+        Set<Product> live = new HashSet<>();
+        List<Product> order = new ArrayList<>();
+        long now = START;
+        for (int step = 0; step < 100_000; step++) {
+            int op = random.nextInt(10);
+            if (op < 5) {
+                long day = random.nextInt(10) == 0 ? now + random.nextInt(3000) : now - 20 + random.nextInt(60);
+                Product product = product(day);
+                calendar.schedule(product);
+                live.add(product);
+                order.add(product);
+            } else if (op < 7 && !live.isEmpty()) {
+                Product product = order.remove(random.nextInt(order.size()));
+                if (!live.remove(product)) continue;
+                assertTrue(calendar.unschedule(product));
+                assertFalse(calendar.isScheduled(product));
+            } else if (op < 9) {
+                if (random.nextInt(20) == 0) now += random.nextInt(random.nextInt(50) == 0 ? 2000 : 5);
+                long lastDay = now - 2 + random.nextInt(3);
+                int limit = 1 + random.nextInt(5);
+                List<Product> due = calendar.pollDue(lastDay, limit);
+                long previous = Long.MIN_VALUE;
+                for (Product product : due) {
+                    assertTrue(product.indexedExpiryDay <= lastDay, "not due yet");
+                    assertTrue(product.indexedExpiryDay >= previous, "out of order");
+                    assertTrue(live.remove(product), "polled twice");
+                    previous = product.indexedExpiryDay;
+                }
+                if (due.size() < limit) {
+                    for (Product product : live) {
+                        assertTrue(product.indexedExpiryDay > lastDay, "missed a due product");
+                    }
+                }
+            }
+            assertEquals(live.size(), calendar.size(), "size at step " + step);
+        }
+    }
+    
+    @Test
+    void peekEarliestAcrossOverdueWheelAndOverflow() {
+        ExpiryCalendar calendar = new ExpiryCalendar(START);
+        assertNull(calendar.peekEarliest());
+        Product far = product(START + ExpiryCalendar.WHEEL_DAYS * 3);
+        calendar.schedule(far);
+        assertSame(far, calendar.peekEarliest());
+        Product near = product(START + 10);
+        calendar.schedule(near);
+        assertSame(near, calendar.peekEarliest());
+        Product overdue = product(START - 5);
+        calendar.schedule(overdue);
+        assertSame(overdue, calendar.peekEarliest());
+        
+        // Products without an expiry date are never scheduled
+        Product undated = new Product();
+        undated.setExpiryDate(null);
+        undated.captureIndexedKeys();
+        calendar.schedule(undated);
+        assertEquals(3, calendar.size());
+        
+        assertEquals(List.of(overdue, near), calendar.pollDue(START + 100, 10));
+        assertSame(far, calendar.peekEarliest());
+        assertEquals(List.of(far), calendar.pollDue(START + ExpiryCalendar.WHEEL_DAYS * 3, 10));
+        assertEquals(0, calendar.size());
+    }
+    
+    private static Product product(long day) {
+        Product product = new Product();
+        product.setExpiryDate(LocalDate.ofEpochDay(day));
+        product.captureIndexedKeys();
+        return product;
+    }
+}
\ No newline at end of file
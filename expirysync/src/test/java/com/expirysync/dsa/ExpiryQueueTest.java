@@ -0,0 +1,164 @@
+package com.expirysync.dsa;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+class ExpiryQueueTest {
+    @Test
+    void ringIsFifoAcrossLaps() {
+        ExpiryQueue queue = new ExpiryQueue(5);
+        assertEquals(8, queue.capacity());
+        List<Product> expected = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Product product = product("P" + i);
+            assertTrue(queue.enqueue(product));
+            expected.add(product);
+        }
+        assertFalse(queue.enqueue(product("full")));
+        assertEquals(8, queue.size());
+        
+        List<Product> seen = new ArrayList<>();
+        for (int lap = 0; lap < 5; lap++) {
+            for (int i = 0; i < 3; i++) {
+                seen.add(queue.dequeue());
+                Product product = product("L" + lap + "-" + i);
+                assertTrue(queue.enqueue(product));
+                expected.add(product);
+            }
+        }
+        Product next;
+        while ((next = queue.dequeue()) != null) {
+            seen.add(next);
+        }
+        assertEquals(expected.size(), seen.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertSame(expected.get(i), seen.get(i));
+        }
+        assertTrue(queue.isEmpty());
+    }
+    
+    // REJECT reports a full ring like BLOCK; SPILL never does, and hands out
+    // the overflow after the ring in arrival order
+    @Test
+    void overflowPolicies() {
+        ExpiryQueue reject = new ExpiryQueue(2, ExpiryQueue.OverflowPolicy.REJECT);
+        assertTrue(reject.enqueue(product("A")));
+        assertTrue(reject.enqueue(product("B")));
+        assertFalse(reject.enqueue(product("C")));
+        assertEquals(2, reject.size());
+        assertEquals(0, reject.getSpilledCount());
+        
+        ExpiryQueue spill = new ExpiryQueue(2, ExpiryQueue.OverflowPolicy.SPILL);
+        List<Product> added = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Product product = product("S" + i);
+            assertTrue(spill.enqueue(product));
+            added.add(product);
+        }
+        assertEquals(3, spill.getSpilledCount());
+        assertEquals(5, spill.size());
+        for (Product product : added) {
+            assertSame(product, spill.dequeue());
+        }
+        assertNull(spill.dequeue());
+    }
+    
+    // The catalog's view of each policy with a two-slot intake: BLOCK drains
+    // and keeps going, REJECT refuses the add and leaves nothing behind,
+    // SPILL accepts everything and counts the overflow
+    @Test
+    void catalogAppliesPolicyWhenIntakeIsFull() {
+        long past = LocalDate.now().toEpochDay() - 1000;
+        
+        DSAOperations block = new DSAOperations(2, ExpiryQueue.OverflowPolicy.BLOCK, 50);
+        for (int i = 0; i < 10; i++) {
+            block.addProduct(product("B" + i));
+        }
+        block.processExpired(past, 10);
+        assertEquals(10, block.getProductCount());
+        assertEquals(10, block.getDashboardStats().get("scheduledForExpiry"));
+        
+        DSAOperations reject = new DSAOperations(2, ExpiryQueue.OverflowPolicy.REJECT, 50);
+        reject.addProduct(product("R0"));
+        reject.addProduct(product("R1"));
+        assertThrows(ExpiryQueue.QueueFullException.class, () -> reject.addProduct(product("R2")));
+        assertEquals(2, reject.getProductCount());
+        assertNull(reject.getProduct("R2"));
+        reject.processExpired(past, 10);
+        reject.addProduct(product("R2"));
+        assertEquals(3, reject.getProductCount());
+        
+        DSAOperations spill = new DSAOperations(2, ExpiryQueue.OverflowPolicy.SPILL, 50);
+        for (int i = 0; i < 10; i++) {
+            spill.addProduct(product("S" + i));
+        }
+        assertEquals(8L, spill.getDashboardStats().get("intakeSpilled"));
+        spill.processExpired(past, 10);
+        assertEquals(10, spill.getDashboardStats().get("scheduledForExpiry"));
+    }
+    
+    // Producers that retry on a full ring, as BLOCK callers do, each see
+    // their own products come out in the order they went in
+    @Test
+    void concurrentProducersKeepTheirOrder() throws Exception {
+        int producers = 4;
+        int perProducer = 20_000;
+        ExpiryQueue queue = new ExpiryQueue(64);
+        ExecutorService pool = Executors.newFixedThreadPool(producers);
+        try {
+            List<Future<?>> done = new ArrayList<>();
+            for (int p = 0; p < producers; p++) {
+                String prefix = p + ":";
+                done.add(pool.submit(() -> {
+                    for (int i = 0; i < perProducer; i++) {
+                        Product product = product(prefix + i);
+                        while (!queue.enqueue(product)) {
+                            Thread.yield();
+                        }
+                    }
+                }));
+            }
+            
+            int[] nextExpected = new int[producers];
+            int received = 0;
+            while (received < producers * perProducer) {
+                Product product = queue.dequeue();
+                if (product == null) {
+                    Thread.yield();
+                    continue;
+                }
+                String[] parts = product.getId().split(":");
+                int producer = Integer.parseInt(parts[0]);
+                assertEquals(nextExpected[producer]++, Integer.parseInt(parts[1]));
+                received++;
+            }
+            for (Future<?> future : done) {
+                future.get();
+            }
+            assertNull(queue.dequeue());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+    
+    private static Product product(String id) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(id);
+        product.setQuantity(1);
+        product.setExpiryDate(LocalDate.now().plusDays(5));
+        return product;
+    }
+}
\ No newline at end of file
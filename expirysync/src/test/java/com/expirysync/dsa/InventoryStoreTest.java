@@ -0,0 +1,124 @@
+package com.expirysync.dsa;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// Recovery from a snapshot plus the log written after it must rebuild the
+// catalog exactly as it was when the last write was acknowledged
+class InventoryStoreTest {
+    private static final long NEVER = 1_000_000_000L;
+    
+    @TempDir
+    Path dir;
+    
+    @Test
+    void recoversEveryAcknowledgedWrite() throws IOException {
+        Random random = new Random(5);
+        DSAOperations ops = new DSAOperations();
+        InventoryStore store = InventoryStore.open(ops, dir, NEVER);
+        List<String> ids = new ArrayList<>();
+        for (int step = 0; step < 3000; step++) {
+            int op = random.nextInt(10);
+            if (op < 5 || ids.isEmpty()) {
+                Product product = new Product();
+                product.setName("n" + random.nextInt(100));
+                product.setCategory(random.nextBoolean() ? null : "Crème");
+                product.setSupplier("S");
+                product.setQuantity(random.nextInt(9));
+                product.setPrice(random.nextInt(500) / 7.0);
+                product.setExpiryDate(random.nextInt(5) == 0 ? null : LocalDate.now().plusDays(random.nextInt(20) - 10));
+                ops.addProduct(product);
+                ids.add(product.getId());
+            } else if (op < 7) {
+                ops.removeProduct(ids.remove(random.nextInt(ids.size())));
+            } else if (op < 8) {
+                ops.updateQuantity(ids.get(random.nextInt(ids.size())), random.nextInt(100));
+            } else if (op < 9) {
+                Product replacement = new Product();
+                replacement.setId(ids.get(random.nextInt(ids.size())));
+                replacement.setName("u");
+                replacement.setStatus("Hold");
+                ops.addProduct(replacement);
+            } else {
+                for (Product expired : ops.processExpired(LocalDate.now().toEpochDay() - 1, 3)) {
+                    ids.remove(expired.getId());
+                }
+            }
+            if (step == 1500) store.checkpoint();
+        }
+        Map<String, String> before = state(ops);
+        assertEquals(ids.size(), before.size());
+        
+        // No close(): the second open sees only what each write synced
+        DSAOperations recovered = new DSAOperations();
+        InventoryStore reopened = InventoryStore.open(recovered, dir, NEVER);
+        assertEquals(before, state(recovered));
+        
+        // Writes after recovery are logged too, and new ids stay unique
+        Product extra = new Product();
+        extra.setName("after restart");
+        recovered.addProduct(extra);
+        recovered.updateQuantity(extra.getId(), 77);
+        assertNotEquals(extra.getId(), new Product().getId());
+        Map<String, String> expected = state(recovered);
+        reopened.close();
+        store.close();
+        
+        DSAOperations again = new DSAOperations();
+        InventoryStore last = InventoryStore.open(again, dir, NEVER);
+        assertEquals(expected, state(again));
+        last.close();
+    }
+    
+    // Garbage after the last complete record is ignored
+    @Test
+    void ignoresTornTail() throws IOException {
+        DSAOperations ops = new DSAOperations();
+        InventoryStore store = InventoryStore.open(ops, dir, NEVER);
+        for (int i = 0; i < 50; i++) {
+            Product product = new Product();
+            product.setName("p" + i);
+            product.setPrice(i + 0.123456789);
+            ops.addProduct(product);
+        }
+        Map<String, String> expected = state(ops);
+        store.close();
+        
+        Path newest;
+        try (Stream<Path> files = Files.list(dir)) {
+            newest = files.filter(path -> path.getFileName().toString().startsWith("wal-"))
+                .max(Comparator.naturalOrder()).get();
+        }
+        Files.write(newest, new byte[] {0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+        
+        DSAOperations recovered = new DSAOperations();
+        InventoryStore reopened = InventoryStore.open(recovered, dir, NEVER);
+        assertEquals(expected, state(recovered));
+        reopened.close();
+    }
+    
+    // Every stored field, prices exactly, keyed by id
+    private static Map<String, String> state(DSAOperations ops) {
+        Map<String, String> state = new TreeMap<>();
+        for (Product product : ops.sortProducts(ProductSorter.parse("name"), 0, Integer.MAX_VALUE)) {
+            state.put(product.getId(), product.getName() + "|" + product.getCategory() + "|" + product.getSupplier()
+                + "|" + product.getStatus() + "|" + product.getQuantity() + "|" + product.getPrice() + "|" + product.getExpiryDate());
+        }
+        return state;
+    }
+}
\ No newline at end of file
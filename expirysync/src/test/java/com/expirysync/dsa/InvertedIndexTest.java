@@ -0,0 +1,117 @@
+package com.expirysync.dsa;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+class InvertedIndexTest {
+    // More query words matched wins, then the field and expansion the best
+    // match came from: name over category over supplier, exact over prefix
+    @Test
+    void ranksByWordsMatchedThenFieldThenExpansion() {
+        List<Product> catalog = new ArrayList<>();
+        InvertedIndex index = new InvertedIndex();
+        Product wholeMilk = add(index, catalog, "Organic Whole Milk", "Dairy", "Acme");
+        Product chocolate = add(index, catalog, "Milk Chocolate", "Sweets", "Cocoa Ltd");
+        Product soap = add(index, catalog, "Soap", "Household", "Milk Co");
+        Product bread = add(index, catalog, "Whole Wheat Bread", "Bakery", "Acme");
+        Product pipe = add(index, catalog, "Organ Pipe", "Music", "Acme");
+        
+        List<InvertedIndex.Hit> hits = index.search("whole milk", 10, catalog.size());
+        assertEquals(List.of(wholeMilk, chocolate, bread, soap), products(hits));
+        assertEquals(2, hits.get(0).matchedTerms);
+        assertEquals(1, hits.get(1).matchedTerms);
+        assertTrue(hits.get(2).score > hits.get(3).score);
+        
+        assertEquals(List.of(pipe, wholeMilk), products(index.search("organ", 10, catalog.size())));
+        assertEquals(List.of(wholeMilk), products(index.search("whole milk", 1, catalog.size())));
+    }
+    
+    @Test
+    void prefixesAndTyposFindTheirTerms() {
+        List<Product> catalog = new ArrayList<>();
+        InvertedIndex index = new InvertedIndex();
+        Product wholeMilk = add(index, catalog, "Organic Whole Milk", "Dairy", "Acme");
+        Product chocolate = add(index, catalog, "Chocolate Bar", "Sweets", "Cocoa Ltd");
+        
+        assertEquals(List.of(chocolate), products(index.search("choc", 10, catalog.size())));
+        assertEquals(List.of(wholeMilk), products(index.search("orgnic", 10, catalog.size())));
+        assertEquals(List.of(wholeMilk), products(index.search("mlik", 10, catalog.size())));
+        assertEquals(List.of(chocolate), products(index.search("chocolatte", 10, catalog.size())));
+        // Words of five letters or fewer allow one typo, longer ones two
+        assertEquals(List.of(), products(index.search("mxlq", 10, catalog.size())));
+        assertEquals(List.of(), products(index.search("c", 10, catalog.size())));
+        // Accents and case are normalized away on both sides
+        assertEquals(List.of(chocolate), products(index.search("CHÖCOLATE", 10, catalog.size())));
+    }
+    
+    @Test
+    void editDistanceCountsAdjacentSwapsOnce() {
+        assertEquals(0, InvertedIndex.boundedEditDistance("milk", "milk", 1));
+        assertEquals(1, InvertedIndex.boundedEditDistance("mlik", "milk", 1));
+        assertEquals(1, InvertedIndex.boundedEditDistance("orgnic", "organic", 2));
+        assertEquals(2, InvertedIndex.boundedEditDistance("orgnc", "organic", 2));
+        assertEquals(-1, InvertedIndex.boundedEditDistance("mxlq", "milk", 1));
+        assertEquals(-1, InvertedIndex.boundedEditDistance("milk", "milkshake", 2));
+    }
+    
+    // Removed products drop out at once; a re-added one is found once, under
+    // its new generation
+    @Test
+    void removedProductsAreNotFound() {
+        List<Product> catalog = new ArrayList<>();
+        InvertedIndex index = new InvertedIndex();
+        Product first = add(index, catalog, "Greek Yogurt", "Dairy", "Acme");
+        Product second = add(index, catalog, "Greek Salad", "Deli", "Acme");
+        
+        index.remove(first);
+        assertEquals(List.of(second), products(index.search("greek", 10, catalog.size())));
+        index.add(first);
+        assertEquals(2, index.search("greek", 10, catalog.size()).size());
+        index.remove(first);
+        index.remove(second);
+        assertEquals(List.of(), products(index.search("greek", 10, catalog.size())));
+        assertEquals(List.of(), products(index.search("yoghurt", 10, catalog.size())));
+    }
+    
+    // A word too common to scan is only checked against products the
+    // rarer words found, so it refines their ranking but adds nothing
+    @Test
+    void commonWordOnlyRefinesRarerMatches() {
+        List<Product> catalog = new ArrayList<>();
+        InvertedIndex index = new InvertedIndex();
+        for (int i = 0; i < InvertedIndex.POSTINGS_BUDGET + 1000; i++) {
+            add(index, catalog, "Pantry item " + i, "Pantry", "Acme");
+        }
+        Product both = add(index, catalog, "Saffron pantry tin", "Spices", "Acme");
+        Product rareOnly = add(index, catalog, "Saffron threads", "Spices", "Acme");
+        
+        List<InvertedIndex.Hit> hits = index.search("pantry saffron", 10, catalog.size());
+        assertEquals(List.of(both, rareOnly), products(hits));
+        assertEquals(2, hits.get(0).matchedTerms);
+        assertSame(rareOnly, hits.get(1).product);
+        assertEquals(1, hits.get(1).matchedTerms);
+    }
+    
+    private static Product add(InvertedIndex index, List<Product> catalog, String name, String category, String supplier) {
+        Product product = new Product();
+        product.setId("P" + catalog.size());
+        product.setName(name);
+        product.setCategory(category);
+        product.setSupplier(supplier);
+        product.captureIndexedKeys();
+        product.slot = catalog.size();
+        catalog.add(product);
+        index.add(product);
+        return product;
+    }
+    
+    private static List<Product> products(List<InvertedIndex.Hit> hits) {
+        return hits.stream().map(hit -> hit.product).collect(Collectors.toList());
+    }
+}
\ No newline at end of file
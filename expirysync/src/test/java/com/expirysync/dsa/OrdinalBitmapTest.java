@@ -0,0 +1,79 @@
+package com.expirysync.dsa;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class OrdinalBitmapTest {
+    // Sparse (array) and dense (bitset) chunks, and every combination of
+    // the two, against java.util.BitSet
+    @Test
+    void matchesBitSet() {
+        Random random = new Random(7);
+        for (int trial = 0; trial < 60; trial++) {
+            int n = 1 + random.nextInt(300_000);
+            double denseX = random.nextDouble();
+            double denseY = random.nextDouble() * 0.1;
+            OrdinalBitmap x = new OrdinalBitmap();
+            OrdinalBitmap y = new OrdinalBitmap();
+            BitSet expectedX = new BitSet();
+            BitSet expectedY = new BitSet();
+            for (int i = 0; i < n; i++) {
+                if (random.nextDouble() < denseX) {
+                    x.add(i);
+                    expectedX.set(i);
+                }
+                if (random.nextDouble() < denseY) {
+                    y.add(i);
+                    expectedY.set(i);
+                }
+            }
+            for (int i = 0; i < n / 3; i++) {
+                int ordinal = random.nextInt(n);
+                x.remove(ordinal);
+                expectedX.clear(ordinal);
+            }
+            assertSame(expectedX, x, random);
+            assertSame(expectedY, y, random);
+            
+            BitSet and = (BitSet) expectedX.clone();
+            and.and(expectedY);
+            assertSame(and, x.and(y), random);
+            assertSame(and, y.and(x), random);
+            BitSet or = (BitSet) expectedX.clone();
+            or.or(expectedY);
+            assertSame(or, x.or(y), random);
+            BitSet andNot = (BitSet) expectedX.clone();
+            andNot.andNot(expectedY);
+            assertSame(andNot, x.andNot(y), random);
+            andNot = (BitSet) expectedY.clone();
+            andNot.andNot(expectedX);
+            assertSame(andNot, y.andNot(x), random);
+            BitSet range = new BitSet();
+            range.set(0, n);
+            assertSame(range, OrdinalBitmap.range(n), random);
+            
+            // The operations leave their inputs untouched
+            assertSame(expectedX, x, random);
+            assertSame(expectedY, y, random);
+            
+            int offset = random.nextInt(expectedX.cardinality() + 1);
+            int[] all = expectedX.stream().toArray();
+            assertArrayEquals(Arrays.copyOfRange(all, offset, Math.min(all.length, offset + 100)), x.toArray(offset, 100));
+        }
+    }
+    
+    private static void assertSame(BitSet expected, OrdinalBitmap actual, Random random) {
+        assertEquals(expected.cardinality(), actual.cardinality());
+        assertEquals(expected.isEmpty(), actual.isEmpty());
+        assertArrayEquals(expected.stream().toArray(), actual.toArray(0, Integer.MAX_VALUE));
+        for (int i = 0; i < 50; i++) {
+            int ordinal = random.nextInt(expected.length() + 10);
+            assertEquals(expected.get(ordinal), actual.contains(ordinal), "contains " + ordinal);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,116 @@
+package com.expirysync.dsa;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+class PriorityExpiryQueueTest {
+    private static final long TODAY = LocalDate.now().toEpochDay();
+    
+    // Inserts, removals by handle and re-keying inserts, checked against the
+    // minimum of a plain list after every step
+    @Test
+    void headIsAlwaysTheEarliestExpiry() {
+        Random random = new Random(3);
+        PriorityExpiryQueue queue = new PriorityExpiryQueue(4);
+        List<Product> live = new ArrayList<>();
+        for (int step = 0; step < 10_000; step++) {
+            if (random.nextInt(3) < 2 || live.isEmpty()) {
+                Product product = product(TODAY - 30 + random.nextInt(60), null);
+                queue.insert(product);
+                live.add(product);
+            } else {
+                Product product = live.remove(random.nextInt(live.size()));
+                if (random.nextBoolean()) {
+                    assertTrue(queue.remove(product));
+                    assertFalse(queue.contains(product));
+                } else {
+                    product.setExpiryDate(LocalDate.ofEpochDay(TODAY - 30 + random.nextInt(60)));
+                    queue.insert(product);
+                    live.add(product);
+                }
+            }
+            assertEquals(live.size(), queue.size());
+            long min = live.stream().mapToLong(p -> p.getExpiryDate().toEpochDay()).min().orElse(Long.MAX_VALUE);
+            if (!live.isEmpty()) {
+                assertEquals(min, queue.peekMostUrgent().getExpiryDate().toEpochDay(), "step " + step);
+            }
+        }
+        
+        long previous = Long.MIN_VALUE;
+        while (!queue.isEmpty()) {
+            long day = queue.removeMostUrgent().getExpiryDate().toEpochDay();
+            assertTrue(day >= previous);
+            previous = day;
+        }
+        assertNull(queue.removeMostUrgent());
+    }
+    
+    @Test
+    void insertAllKeepsHeapOrder() {
+        Random random = new Random(5);
+        PriorityExpiryQueue queue = new PriorityExpiryQueue(1);
+        List<Product> live = new ArrayList<>();
+        for (int round = 0; round < 20; round++) {
+            Product[] batch = new Product[random.nextInt(round < 10 ? 2000 : 50)];
+            for (int i = 0; i < batch.length; i++) {
+                batch[i] = product(TODAY + random.nextInt(400), null);
+                live.add(batch[i]);
+            }
+            queue.insertAll(batch);
+            assertEquals(live.size(), queue.size());
+        }
+        List<Long> expected = live.stream().map(p -> p.getExpiryDate().toEpochDay()).sorted().collect(Collectors.toList());
+        List<Long> drained = new ArrayList<>();
+        while (!queue.isEmpty()) {
+            drained.add(queue.removeMostUrgent().getExpiryDate().toEpochDay());
+        }
+        assertEquals(expected, drained);
+    }
+    
+    // topUrgent pages match a sort of the filtered list, and the category is
+    // matched on normalized keys
+    @Test
+    void topUrgentMatchesSortedFilter() {
+        Random random = new Random(11);
+        String[] categories = {"Dairy", "Bakery", "Crème Pâtisserie"};
+        PriorityExpiryQueue queue = new PriorityExpiryQueue(16);
+        List<Product> live = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            Product product = product(TODAY - 30 + random.nextInt(600), categories[random.nextInt(categories.length)]);
+            queue.insert(product);
+            live.add(product);
+        }
+        for (int trial = 0; trial < 300; trial++) {
+            int offset = random.nextInt(200);
+            int limit = 1 + random.nextInt(60);
+            String category = random.nextBoolean() ? null : categories[random.nextInt(categories.length)];
+            List<Long> expected = live.stream()
+                .filter(p -> category == null || category.equals(p.getCategory()))
+                .map(p -> p.getExpiryDate().toEpochDay())
+                .sorted().skip(offset).limit(limit)
+                .collect(Collectors.toList());
+            List<Long> actual = queue.topUrgent(offset, limit, category).stream()
+                .map(p -> p.getExpiryDate().toEpochDay())
+                .collect(Collectors.toList());
+            assertEquals(expected, actual, "offset " + offset + " limit " + limit + " category " + category);
+        }
+        assertEquals(queue.topUrgent(0, 100, "Crème Pâtisserie"), queue.topUrgent(0, 100, "CREME PATISSERIE"));
+    }
+    
+    private static Product product(long day, String category) {
+        Product product = new Product();
+        product.setCategory(category);
+        product.setExpiryDate(LocalDate.ofEpochDay(day));
+        product.captureIndexedKeys();
+        return product;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,74 @@
+package com.expirysync.dsa;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class ProductSorterTest {
+    private static final String[] SPECS = {
+        "expiry", "-expiry", "quantity", "-quantity", "priority", "price", "-price",
+        "priority,-quantity", "expiry,quantity,price", "name", "-name,quantity", "quantity,name"
+    };
+    
+    // Radix, parallel and comparator paths, and the top-k heap, all give the
+    // same order as a stable List.sort on the equivalent comparator. Sizes
+    // straddle PARALLEL_THRESHOLD and include negative prices and quantities
+    // and missing expiry dates.
+    @Test
+    void matchesStableComparatorSort() {
+        Random random = new Random(7);
+        ProductSorter sorter = new ProductSorter();
+        for (int n : new int[] {0, 1, 2, 17, 300, 5000, ProductSorter.PARALLEL_THRESHOLD + 1000}) {
+            List<Product> base = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                Product product = new Product();
+                product.setName(random.nextInt(5) == 0 ? "Milk" : "item" + random.nextInt(1000));
+                product.setQuantity(random.nextInt(200) - 20);
+                product.setPrice(random.nextInt(10) == 0 ? -random.nextDouble() * 5 : Math.round(random.nextDouble() * 1000) / 100.0);
+                product.setExpiryDate(random.nextInt(30) == 0 ? null : LocalDate.now().plusDays(random.nextInt(400) - 30));
+                base.add(product);
+            }
+            for (String spec : SPECS) {
+                List<ProductSorter.Order> orders = ProductSorter.parse(spec);
+                List<Product> expected = new ArrayList<>(base);
+                expected.sort(reference(orders));
+                
+                assertEquals(expected, sorter.sort(new ArrayList<>(base), orders), "sort n=" + n + " " + spec);
+                for (int k : new int[] {1, 10, n / 20, n}) {
+                    assertEquals(expected.subList(0, Math.min(k, n)), sorter.sortedPrefix(new ArrayList<>(base), orders, k),
+                        "prefix n=" + n + " k=" + k + " " + spec);
+                }
+            }
+        }
+    }
+    
+    @Test
+    void parsesMultiKeySpecs() {
+        List<ProductSorter.Order> orders = ProductSorter.parse(" expiry, -quantity ,,price");
+        assertEquals(3, orders.size());
+        assertEquals("[expiry, -quantity, price]", orders.toString());
+        assertEquals(0, ProductSorter.parse(null).size());
+    }
+    
+    private static Comparator<Product> reference(List<ProductSorter.Order> orders) {
+        Comparator<Product> comparator = null;
+        for (ProductSorter.Order order : orders) {
+            Comparator<Product> next;
+            switch (order.key) {
+                case NAME: next = Comparator.comparing(Product::getName, String.CASE_INSENSITIVE_ORDER); break;
+                case EXPIRY: next = Comparator.comparing(Product::getExpiryDate, Comparator.nullsLast(Comparator.naturalOrder())); break;
+                case QUANTITY: next = Comparator.comparingInt(Product::getQuantity); break;
+                case PRIORITY: next = Comparator.comparingInt(Product::getPriority); break;
+                default: next = Comparator.comparingDouble(Product::getPrice);
+            }
+            if (order.descending) next = next.reversed();
+            comparator = comparator == null ? next : comparator.thenComparing(next);
+        }
+        return comparator;
+    }
+}
\ No newline at end of file
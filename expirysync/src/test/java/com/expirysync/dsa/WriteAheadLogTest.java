@@ -0,0 +1,237 @@
+package com.expirysync.dsa;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class WriteAheadLogTest {
+    @TempDir
+    Path dir;
+    
+    @Test
+    void replaysRecordsInOrderAfterSeq() throws IOException {
+        WriteAheadLog log = new WriteAheadLog(dir, 0);
+        log.appendPut(product("A", "Whole Milk", 2.123456789));
+        log.appendQuantity("A", 7);
+        log.appendPut(product("B", "Crème Fraîche", 0.1));
+        log.appendRemove("B");
+        log.sync();
+        assertEquals(4, log.getLastSeq());
+        log.close();
+        
+        List<String> records = new ArrayList<>();
+        assertEquals(4, WriteAheadLog.replay(dir, 0, recorder(records)));
+        assertEquals(List.of("put A Whole Milk 2.123456789", "quantity A 7", "put B Crème Fraîche 0.1", "remove B"), records);
+        
+        records.clear();
+        assertEquals(4, WriteAheadLog.replay(dir, 2, recorder(records)));
+        assertEquals(List.of("put B Crème Fraîche 0.1", "remove B"), records);
+    }
+    
+    // Replay stops at a torn record and keeps everything before it; a new
+    // log continues the sequence in a fresh segment
+    @Test
+    void tornTailEndsReplay() throws IOException {
+        WriteAheadLog log = new WriteAheadLog(dir, 0);
+        log.appendPut(product("A", "a", 1));
+        log.appendPut(product("B", "b", 2));
+        log.close();
+        Files.write(segments().get(0), new byte[] {0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+        
+        List<String> records = new ArrayList<>();
+        long lastSeq = WriteAheadLog.replay(dir, 0, recorder(records));
+        assertEquals(2, lastSeq);
+        assertEquals(2, records.size());
+        
+        WriteAheadLog next = new WriteAheadLog(dir, lastSeq);
+        next.appendRemove("A");
+        next.close();
+        assertEquals(2, segments().size());
+        records.clear();
+        assertEquals(3, WriteAheadLog.replay(dir, 0, recorder(records)));
+        assertEquals("remove A", records.get(2));
+    }
+    
+    // Zeros where the file grew but the data never landed are a torn tail
+    // too; a bad record with intact records after it is not, and neither
+    // is a torn segment whose successor skips sequence numbers
+    @Test
+    void damageBeforeTheTailFailsReplay() throws IOException {
+        WriteAheadLog log = new WriteAheadLog(dir, 0);
+        log.appendPut(product("A", "a", 1));
+        log.appendPut(product("B", "b", 2));
+        log.appendPut(product("C", "c", 3));
+        log.close();
+        Path segment = segments().get(0);
+        byte[] intact = Files.readAllBytes(segment);
+        
+        Files.write(segment, new byte[4096], StandardOpenOption.APPEND);
+        assertEquals(3, WriteAheadLog.replay(dir, 0, recorder(new ArrayList<>())));
+        
+        byte[] flipped = intact.clone();
+        int second = 8 + ByteBuffer.wrap(intact).getInt(0);
+        flipped[second + 20] ^= 1;
+        Files.write(segment, flipped);
+        IOException corrupt = assertThrows(IOException.class, () -> WriteAheadLog.replay(dir, 0, recorder(new ArrayList<>())));
+        assertTrue(corrupt.getMessage().contains("offset " + second), corrupt.getMessage());
+        
+        Files.write(segment, Arrays.copyOf(intact, intact.length - 3));
+        WriteAheadLog skipping = new WriteAheadLog(dir, 5);
+        skipping.appendRemove("A");
+        skipping.close();
+        assertThrows(IOException.class, () -> WriteAheadLog.replay(dir, 0, recorder(new ArrayList<>())));
+        assertEquals(6, WriteAheadLog.replay(dir, 5, recorder(new ArrayList<>())));
+    }
+    
+    // A product too long to record is refused before the catalog or the
+    // sequence changes, and the next write takes the next sequence
+    @Test
+    void oversizedFieldIsRejectedUpFront() throws IOException {
+        DSAOperations ops = new DSAOperations();
+        WriteAheadLog log = new WriteAheadLog(dir, 0);
+        ops.attachLog(log);
+        ops.addProduct(product("A", "ok", 1));
+        
+        Product huge = product("B", "é".repeat(40_000), 1);
+        assertThrows(IllegalArgumentException.class, () -> WriteAheadLog.checkRecordable(huge));
+        assertThrows(IllegalArgumentException.class, () -> ops.addProduct(huge));
+        assertEquals(1, ops.getProductCount());
+        assertNull(ops.getProduct("B"));
+        assertEquals(1, log.getLastSeq());
+        
+        ops.addProduct(product("C", "ok too", 1));
+        ops.removeProduct("A");
+        assertEquals(3, log.getLastSeq());
+        log.close();
+        
+        List<String> records = new ArrayList<>();
+        assertEquals(3, WriteAheadLog.replay(dir, 0, recorder(records)));
+        assertEquals(List.of("put A ok 1.0", "put C ok too 1.0", "remove A"), records);
+    }
+    
+    // A snapshot stores the expiry day as an int, so a date LocalDate
+    // accepts but the snapshot cannot hold is refused with the other
+    // unrecordable fields, and the next checkpoint still succeeds
+    @Test
+    void expiryBeyondSnapshotRangeIsRejectedUpFront() throws IOException {
+        DSAOperations ops = new DSAOperations();
+        InventoryStore store = InventoryStore.open(ops, dir, 1_000_000_000L);
+        Product farFuture = product("F", "far future", 1);
+        farFuture.setExpiryDate(LocalDate.parse("+999999999-12-31"));
+        Product farPast = product("P", "far past", 1);
+        farPast.setExpiryDate(LocalDate.ofEpochDay(Integer.MIN_VALUE));
+        Product edge = product("E", "edge", 1);
+        edge.setExpiryDate(LocalDate.ofEpochDay(Integer.MAX_VALUE));
+        
+        assertThrows(IllegalArgumentException.class, () -> WriteAheadLog.checkRecordable(farFuture));
+        assertThrows(IllegalArgumentException.class, () -> WriteAheadLog.checkRecordable(farPast));
+        assertThrows(IllegalArgumentException.class, () -> ops.addProduct(farFuture));
+        assertThrows(IllegalArgumentException.class, () -> ops.addProducts(List.of(product("A", "a", 1), farFuture)));
+        assertEquals(0, ops.getProductCount());
+        
+        ops.addProduct(edge);
+        store.checkpoint();
+        store.close();
+        
+        DSAOperations recovered = new DSAOperations();
+        InventoryStore.open(recovered, dir, 1_000_000_000L).close();
+        assertEquals(1, recovered.getProductCount());
+        assertEquals(edge.getExpiryDate(), recovered.getProduct("E").getExpiryDate());
+    }
+    
+    // A write-off whose removal cannot be logged leaves that product and
+    // every other one polled with it in the catalog and on the calendar.
+    // An id too long to record, stored before the log was attached, makes
+    // the append fail.
+    @Test
+    void failedWriteOffChangesNothing() throws IOException {
+        DSAOperations ops = new DSAOperations();
+        Product unloggable = product("I".repeat(70_000), "unloggable", 1);
+        unloggable.setExpiryDate(LocalDate.now().minusDays(3));
+        Product next = product("N", "next", 1);
+        next.setExpiryDate(LocalDate.now().minusDays(2));
+        ops.addProduct(unloggable);
+        ops.addProduct(next);
+        WriteAheadLog log = new WriteAheadLog(dir, 0);
+        ops.attachLog(log);
+        
+        long yesterday = LocalDate.now().minusDays(1).toEpochDay();
+        assertThrows(IllegalArgumentException.class, () -> ops.processExpired(yesterday, 10));
+        assertEquals(2, ops.getProductCount());
+        assertEquals(2, ops.getDashboardStats().get("scheduledForExpiry"));
+        assertEquals(2, ops.getDashboardStats().get("urgentCount"));
+        assertEquals(0, log.getLastSeq());
+        
+        // Still first in line, so the same pass fails the same way
+        assertThrows(IllegalArgumentException.class, () -> ops.processExpired(yesterday, 10));
+        assertEquals(2, ops.getDashboardStats().get("scheduledForExpiry"));
+        log.close();
+    }
+    
+    @Test
+    void rollStartsNewSegment() throws IOException {
+        WriteAheadLog log = new WriteAheadLog(dir, 0);
+        log.appendPut(product("A", "a", 1));
+        assertEquals(1, log.roll());
+        assertEquals(0, log.getRecordsSinceRoll());
+        log.appendPut(product("B", "b", 1));
+        log.deleteSegmentsBefore(log.getSegment());
+        log.close();
+        assertEquals(1, segments().size());
+        
+        List<String> records = new ArrayList<>();
+        assertEquals(2, WriteAheadLog.replay(dir, 0, recorder(records)));
+        assertEquals(List.of("put B b 1.0"), records);
+    }
+    
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(path -> path.getFileName().toString().startsWith("wal-")).sorted().collect(Collectors.toList());
+        }
+    }
+    
+    private static Product product(String id, String name, double price) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setCategory("Dairy");
+        product.setQuantity(3);
+        product.setPrice(price);
+        product.setExpiryDate(LocalDate.now().plusDays(5));
+        return product;
+    }
+    
+    private static WriteAheadLog.Visitor recorder(List<String> records) {
+        return new WriteAheadLog.Visitor() {
+            @Override
+            public void put(Product product) {
+                records.add("put " + product.getId() + " " + product.getName() + " " + product.getPrice());
+            }
+            
+            @Override
+            public void remove(String id) {
+                records.add("remove " + id);
+            }
+            
+            @Override
+            public void quantity(String id, int quantity) {
+                records.add("quantity " + id + " " + quantity);
+            }
+        };
+    }
+}
\ No newline at end of file
@@ -0,0 +1,42 @@
+package com.expirysync.log;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+class LogRingTest {
+    // A trailing Throwable is written with its stack trace, whether or not
+    // a placeholder also shows it; any other argument is only formatted
+    @Test
+    void trailingThrowableGetsStackTrace() throws InterruptedException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        LogRing ring = new LogRing(16, out, err);
+        IOException cause = new IOException("disk full");
+        ring.publish(Log.Level.ERROR, "Test", "Checkpoint failed", 1, cause, null, null, null);
+        ring.publish(Log.Level.WARN, "Test", "{} of {}: {}", -1, null, null, null, new Object[] {1, 2, cause});
+        ring.publish(Log.Level.INFO, "Test", "Plain {}", 1, "value", null, null, null);
+        
+        String errors = await(err, 2);
+        String[] lines = errors.split("\n");
+        assertTrue(lines[0].endsWith("Test - Checkpoint failed"), lines[0]);
+        assertEquals("java.io.IOException: disk full", lines[1]);
+        assertTrue(lines[2].contains("at com.expirysync.log.LogRingTest.trailingThrowableGetsStackTrace"), lines[2]);
+        assertTrue(errors.contains("Test - 1 of 2: java.io.IOException: disk full\njava.io.IOException: disk full\n"), errors);
+        assertTrue(await(out, 1).endsWith("Test - Plain value\n"));
+    }
+    
+    // Waits for the writer thread to flush the given number of log lines
+    private static String await(ByteArrayOutputStream stream, int lines) throws InterruptedException {
+        for (int attempt = 0; attempt < 500; attempt++) {
+            String text = stream.toString(StandardCharsets.UTF_8);
+            if (text.split(" - ", -1).length > lines) return text;
+            Thread.sleep(10);
+        }
+        return stream.toString(StandardCharsets.UTF_8);
+    }
+}
\ No newline at end of file